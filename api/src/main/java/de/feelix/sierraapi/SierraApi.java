@@ -2,6 +2,8 @@ package de.feelix.sierraapi;
 
 import de.feelix.sierraapi.annotation.NotNull;
 import de.feelix.sierraapi.events.EventBus;
+import de.feelix.sierraapi.logs.LogRepository;
+import de.feelix.sierraapi.metrics.MetricsRepository;
 import de.feelix.sierraapi.server.SierraServer;
 import de.feelix.sierraapi.user.UserRepository;
 
@@ -32,4 +34,20 @@ public interface SierraApi {
      */
     @NotNull
     SierraServer server();
+
+    /**
+     * Retrieves the LogRepository, which provides access to the stored logs of players.
+     *
+     * @return the LogRepository instance
+     */
+    @NotNull
+    LogRepository logRepository();
+
+    /**
+     * Retrieves the MetricsRepository, which provides the counters and gauges of Sierra.
+     *
+     * @return the MetricsRepository instance
+     */
+    @NotNull
+    MetricsRepository metrics();
 }
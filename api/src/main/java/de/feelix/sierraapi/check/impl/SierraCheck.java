@@ -8,7 +8,7 @@ import de.feelix.sierraapi.check.CheckType;
 public interface SierraCheck {
 
     /**
-     * Returns the number of violations found by this check.
+     * Returns the number of violations found by this check, decayed by the time since its last detection.
      *
      * @return the number of violations
      */
@@ -0,0 +1,57 @@
+package de.feelix.sierraapi.history;
+
+import de.feelix.sierraapi.violation.MitigationStrategy;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The HistoryQuery class describes a query of the history. All filters are optional, a query without filters returns
+ * the newest entries of the whole history.
+ * <p>
+ * Results are returned newest first and hold at most {@link #getLimit()} entries. To read older entries, the next
+ * query passes the cursor of the previous result.
+ */
+@Getter
+@Builder
+@SuppressWarnings("unused")
+public class HistoryQuery {
+
+    /**
+     * The username of the entries, ignoring case, or null for all users.
+     */
+    private final String username;
+
+    /**
+     * The mitigation strategy of the entries, or null for all strategies.
+     */
+    private final MitigationStrategy mitigationStrategy;
+
+    /**
+     * The type of the entries, or null for all types.
+     */
+    private final HistoryType historyType;
+
+    /**
+     * The earliest timestamp of the entries in milliseconds, inclusive.
+     */
+    @Builder.Default
+    private final long from = 0;
+
+    /**
+     * The latest timestamp of the entries in milliseconds, inclusive.
+     */
+    @Builder.Default
+    private final long until = Long.MAX_VALUE;
+
+    /**
+     * The maximum amount of entries of the result.
+     */
+    @Builder.Default
+    private final int limit = 50;
+
+    /**
+     * The cursor of the previous result to continue after, or -1 to start at the newest entry.
+     */
+    @Builder.Default
+    private final long cursor = -1;
+}
@@ -0,0 +1,25 @@
+package de.feelix.sierraapi.history;
+
+import java.util.List;
+
+/**
+ * The HistoryResult interface represents the result of a {@link HistoryQuery}.
+ */
+@SuppressWarnings("unused")
+public interface HistoryResult {
+
+    /**
+     * Returns the entries of the result.
+     *
+     * @return An unmodifiable List of History objects, newest first.
+     */
+    List<History> entries();
+
+    /**
+     * Returns the cursor to read the entries older than this result, by passing it to the next query.
+     * Cursors are only valid until the history is compacted, a query with an expired cursor fails.
+     *
+     * @return The cursor, or -1 if there are no older entries.
+     */
+    long nextCursor();
+}
@@ -0,0 +1,44 @@
+package de.feelix.sierraapi.logs;
+
+/**
+ * The LogEntry interface represents a single record of a player's log, such as a detection or a logged packet.
+ */
+@SuppressWarnings("unused")
+public interface LogEntry {
+
+    /**
+     * Returns the username the record belongs to.
+     *
+     * @return The username as a String.
+     */
+    String username();
+
+    /**
+     * Returns the time the record was written.
+     *
+     * @return The timestamp as a long value indicating the time in milliseconds since the epoch (January 1, 1970,
+     * 00:00:00 GMT).
+     */
+    long timestamp();
+
+    /**
+     * Returns the tag of the record, for example DETECTION or CREATIVE.
+     *
+     * @return The tag as a String.
+     */
+    String tag();
+
+    /**
+     * Returns the id of the check the record belongs to.
+     *
+     * @return The id of the check, or 0 if the record does not belong to a check.
+     */
+    int checkId();
+
+    /**
+     * Returns the message of the record.
+     *
+     * @return The message as a String.
+     */
+    String message();
+}
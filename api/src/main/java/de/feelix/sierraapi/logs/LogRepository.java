@@ -0,0 +1,27 @@
+package de.feelix.sierraapi.logs;
+
+import de.feelix.sierraapi.annotation.Nullable;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The LogRepository interface provides access to the stored logs of players. Logs are indexed by player and time,
+ * so a query only reads the parts of the log that can hold matching records.
+ */
+@SuppressWarnings("unused")
+public interface LogRepository {
+
+    /**
+     * Queries the most recent log records of a player. The query runs in the background, the returned future is
+     * completed on a background thread.
+     *
+     * @param username the name of the player, ignoring case
+     * @param since    the earliest time of the records in milliseconds since the epoch, or 0 for all records
+     * @param tag      the tag of the records, ignoring case, or null for all tags
+     * @param limit    the maximum amount of records to return
+     * @return a future of the matching records, oldest first. It fails with an IllegalArgumentException if the tag
+     * is unknown.
+     */
+    CompletableFuture<List<LogEntry>> queryLogs(String username, long since, @Nullable String tag, int limit);
+}
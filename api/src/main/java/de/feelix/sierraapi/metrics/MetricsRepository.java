@@ -0,0 +1,63 @@
+package de.feelix.sierraapi.metrics;
+
+import de.feelix.sierraapi.check.CheckType;
+import de.feelix.sierraapi.violation.MitigationStrategy;
+
+import java.util.Map;
+
+/**
+ * The MetricsRepository interface provides read access to the counters and gauges of Sierra. Counters start at zero
+ * when the server starts and only grow. Reads do not block the threads that update the counters, so they may be
+ * polled often.
+ */
+@SuppressWarnings("unused")
+public interface MetricsRepository {
+
+    /**
+     * Returns the amount of players kicked by Sierra.
+     *
+     * @return the amount of kicks since the start
+     */
+    long kicks();
+
+    /**
+     * Returns the amount of players banned by Sierra.
+     *
+     * @return the amount of bans since the start
+     */
+    long bans();
+
+    /**
+     * Returns the amount of detections of a check type.
+     *
+     * @param checkType the check type
+     * @return the amount of detections since the start
+     */
+    long detections(CheckType checkType);
+
+    /**
+     * Returns the amount of detections of a check type that punished the player.
+     *
+     * @param checkType the check type
+     * @return the amount of punishments since the start
+     */
+    long punishments(CheckType checkType);
+
+    /**
+     * Returns the amount of detections with a mitigation strategy.
+     *
+     * @param mitigationStrategy the mitigation strategy
+     * @return the amount of detections since the start
+     */
+    long mitigations(MitigationStrategy mitigationStrategy);
+
+    /**
+     * Creates a snapshot of all counters and gauges. The keys are {@code kicks} and {@code bans}, followed by
+     * {@code detections.<check>}, {@code punishments.<check>}, {@code mitigations.<strategy>},
+     * {@code packets.<packet type>} and {@code gauges.<gauge>}, all in lower case. Counters that are still zero are
+     * left out, except for kicks and bans.
+     *
+     * @return an unmodifiable Map of the values, sorted by key
+     */
+    Map<String, Long> snapshot();
+}
@@ -1,14 +1,19 @@
 package de.feelix.sierraapi.user;
 
 import de.feelix.sierraapi.history.History;
+import de.feelix.sierraapi.history.HistoryQuery;
+import de.feelix.sierraapi.history.HistoryResult;
 import de.feelix.sierraapi.user.impl.SierraUser;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The UserRepository interface represents a repository for querying SierraUser objects based on different criteria.
+ * Queries for connected users are answered from an index in constant time, regardless of the amount of connected
+ * users. Queries of the history run in the background, see {@link #queryHistory(HistoryQuery)}.
  */
 @SuppressWarnings("unused")
 public interface UserRepository {
@@ -30,7 +35,7 @@ public interface UserRepository {
     Optional<SierraUser> queryUserByEntityId(int id);
 
     /**
-     * Queries the UserRepository for a SierraUser object based on the given name.
+     * Queries the UserRepository for a SierraUser object based on the given name, ignoring case.
      *
      * @param name the name used to query the user
      * @return an Optional containing the SierraUser object if found, or an empty Optional if not found
@@ -38,9 +43,24 @@ public interface UserRepository {
     Optional<SierraUser> queryUserByName(String name);
 
     /**
-     * Retrieves the local action history of a user.
+     * Retrieves the most recent entries of the local action history. The amount of entries kept in memory is
+     * configured in the sierra.yml, older entries are only stored on disk.
      *
-     * @return A List of History objects representing the user's action history. The list may be empty if no history is available.
+     * @return A List of History objects, oldest first. The list may be empty if no history is available.
+     * @see #queryHistory(HistoryQuery)
      */
     List<History> getLocalActionHistory();
+
+    /**
+     * Queries the whole stored history. The query runs on Sierra's history thread, which finds the matching entries
+     * with an index of the history and only reads the entries of the result, so polling a page of the history does
+     * not copy all of it. Filters on the mitigation strategy are checked per entry of the index, so their cost grows
+     * with the amount of entries they skip. The returned future is completed on that thread and should not block.
+     *
+     * @param query the filters, limit and cursor of the query
+     * @return a future of the result. If the cursor expired, the future completes exceptionally with an
+     * IllegalArgumentException, which {@link CompletableFuture#join()} and {@link CompletableFuture#get()} wrap in
+     * their own exception types.
+     */
+    CompletableFuture<HistoryResult> queryHistory(HistoryQuery query);
 }
@@ -8,12 +8,16 @@ import de.feelix.sierra.manager.init.InitManager;
 import de.feelix.sierra.manager.server.SierraServerManager;
 import de.feelix.sierra.manager.storage.AddressStorage;
 import de.feelix.sierra.manager.storage.SierraDataManager;
+import de.feelix.sierra.manager.storage.logger.SierraLogRepository;
+import de.feelix.sierra.manager.storage.metrics.SierraMetrics;
 import de.feelix.sierra.utilities.message.ConfigValue;
 import de.feelix.sierra.utilities.update.UpdateChecker;
 import de.feelix.sierraapi.LoaderAPI;
 import de.feelix.sierraapi.SierraApi;
 import de.feelix.sierraapi.SierraApiAccessor;
 import de.feelix.sierraapi.events.EventBus;
+import de.feelix.sierraapi.logs.LogRepository;
+import de.feelix.sierraapi.metrics.MetricsRepository;
 import de.feelix.sierraapi.server.SierraServer;
 import de.feelix.sierraapi.user.UserRepository;
 import io.github.retrooper.packetevents.util.viaversion.ViaVersionUtil;
@@ -97,6 +101,16 @@ public final class Sierra extends JavaPlugin implements SierraApi {
      */
     private final SierraServer sierraServer = new SierraServerManager();
 
+    /**
+     * The logRepository answers queries for the stored logs of players.
+     */
+    private final SierraLogRepository logRepository = new SierraLogRepository();
+
+    /**
+     * The sierraMetrics counts the kicks, bans, detections and mitigations of Sierra.
+     */
+    private final SierraMetrics sierraMetrics = new SierraMetrics();
+
     /**
      * The initManager variable is an instance of the InitManager class.
      * It is responsible for managing the initialization of various components in the Sierra plugin.
@@ -118,8 +132,8 @@ public final class Sierra extends JavaPlugin implements SierraApi {
     private final InitManager initManager = new InitManager();
 
     /**
-     * The AddressStorage class is responsible for storing and managing IP addresses
-     * along with their corresponding added time.
+     * The AddressStorage class is responsible for storing the IP addresses of punished players
+     * until their block expired.
      */
     private AddressStorage addressStorage = new AddressStorage();
 
@@ -211,4 +225,26 @@ public final class Sierra extends JavaPlugin implements SierraApi {
     public SierraServer server() {
         return sierraServer;
     }
+
+    /**
+     * Returns the LogRepository implementation used by the Sierra plugin.
+     *
+     * @return the LogRepository implementation
+     * @see LogRepository
+     */
+    @Override
+    public LogRepository logRepository() {
+        return logRepository;
+    }
+
+    /**
+     * Returns the MetricsRepository implementation used by the Sierra plugin.
+     *
+     * @return the MetricsRepository implementation
+     * @see MetricsRepository
+     */
+    @Override
+    public MetricsRepository metrics() {
+        return sierraMetrics;
+    }
 }
@@ -2,6 +2,12 @@ package de.feelix.sierra.check;
 
 import com.github.retrooper.packetevents.event.PacketReceiveEvent;
 import com.github.retrooper.packetevents.event.PacketSendEvent;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.item.ItemStack;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientClickWindow;
+import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientCreativeInventoryAction;
+import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientPlayerBlockPlacement;
 import de.feelix.sierra.check.impl.book.BookValidation;
 import de.feelix.sierra.check.impl.command.CommandValidation;
 import de.feelix.sierra.check.impl.creative.CreativeCrasher;
@@ -9,9 +15,11 @@ import de.feelix.sierra.check.impl.move.MovementValidation;
 import de.feelix.sierra.check.impl.post.PostCheck;
 import de.feelix.sierra.check.impl.protocol.ProtocolValidation;
 import de.feelix.sierra.check.impl.frequency.FrequencyDetection;
+import de.feelix.sierra.check.nbt.NBTInspector;
 import de.feelix.sierra.manager.packet.IngoingProcessor;
 import de.feelix.sierra.manager.packet.OutgoingProcessor;
 import de.feelix.sierra.manager.storage.PlayerData;
+import de.feelix.sierra.utilities.CastUtil;
 import de.feelix.sierraapi.check.impl.SierraCheck;
 import lombok.Getter;
 import de.feelix.sierraapi.check.CheckRepository;
@@ -25,8 +33,27 @@ import java.util.List;
 @Getter
 public class CheckManager implements CheckRepository {
 
-    private final List<SierraCheck> packetChecks = new ArrayList<>();
-    private final PlayerData        playerData;
+    private static final IngoingProcessor[]  NO_INGOING  = new IngoingProcessor[0];
+    private static final OutgoingProcessor[] NO_OUTGOING = new OutgoingProcessor[0];
+
+    private final List<SierraCheck>  packetChecks = new ArrayList<>();
+    private final PlayerData         playerData;
+    private final ProtocolValidation protocolValidation;
+
+    /**
+     * Walks the item of every item packet once for the item rules of all checks.
+     */
+    private final NBTInspector itemInspector = new NBTInspector();
+
+    /**
+     * Ingoing processors indexed by the ordinal of the client play packet type they subscribed to.
+     */
+    private final IngoingProcessor[][] ingoingDispatch;
+
+    /**
+     * Outgoing processors indexed by the ordinal of the server play packet type they subscribed to.
+     */
+    private final OutgoingProcessor[][] outgoingDispatch;
 
     // Todo: Create anti-bot mechanism in next update
 
@@ -34,27 +61,120 @@ public class CheckManager implements CheckRepository {
         this.playerData = playerData;
         packetChecks.add(new FrequencyDetection(playerData));
         packetChecks.add(new BookValidation(playerData));
-        packetChecks.add(new ProtocolValidation(playerData));
+        this.protocolValidation = new ProtocolValidation(playerData, itemInspector);
+        packetChecks.add(protocolValidation);
         packetChecks.add(new MovementValidation(playerData));
-        packetChecks.add(new CreativeCrasher(playerData));
+        packetChecks.add(new CreativeCrasher(playerData, itemInspector));
         packetChecks.add(new PostCheck(playerData));
         packetChecks.add(new CommandValidation(playerData));
+        this.ingoingDispatch = buildIngoingDispatch();
+        this.outgoingDispatch = buildOutgoingDispatch();
     }
 
     public void processAvailableChecksReceive(PacketReceiveEvent event) {
+        PacketTypeCommon packetType = event.getPacketType();
+        if (!(packetType instanceof PacketType.Play.Client)) return;
+
+        // Raw item NBT is validated before the first check decodes a wrapper that materializes it
+        if (protocolValidation.handleRawNbt(event)) return;
+
+        itemInspector.inspect(event, itemStackOf(event));
+
+        for (IngoingProcessor processor : ingoingDispatch[((PacketType.Play.Client) packetType).ordinal()]) {
+            processor.handle(event, playerData);
+        }
+    }
+
+    public void processAvailableChecksSend(PacketSendEvent event) {
+        PacketTypeCommon packetType = event.getPacketType();
+        if (!(packetType instanceof PacketType.Play.Server)) return;
+
+        for (OutgoingProcessor processor : outgoingDispatch[((PacketType.Play.Server) packetType).ordinal()]) {
+            processor.handle(event, playerData);
+        }
+    }
+
+    /**
+     * Retrieves the item carried by an item packet. The decoded wrapper stays on the event for the checks.
+     *
+     * @param event the PacketReceiveEvent to read
+     * @return the item of the packet, or null if the packet carries no item
+     */
+    private ItemStack itemStackOf(PacketReceiveEvent event) {
+        PacketTypeCommon packetType = event.getPacketType();
+        if (packetType == PacketType.Play.Client.CREATIVE_INVENTORY_ACTION) {
+            WrapperPlayClientCreativeInventoryAction wrapper = CastUtil.getWrapper(
+                event, WrapperPlayClientCreativeInventoryAction.class, WrapperPlayClientCreativeInventoryAction::new,
+                playerData::exceptionDisconnect);
+            return wrapper != null ? wrapper.getItemStack() : null;
+        } else if (packetType == PacketType.Play.Client.CLICK_WINDOW) {
+            WrapperPlayClientClickWindow wrapper = CastUtil.getWrapper(
+                event, WrapperPlayClientClickWindow.class, WrapperPlayClientClickWindow::new,
+                playerData::exceptionDisconnect);
+            return wrapper != null ? wrapper.getCarriedItemStack() : null;
+        } else if (packetType == PacketType.Play.Client.PLAYER_BLOCK_PLACEMENT) {
+            WrapperPlayClientPlayerBlockPlacement wrapper = CastUtil.getWrapper(
+                event, WrapperPlayClientPlayerBlockPlacement.class, WrapperPlayClientPlayerBlockPlacement::new,
+                playerData::exceptionDisconnect);
+            return wrapper != null ? wrapper.getItemStack().orElse(null) : null;
+        }
+        return null;
+    }
+
+    /**
+     * Builds the receive dispatch table from the packet types each check subscribed to. Checks keep the order in
+     * which they were registered.
+     *
+     * @return the processors for every client play packet type, indexed by ordinal
+     */
+    private IngoingProcessor[][] buildIngoingDispatch() {
+        List<List<IngoingProcessor>> table = new ArrayList<>();
+        for (int i = 0; i < PacketType.Play.Client.values().length; i++) {
+            table.add(new ArrayList<>());
+        }
+
         for (SierraCheck availableCheck : packetChecks) {
             if (availableCheck instanceof IngoingProcessor) {
-                ((IngoingProcessor) availableCheck).handle(event, playerData);
+                IngoingProcessor processor = (IngoingProcessor) availableCheck;
+                for (PacketType.Play.Client packetType : processor.ingoingPacketTypes()) {
+                    table.get(packetType.ordinal()).add(processor);
+                }
             }
         }
+
+        IngoingProcessor[][] dispatch = new IngoingProcessor[table.size()][];
+        for (int i = 0; i < dispatch.length; i++) {
+            dispatch[i] = table.get(i).isEmpty() ? NO_INGOING : table.get(i).toArray(NO_INGOING);
+        }
+        return dispatch;
     }
 
-    public void processAvailableChecksSend(PacketSendEvent event) {
+    /**
+     * Builds the send dispatch table from the packet types each check subscribed to. Checks keep the order in
+     * which they were registered.
+     *
+     * @return the processors for every server play packet type, indexed by ordinal
+     */
+    private OutgoingProcessor[][] buildOutgoingDispatch() {
+        List<List<OutgoingProcessor>> table = new ArrayList<>();
+        for (int i = 0; i < PacketType.Play.Server.values().length; i++) {
+            table.add(new ArrayList<>());
+        }
+
         for (SierraCheck availableCheck : packetChecks) {
             if (availableCheck instanceof OutgoingProcessor) {
-                ((OutgoingProcessor) availableCheck).handle(event, playerData);
+                OutgoingProcessor processor = (OutgoingProcessor) availableCheck;
+                for (PacketType.Play.Server packetType : processor.outgoingPacketTypes()) {
+                    table.get(packetType.ordinal()).add(processor);
+                }
             }
         }
+
+        OutgoingProcessor[][] dispatch = new OutgoingProcessor[table.size()][];
+        for (int i = 0; i < dispatch.length; i++) {
+            dispatch[i] = table.get(i).isEmpty() ? NO_OUTGOING : table.get(i).toArray(NO_OUTGOING);
+        }
+        return dispatch;
     }
 
     @Override
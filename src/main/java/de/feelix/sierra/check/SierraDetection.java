@@ -5,6 +5,7 @@ import com.github.retrooper.packetevents.protocol.player.User;
 import de.feelix.sierra.Sierra;
 import de.feelix.sierra.check.violation.ViolationDocument;
 import de.feelix.sierra.manager.config.SierraConfigEngine;
+import de.feelix.sierra.manager.config.SierraSettings;
 import de.feelix.sierra.manager.storage.PlayerData;
 import de.feelix.sierra.manager.storage.SierraDataManager;
 import de.feelix.sierra.manager.storage.logger.LogTag;
@@ -15,6 +16,7 @@ import de.feelix.sierraapi.check.impl.SierraCheck;
 import de.feelix.sierraapi.events.impl.AsyncUserDetectionEvent;
 import io.github.retrooper.packetevents.adventure.serializer.legacy.LegacyComponentSerializer;
 import io.github.retrooper.packetevents.util.folia.FoliaScheduler;
+import lombok.AccessLevel;
 import lombok.Getter;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.event.ClickEvent;
@@ -37,7 +39,18 @@ public class SierraDetection implements SierraCheck {
     private String friendlyName;
     private long lastDetectionTime = 0;
     private int checkId;
-    private int violations = 0;
+
+    /**
+     * The violations at the last update, they decay from there when read.
+     */
+    @Getter(AccessLevel.NONE)
+    private double violationLevel = 0;
+
+    /**
+     * The time of the last update of the violation level in milliseconds.
+     */
+    @Getter(AccessLevel.NONE)
+    private long violationUpdate = 0;
 
     /**
      * Initializes a new SierraDetection instance with the provided player data.
@@ -76,13 +89,15 @@ public class SierraDetection implements SierraCheck {
         playerData.cancelEvent(event);
         this.lastDetectionTime = System.currentTimeMillis();
 
-        playerData.getSierraLogger().log(LogTag.DETECTION, violationDocument.toString());
+        playerData.getSierraLogger().log(LogTag.DETECTION, checkId, violationDocument::toString);
 
         if (playerData.isReceivedPunishment()) return;
 
-        this.violations++;
+        addViolation();
         correctViolation(violationDocument);
         throwDetectionEvent(violationDocument);
+        Sierra.getPlugin().getSierraMetrics().recordDetection(
+            checkType(), violationDocument.getMitigationStrategy(), event.getPacketType());
 
         User user = event.getUser();
         logViolation(user, violationDocument);
@@ -114,7 +129,7 @@ public class SierraDetection implements SierraCheck {
     private void throwDetectionEvent(ViolationDocument violationDocument) {
         FoliaScheduler.getAsyncScheduler().runNow(Sierra.getPlugin(), o -> Sierra.getPlugin()
             .getEventBus()
-            .publish(new AsyncUserDetectionEvent(violationDocument, playerData, checkType(), this.violations))
+            .publish(new AsyncUserDetectionEvent(violationDocument, playerData, checkType(), violations()))
         );
     }
 
@@ -125,7 +140,7 @@ public class SierraDetection implements SierraCheck {
      * @param violationDocument The ViolationDocument containing information about the violation.
      */
     private void logViolation(User user, ViolationDocument violationDocument) {
-        if (!Sierra.getPlugin().getSierraConfigEngine().config().getBoolean("log-violation-to-console", true)
+        if (!settings().isLogViolationToConsole()
             || violationDocument.getMitigationStrategy() == MitigationStrategy.MITIGATE) {
             return;
         }
@@ -149,7 +164,7 @@ public class SierraDetection implements SierraCheck {
     }
 
     private String createGeneralCheck() {
-        return String.format("Check Information: %s/%d - VL: %d", this.friendlyName, this.checkId, this.violations);
+        return String.format("Check Information: %s/%d - VL: %d", this.friendlyName, this.checkId, (int) violations());
     }
 
     /**
@@ -192,7 +207,7 @@ public class SierraDetection implements SierraCheck {
             .replace("{mitigation}", mitigationStrategy.friendlyMessage())
             .replace("{description}", description)
             .replace("{checkname}", this.friendlyName)
-            .replace("{violations}", String.valueOf(violations)).message();
+            .replace("{violations}", String.valueOf((int) violations())).message();
     }
 
     private String formatAlertContent(User user, ViolationDocument violationDocument) {
@@ -232,7 +247,7 @@ public class SierraDetection implements SierraCheck {
         Sierra plugin = Sierra.getPlugin();
         SierraDataManager sierraDataManager = plugin.getSierraDataManager();
 
-        sierraDataManager.addKick(this.checkType());
+        plugin.getSierraMetrics().recordPunishment(this.checkType());
         sierraDataManager.createPunishmentHistory(playerData.username(), playerData.version(),
                                                   violationDocument.getMitigationStrategy(),
                                                   playerData.getPingProcessor().getPing(),
@@ -245,12 +260,10 @@ public class SierraDetection implements SierraCheck {
 
     private void blockAddressIfEnabled(ViolationDocument violation) {
         boolean punishmentSetting = Sierra.getPlugin().getPunishmentConfig().isBan();
-        boolean blockConnections = Sierra.getPlugin().getSierraConfigEngine().config()
-            .getBoolean("block-connections-after-ban", true);
+        boolean blockConnections = settings().isBlockConnectionsAfterBan();
 
         if (violation.getMitigationStrategy() == MitigationStrategy.BAN && punishmentSetting && blockConnections) {
-            Sierra.getPlugin().getAddressStorage()
-                .addIPAddress(this.playerData.getUser().getAddress().getAddress().getHostAddress());
+            Sierra.getPlugin().getAddressStorage().block(this.playerData.getUser().getAddress().getAddress());
         }
     }
 
@@ -263,9 +276,31 @@ public class SierraDetection implements SierraCheck {
         return Sierra.getPlugin().getSierraConfigEngine();
     }
 
+    /**
+     * Retrieves the compiled settings snapshot of the Sierra plugin.
+     *
+     * @return The current SierraSettings instance.
+     */
+    public SierraSettings settings() {
+        return configEngine().settings();
+    }
+
+    /**
+     * Adds a violation to the decayed violation level.
+     */
+    private void addViolation() {
+        long now = System.currentTimeMillis();
+        this.violationLevel = decayedViolations(now) + 1;
+        this.violationUpdate = now;
+    }
+
+    private double decayedViolations(long now) {
+        return settings().violationDecay(rawCheckType).apply(violationLevel, violationUpdate, now);
+    }
+
     @Override
     public double violations() {
-        return this.violations;
+        return decayedViolations(System.currentTimeMillis());
     }
 
     @Override
@@ -275,7 +310,8 @@ public class SierraDetection implements SierraCheck {
 
     @Override
     public void setViolations(double violations) {
-        this.violations = (int) violations;
+        this.violationLevel = violations;
+        this.violationUpdate = System.currentTimeMillis();
     }
 
     @Override
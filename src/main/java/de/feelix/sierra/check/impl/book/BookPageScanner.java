@@ -0,0 +1,206 @@
+package de.feelix.sierra.check.impl.book;
+
+import lombok.Getter;
+
+/**
+ * The BookPageScanner class computes every metric the book validation needs from a page in a single pass over its
+ * characters, without copying, splitting or encoding the page. The metrics of the last scanned page are kept in
+ * fields, so an instance is meant to be owned by a single player connection.
+ */
+@Getter
+class BookPageScanner {
+
+    private static final String EXTRA     = "extra";
+    private static final String TRANSLATE = "{\"translate\"";
+    private static final String NULL      = "null";
+
+    /**
+     * The length of the page in UTF-8 bytes, like {@code page.getBytes(StandardCharsets.UTF_8).length}.
+     */
+    private int utf8Length;
+
+    /**
+     * The amount of characters above the ASCII range.
+     */
+    private int multiByteChars;
+
+    /**
+     * The amount of characters that encode to more than one byte on their own, lone surrogates excluded.
+     */
+    private int oversizedChars;
+
+    /**
+     * The length of the page without plus signs and color codes.
+     */
+    private int strippedLength;
+
+    /**
+     * Whether the page without plus signs and color codes is the literal {@code null}.
+     */
+    private boolean strippedNull;
+
+    /**
+     * The longest run of the same character.
+     */
+    private int longestRun;
+
+    /**
+     * The amount of ISO control characters.
+     */
+    private int controlChars;
+
+    /**
+     * The length of the array {@code page.split("extra")} would return.
+     */
+    private int extraSegments;
+
+    /**
+     * Whether the page starts with a translate component, ignoring spaces.
+     */
+    private boolean translateComponent;
+
+    /**
+     * Scans the given page and updates all metrics.
+     *
+     * @param page the content of the page
+     */
+    void scan(String page) {
+        int length = page.length();
+
+        utf8Length = 0;
+        multiByteChars = 0;
+        oversizedChars = 0;
+        strippedLength = 0;
+        longestRun = length == 0 ? 0 : 1;
+        controlChars = 0;
+        translateComponent = false;
+
+        int nullPrefix = 0;
+        boolean pendingSection = false;
+
+        int run = 0;
+        char previous = 0;
+
+        int translateProgress = 0;
+        boolean translateFailed = false;
+
+        int extraProgress = 0;
+        int extraCount = 0;
+        int lastExtraEnd = -1;
+        int extraRun = 0;
+        boolean extraRunFromStart = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = page.charAt(i);
+
+            // Encoded length and multibyte characters
+            if (c < 0x80) {
+                utf8Length++;
+            } else {
+                multiByteChars++;
+                if (c < 0x800) {
+                    utf8Length += 2;
+                    oversizedChars++;
+                } else if (Character.isHighSurrogate(c)) {
+                    // A pair encodes to four bytes, an unpaired surrogate is replaced by a single question mark
+                    boolean paired = i + 1 < length && Character.isLowSurrogate(page.charAt(i + 1));
+                    utf8Length += paired ? 4 : 1;
+                } else if (Character.isLowSurrogate(c)) {
+                    boolean paired = i > 0 && Character.isHighSurrogate(page.charAt(i - 1));
+                    utf8Length += paired ? 0 : 1;
+                } else {
+                    utf8Length += 3;
+                    oversizedChars++;
+                }
+            }
+
+            if (Character.isISOControl(c)) {
+                controlChars++;
+            }
+
+            // Runs of the same character
+            if (i > 0 && c == previous) {
+                if (++run > longestRun) longestRun = run;
+            } else {
+                run = 1;
+                previous = c;
+            }
+
+            // Length without plus signs and color codes, like stripping the color of the page without plus signs
+            if (c != '+') {
+                if (pendingSection) {
+                    if (isColorCode(c)) {
+                        pendingSection = false;
+                    } else if (c == '§') {
+                        nullPrefix = keep('§', nullPrefix);
+                    } else {
+                        nullPrefix = keep('§', nullPrefix);
+                        nullPrefix = keep(c, nullPrefix);
+                        pendingSection = false;
+                    }
+                } else if (c == '§') {
+                    pendingSection = true;
+                } else {
+                    nullPrefix = keep(c, nullPrefix);
+                }
+            }
+
+            // Translate component prefix, ignoring spaces
+            if (!translateFailed && !translateComponent && c != ' ') {
+                if (c == TRANSLATE.charAt(translateProgress)) {
+                    translateComponent = ++translateProgress == TRANSLATE.length();
+                } else {
+                    translateFailed = true;
+                }
+            }
+
+            // Occurrences of extra, which cannot overlap itself
+            if (c == EXTRA.charAt(extraProgress)) {
+                if (++extraProgress == EXTRA.length()) {
+                    int start = i + 1 - EXTRA.length();
+                    if (extraCount > 0 && start == lastExtraEnd) {
+                        extraRun++;
+                    } else {
+                        extraRun = 1;
+                        extraRunFromStart = start == 0;
+                    }
+                    extraCount++;
+                    lastExtraEnd = i + 1;
+                    extraProgress = 0;
+                }
+            } else {
+                extraProgress = c == EXTRA.charAt(0) ? 1 : 0;
+            }
+        }
+
+        if (pendingSection) {
+            nullPrefix = keep('§', nullPrefix);
+        }
+        strippedNull = strippedLength == NULL.length() && nullPrefix == NULL.length();
+
+        // Split removes trailing empty strings, including a leading one if all segments are empty
+        int trailingEmpty = 0;
+        if (extraCount > 0 && lastExtraEnd == length) {
+            trailingEmpty = extraRun + (extraRunFromStart ? 1 : 0);
+        }
+        extraSegments = length == 0 ? 1 : extraCount + 1 - trailingEmpty;
+    }
+
+    /**
+     * Counts a character that remains after stripping and tracks whether the stripped page starts with null.
+     */
+    private int keep(char c, int nullPrefix) {
+        int index = strippedLength++;
+        if (nullPrefix == index && index < NULL.length() && c == NULL.charAt(index)) {
+            return nullPrefix + 1;
+        }
+        return nullPrefix;
+    }
+
+    private static boolean isColorCode(char c) {
+        return (c >= '0' && c <= '9')
+               || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')
+               || (c >= 'k' && c <= 'o') || (c >= 'K' && c <= 'O')
+               || c == 'r' || c == 'R' || c == 'x' || c == 'X';
+    }
+}
@@ -20,35 +20,48 @@ import de.feelix.sierra.check.violation.ViolationDocument;
 import de.feelix.sierra.manager.packet.IngoingProcessor;
 import de.feelix.sierra.manager.storage.PlayerData;
 import de.feelix.sierra.utilities.CastUtil;
-import de.feelix.sierra.utilities.FieldReader;
-import de.feelix.sierra.utilities.FormatUtils;
 import de.feelix.sierra.utilities.Triple;
 import de.feelix.sierraapi.annotation.Nullable;
 import de.feelix.sierraapi.check.SierraCheckData;
 import de.feelix.sierraapi.check.CheckType;
 import de.feelix.sierraapi.violation.MitigationStrategy;
 
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @SierraCheckData(checkType = CheckType.BOOK_VALIDATION)
 public class BookValidation extends SierraDetection implements IngoingProcessor {
 
+    private static final Set<PacketType.Play.Client> INGOING_TYPES = EnumSet.of(
+        PacketType.Play.Client.EDIT_BOOK,
+        PacketType.Play.Client.PLUGIN_MESSAGE,
+        PacketType.Play.Client.PLAYER_BLOCK_PLACEMENT,
+        PacketType.Play.Client.CREATIVE_INVENTORY_ACTION,
+        PacketType.Play.Client.CLICK_WINDOW
+    );
+
     private String lastContent = "";
     private int lastContentCount = 0;
-    private static final String[] MOJANG_CRASH_TRANSLATIONS = {"translation.test.invalid", "translation.test.invalid2"};
+    private static final String[] MOJANG_CRASH_TRANSLATIONS = {
+        "{\"translate\":\"translation.test.invalid\"}", "{\"translate\":\"translation.test.invalid2\"}"
+    };
+    private final BookPageScanner pageScanner = new BookPageScanner();
 
     public BookValidation(PlayerData playerData) {
         super(playerData);
     }
 
+    @Override
+    public Set<PacketType.Play.Client> ingoingPacketTypes() {
+        return INGOING_TYPES;
+    }
+
     @Override
     public void handle(PacketReceiveEvent event, PlayerData data) {
-        if (!configEngine().config().getBoolean("prevent-book-crasher", true)) {
+        if (!settings().isPreventBookCrasher()) {
             return;
         }
 
-        boolean blockBooks = configEngine().config().getBoolean("disable-books-completely", false);
+        boolean blockBooks = settings().isDisableBooksCompletely();
         List<String> pageList = new ArrayList<>();
 
         PacketTypeCommon packetType = event.getPacketType();
@@ -85,14 +98,16 @@ public class BookValidation extends SierraDetection implements IngoingProcessor
             return;
         }
 
-        pageList.addAll(CastUtil.getSupplier(
-            () -> new WrapperPlayClientEditBook(event), data::exceptionDisconnect).getPages());
+        pageList.addAll(CastUtil.getWrapper(
+            event, WrapperPlayClientEditBook.class, WrapperPlayClientEditBook::new,
+            data::exceptionDisconnect).getPages());
     }
 
     private void handlePluginMessage(PacketReceiveEvent event, PlayerData data, boolean blockBooks,
                                      List<String> pageList) {
-        WrapperPlayClientPluginMessage wrapper = CastUtil.getSupplier(
-            () -> new WrapperPlayClientPluginMessage(event), data::exceptionDisconnect);
+        WrapperPlayClientPluginMessage wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientPluginMessage.class, WrapperPlayClientPluginMessage::new,
+            data::exceptionDisconnect);
 
         if (wrapper.getChannelName().contains("MC|BEdit") || wrapper.getChannelName().contains("MC|BSign")) {
             processPluginMessage(event, blockBooks, pageList, wrapper);
@@ -125,8 +140,9 @@ public class BookValidation extends SierraDetection implements IngoingProcessor
 
     private void handleBlockPlacement(PacketReceiveEvent event, PlayerData data, boolean blockBooks,
                                       List<String> pageList) {
-        WrapperPlayClientPlayerBlockPlacement wrapper = CastUtil.getSupplier(
-            () -> new WrapperPlayClientPlayerBlockPlacement(event), data::exceptionDisconnect);
+        WrapperPlayClientPlayerBlockPlacement wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientPlayerBlockPlacement.class, WrapperPlayClientPlayerBlockPlacement::new,
+            data::exceptionDisconnect);
 
         if (wrapper.getItemStack().isPresent()) {
             ItemStack itemStack = wrapper.getItemStack().get();
@@ -148,8 +164,9 @@ public class BookValidation extends SierraDetection implements IngoingProcessor
             return;
         }
 
-        WrapperPlayClientCreativeInventoryAction wrapper = CastUtil.getSupplier(
-            () -> new WrapperPlayClientCreativeInventoryAction(event), data::exceptionDisconnect);
+        WrapperPlayClientCreativeInventoryAction wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientCreativeInventoryAction.class, WrapperPlayClientCreativeInventoryAction::new,
+            data::exceptionDisconnect);
 
         int slot = wrapper.getSlot();
 
@@ -197,8 +214,8 @@ public class BookValidation extends SierraDetection implements IngoingProcessor
 
     private void handleClickWindow(PacketReceiveEvent event, PlayerData data, boolean blockBooks,
                                    List<String> pageList) {
-        WrapperPlayClientClickWindow wrapper = CastUtil.getSupplier(
-            () -> new WrapperPlayClientClickWindow(event), data::exceptionDisconnect);
+        WrapperPlayClientClickWindow wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientClickWindow.class, WrapperPlayClientClickWindow::new, data::exceptionDisconnect);
 
         if (wrapper == null) return;
 
@@ -252,31 +269,31 @@ public class BookValidation extends SierraDetection implements IngoingProcessor
             Triple<String, MitigationStrategy, List<Debug<?>>> duplicatedContent = isDuplicatedContent(pageContent);
             if (duplicatedContent != null) return duplicatedContent;
 
-            String strippedContent = FormatUtils.stripColor(pageContent.replaceAll("\\+", ""));
-            if (strippedContent == null || strippedContent.equals("null")) {
+            pageScanner.scan(pageContent);
+
+            if (pageScanner.isStrippedNull()) {
                 return new Triple<>(
                     "interacted with an invalid item", MitigationStrategy.KICK,
                     Collections.singletonList(new Debug<>("Tag", "Color Strip"))
                 );
             }
 
-            Triple<String, MitigationStrategy, List<Debug<?>>> invalidColor = isInvalidColor(strippedContent);
+            Triple<String, MitigationStrategy, List<Debug<?>>> invalidColor = isInvalidColor(pageScanner);
             if (invalidColor != null) return invalidColor;
 
-            Triple<String, MitigationStrategy, List<Debug<?>>> extraFrequency = isExtraFrequency(pageContent);
+            Triple<String, MitigationStrategy, List<Debug<?>>> extraFrequency = isExtraFrequency(pageScanner);
             if (extraFrequency != null) return extraFrequency;
 
-            Triple<String, MitigationStrategy, List<Debug<?>>> characterSpam = isCharacterSpam(pageContent);
+            Triple<String, MitigationStrategy, List<Debug<?>>> characterSpam = isCharacterSpam(pageScanner);
             if (characterSpam != null) return characterSpam;
 
-            Triple<String, MitigationStrategy, List<Debug<?>>> fieldIsReadable = checkFieldReadable(pageContent);
+            Triple<String, MitigationStrategy, List<Debug<?>>> fieldIsReadable = checkFieldReadable(
+                pageContent, pageScanner);
             if (fieldIsReadable != null) return fieldIsReadable;
 
-            String noSpaces = pageContent.replace(" ", "");
-            if (noSpaces.startsWith("{\"translate\"")) {
+            if (pageScanner.isTranslateComponent()) {
                 for (String crashTranslation : MOJANG_CRASH_TRANSLATIONS) {
-                    String translationJson = String.format("{\"translate\":\"%s\"}", crashTranslation);
-                    if (pageContent.equalsIgnoreCase(translationJson)) {
+                    if (pageContent.equalsIgnoreCase(crashTranslation)) {
                         return new Triple<>(
                             "interacted with an invalid item", MitigationStrategy.KICK,
                             Collections.singletonList(new Debug<>("Tag", "Mojang crash translations"))
@@ -286,24 +303,16 @@ public class BookValidation extends SierraDetection implements IngoingProcessor
                 continue;
             }
 
-            Triple<String, MitigationStrategy, List<Debug<?>>> invalidChars = tooManyInvalidChars(pageContent);
+            Triple<String, MitigationStrategy, List<Debug<?>>> invalidChars = tooManyInvalidChars(pageScanner);
             if (invalidChars != null) return invalidChars;
 
-            int contentLength = pageContent.getBytes(
-                StandardCharsets.UTF_8).length;
+            int contentLength = pageScanner.getUtf8Length();
             Triple<String, MitigationStrategy, List<Debug<?>>> invalidPageSize = isInvalidPageSize(contentLength);
             if (invalidPageSize != null) return invalidPageSize;
 
             totalBytes += contentLength;
             int length = pageContent.length();
-            int multiBytes = 0;
-            if (contentLength != length) {
-                for (char c : pageContent.toCharArray()) {
-                    if (c > 127) {
-                        multiBytes++;
-                    }
-                }
-            }
+            int multiBytes = contentLength != length ? pageScanner.getMultiByteChars() : 0;
 
             allowedBytes += (long) ((2560 * Math.min(1, Math.max(0.1D, (double) length / 255D))) * 0.98);
 
@@ -333,28 +342,20 @@ public class BookValidation extends SierraDetection implements IngoingProcessor
     }
 
     private static @Nullable Triple<String, MitigationStrategy, List<Debug<?>>> tooManyInvalidChars(
-        String pageContent) {
-        int oversizedChars = 0;
-        for (int charIndex = 0; charIndex < pageContent.length(); charIndex++) {
-            char currentChar = pageContent.charAt(charIndex);
-            if (String.valueOf(currentChar).getBytes().length > 1) {
-                oversizedChars++;
-                if (oversizedChars > 15) {
-                    return new Triple<>(
-                        "interacted with an invalid item", MitigationStrategy.KICK,
-                        Collections.singletonList(new Debug<>("Tag", "Big characters"))
-                    );
-                }
-            }
+        BookPageScanner page) {
+        if (page.getOversizedChars() > 15) {
+            return new Triple<>(
+                "interacted with an invalid item", MitigationStrategy.KICK,
+                Collections.singletonList(new Debug<>("Tag", "Big characters"))
+            );
         }
         return null;
     }
 
-    private static @Nullable Triple<String, MitigationStrategy, List<Debug<?>>> checkFieldReadable(String pageContent) {
-        if (FieldReader.isReadable(pageContent) && !pageContent.isEmpty() && !Sierra.getPlugin()
-            .getSierraConfigEngine()
-            .config()
-            .getBoolean("skip-book-readable-check", false)) {
+    private static @Nullable Triple<String, MitigationStrategy, List<Debug<?>>> checkFieldReadable(
+        String pageContent, BookPageScanner page) {
+        if (page.getControlChars() > 0 && !pageContent.isEmpty()
+            && !Sierra.getPlugin().getSierraConfigEngine().settings().isSkipBookReadableCheck()) {
             return new Triple<>(
                 "interacted with an invalid item", MitigationStrategy.MITIGATE,
                 Collections.singletonList(new Debug<>("Tag", "Not readable"))
@@ -363,8 +364,8 @@ public class BookValidation extends SierraDetection implements IngoingProcessor
         return null;
     }
 
-    private static @Nullable Triple<String, MitigationStrategy, List<Debug<?>>> isExtraFrequency(String pageContent) {
-        if (pageContent.split("extra").length > 8.0) {
+    private static @Nullable Triple<String, MitigationStrategy, List<Debug<?>>> isExtraFrequency(BookPageScanner page) {
+        if (page.getExtraSegments() > 8.0) {
             return new Triple<>(
                 "interacted with an invalid item", MitigationStrategy.KICK,
                 Collections.singletonList(new Debug<>("Tag", "Extra frequency"))
@@ -373,9 +374,9 @@ public class BookValidation extends SierraDetection implements IngoingProcessor
         return null;
     }
 
-    private static @Nullable Triple<String, MitigationStrategy, List<Debug<?>>> isCharacterSpam(String pageContent) {
+    private static @Nullable Triple<String, MitigationStrategy, List<Debug<?>>> isCharacterSpam(BookPageScanner page) {
 
-        if (FormatUtils.detectCharacterSpam(pageContent, 10)) {
+        if (page.getLongestRun() > 10) {
             return new Triple<>(
                 "interacted with a invalid item", MitigationStrategy.MITIGATE,
                 Arrays.asList(
@@ -387,8 +388,8 @@ public class BookValidation extends SierraDetection implements IngoingProcessor
         return null;
     }
 
-    private static @Nullable Triple<String, MitigationStrategy, List<Debug<?>>> isInvalidColor(String strippedContent) {
-        if (strippedContent.length() > 256.0) {
+    private static @Nullable Triple<String, MitigationStrategy, List<Debug<?>>> isInvalidColor(BookPageScanner page) {
+        if (page.getStrippedLength() > 256.0) {
             return new Triple<>(
                 "interacted with an invalid item", MitigationStrategy.KICK,
                 Collections.singletonList(new Debug<>("Tag", "Color Code"))
@@ -18,17 +18,27 @@ import de.feelix.sierraapi.violation.MitigationStrategy;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @SierraCheckData(checkType = CheckType.COMMAND_VALIDATION)
 public class CommandValidation extends SierraDetection implements IngoingProcessor {
 
+    private static final Set<PacketType.Play.Client> INGOING_TYPES = EnumSet.of(
+        PacketType.Play.Client.UPDATE_COMMAND_BLOCK,
+        PacketType.Play.Client.CHAT_MESSAGE,
+        PacketType.Play.Client.NAME_ITEM,
+        PacketType.Play.Client.CHAT_COMMAND
+    );
+
     private static final Pattern PLUGIN_EXCLUSION  = Pattern.compile("/(\\S+:)");
     private static final Pattern EXPLOIT_PATTERN   = Pattern.compile("\\$\\{.+}");
     public static final  Pattern WORLDEDIT_PATTERN = Pattern.compile("for\\(.*?\\)\\{.*?}");
     private static final Pattern MVC_PATTERN       = Pattern.compile("/mv \\((\\w\\?\\{\\d+})\\)%");
     private static final Pattern EXPLOIT_PATTERN2  = Pattern.compile("\\$\\{.*}");
+    private static final Pattern WHITESPACE        = Pattern.compile("\\s+");
 
     private double count                = 0;
     private String lastCommand          = "";
@@ -40,42 +50,48 @@ public class CommandValidation extends SierraDetection implements IngoingProcess
         super(playerData);
     }
 
+    @Override
+    public Set<PacketType.Play.Client> ingoingPacketTypes() {
+        return INGOING_TYPES;
+    }
+
     @Override
     public void handle(PacketReceiveEvent event, PlayerData playerData) {
-        if (!configEngine().config().getBoolean("block-disallowed-commands", true)) {
+        if (!settings().isBlockDisallowedCommands()) {
             return;
         }
 
         PacketTypeCommon packetType = event.getPacketType();
         if (packetType.equals(PacketType.Play.Client.UPDATE_COMMAND_BLOCK)) {
 
-            WrapperPlayClientUpdateCommandBlock commandBlockWrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientUpdateCommandBlock(event), playerData::exceptionDisconnect);
+            WrapperPlayClientUpdateCommandBlock commandBlockWrapper = CastUtil.getWrapper(
+                event, WrapperPlayClientUpdateCommandBlock.class, WrapperPlayClientUpdateCommandBlock::new,
+                playerData::exceptionDisconnect);
 
-            checkDisallowedCommand(event, commandBlockWrapper.getCommand().toLowerCase().replaceAll("\\s+",
-                                                                                                    " "));
+            String command = normalize(commandBlockWrapper.getCommand());
+            checkDisallowedCommand(event, command, containsDisallowedCommand(command));
 
         } else if (packetType.equals(PacketType.Play.Client.CHAT_MESSAGE)) {
 
-            WrapperPlayClientChatMessage chatMessageWrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientChatMessage(event), playerData::exceptionDisconnect);
+            WrapperPlayClientChatMessage chatMessageWrapper = CastUtil.getWrapper(
+                event, WrapperPlayClientChatMessage.class, WrapperPlayClientChatMessage::new,
+                playerData::exceptionDisconnect);
 
-            handleChatMessage(event, chatMessageWrapper.getMessage().toLowerCase().replaceAll("\\s+",
-                                                                                              " "));
+            handleChatMessage(event, normalize(chatMessageWrapper.getMessage()));
         } else if (packetType.equals(PacketType.Play.Client.NAME_ITEM)) {
 
-            WrapperPlayClientNameItem nameItemWrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientNameItem(event), playerData::exceptionDisconnect);
+            WrapperPlayClientNameItem nameItemWrapper = CastUtil.getWrapper(
+                event, WrapperPlayClientNameItem.class, WrapperPlayClientNameItem::new,
+                playerData::exceptionDisconnect);
 
-            checkForLog4J(event, nameItemWrapper.getItemName().toLowerCase().replaceAll("\\s+",
-                                                                                        " "));
+            checkForLog4J(event, normalize(nameItemWrapper.getItemName()));
         } else if (packetType.equals(PacketType.Play.Client.CHAT_COMMAND)) {
 
-            WrapperPlayClientChatCommand chatCommandWrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientChatCommand(event), playerData::exceptionDisconnect);
+            WrapperPlayClientChatCommand chatCommandWrapper = CastUtil.getWrapper(
+                event, WrapperPlayClientChatCommand.class, WrapperPlayClientChatCommand::new,
+                playerData::exceptionDisconnect);
 
-            handleChatMessage(event, chatCommandWrapper.getCommand().toLowerCase().replaceAll("\\s+",
-                                                                                              " "));
+            handleChatMessage(event, normalize(chatCommandWrapper.getCommand()));
         }
     }
 
@@ -89,8 +105,9 @@ public class CommandValidation extends SierraDetection implements IngoingProcess
                 .build());
         }
 
-        checkForDoubleCommands(event, message);
-        checkDisallowedCommand(event, message);
+        boolean disallowed = containsDisallowedCommand(message);
+        checkForDoubleCommands(event, message, disallowed);
+        checkDisallowedCommand(event, message, disallowed);
         checkForLog4J(event, message);
         checkForPluginExploits(event, message);
     }
@@ -145,20 +162,13 @@ public class CommandValidation extends SierraDetection implements IngoingProcess
         return count;
     }
 
-    private void checkDisallowedCommand(PacketReceiveEvent event, String commandLine) {
-        for (String disallowedCommand : Sierra.getPlugin()
-            .getSierraConfigEngine()
-            .config()
-            .getStringList("disallowed-commands")) {
-            if (commandLine.contains(disallowedCommand)) {
-                if (playerHasNoPermission()) {
-                    this.dispatch(event, ViolationDocument.builder()
-                        .description("is using an invalid command")
-                        .mitigationStrategy(MitigationStrategy.MITIGATE)
-                        .debugs(Collections.singletonList(new Debug<>("Command", commandLine)))
-                        .build());
-                }
-            }
+    private void checkDisallowedCommand(PacketReceiveEvent event, String commandLine, boolean disallowed) {
+        if (disallowed && playerHasNoPermission()) {
+            this.dispatch(event, ViolationDocument.builder()
+                .description("is using an invalid command")
+                .mitigationStrategy(MitigationStrategy.MITIGATE)
+                .debugs(Collections.singletonList(new Debug<>("Command", commandLine)))
+                .build());
         }
 
         if (WORLDEDIT_PATTERN.matcher(commandLine).find()) {
@@ -196,30 +206,25 @@ public class CommandValidation extends SierraDetection implements IngoingProcess
         }
     }
 
-    private void checkForDoubleCommands(PacketReceiveEvent event, String message) {
-        for (String disallowedCommand : Sierra.getPlugin()
-            .getSierraConfigEngine()
-            .config()
-            .getStringList("disallowed-commands")) {
-            if (message.contains(disallowedCommand)) {
-                if (playerHasNoPermission()) {
-                    this.dispatch(event, ViolationDocument.builder()
-                        .description("is using an invalid command")
-                        .mitigationStrategy(MitigationStrategy.MITIGATE)
-                        .debugs(Collections.singletonList(new Debug<>("Command", message)))
-                        .build());
-                }
-            }
-            String pluginCommand = replaceGroup(PLUGIN_EXCLUSION.pattern(), message);
-            if (pluginCommand.contains(disallowedCommand)) {
-                if (playerHasNoPermission()) {
-                    this.dispatch(event, ViolationDocument.builder()
-                        .description("is using an invalid command")
-                        .mitigationStrategy(MitigationStrategy.MITIGATE)
-                        .debugs(Collections.singletonList(new Debug<>("Command", pluginCommand)))
-                        .build());
-                }
-            }
+    private void checkForDoubleCommands(PacketReceiveEvent event, String message, boolean disallowed) {
+        if (disallowed && playerHasNoPermission()) {
+            this.dispatch(event, ViolationDocument.builder()
+                .description("is using an invalid command")
+                .mitigationStrategy(MitigationStrategy.MITIGATE)
+                .debugs(Collections.singletonList(new Debug<>("Command", message)))
+                .build());
+        }
+
+        String pluginCommand = replaceGroup(PLUGIN_EXCLUSION, message);
+        boolean pluginDisallowed = pluginCommand.equals(message)
+                                   ? disallowed
+                                   : containsDisallowedCommand(pluginCommand);
+        if (pluginDisallowed && playerHasNoPermission()) {
+            this.dispatch(event, ViolationDocument.builder()
+                .description("is using an invalid command")
+                .mitigationStrategy(MitigationStrategy.MITIGATE)
+                .debugs(Collections.singletonList(new Debug<>("Command", pluginCommand)))
+                .build());
         }
 
         if (lastCommand.equalsIgnoreCase(message)) {
@@ -245,20 +250,33 @@ public class CommandValidation extends SierraDetection implements IngoingProcess
      * @return true if the player does not have the necessary permission, false otherwise
      * @see Sierra#getPlugin()
      * @see Sierra#getSierraConfigEngine()
-     * @see SierraConfigEngine#config()
+     * @see SierraConfigEngine#settings()
      * @see PlayerData#hasBypassPermission()
      */
     private boolean playerHasNoPermission() {
-        return !configEngine().config()
-            .getBoolean("enable-bypass-permission", false) || !playerData.hasBypassPermission();
+        return !settings().isEnableBypassPermission() || !playerData.hasBypassPermission();
     }
 
     private boolean isInvalidMultiverseCommand(String testString) {
         return testString.contains("mvh") && testString.contains(".+.+.+.+") && testString.endsWith(")%");
     }
 
-    private String replaceGroup(String regex, String source) {
-        Matcher m = Pattern.compile(regex).matcher(source);
+    /**
+     * Checks whether the given normalized command contains any of the disallowed commands.
+     *
+     * @param command the normalized command
+     * @return true if a disallowed command occurs in the command, false otherwise
+     */
+    private boolean containsDisallowedCommand(String command) {
+        return settings().getDisallowedCommandMatcher().containsAny(command);
+    }
+
+    private static String normalize(String input) {
+        return WHITESPACE.matcher(input.toLowerCase()).replaceAll(" ");
+    }
+
+    private String replaceGroup(Pattern pattern, String source) {
+        Matcher m = pattern.matcher(source);
         if (!m.find()) return source;
         return new StringBuilder(source).replace(m.start(1), m.end(1), "").toString();
     }
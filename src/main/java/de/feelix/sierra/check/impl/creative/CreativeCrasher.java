@@ -1,50 +1,48 @@
 package de.feelix.sierra.check.impl.creative;
 
-import com.github.retrooper.packetevents.event.PacketReceiveEvent;
-import com.github.retrooper.packetevents.protocol.item.ItemStack;
-import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
+import com.github.retrooper.packetevents.protocol.nbt.NBT;
 import com.github.retrooper.packetevents.protocol.nbt.NBTList;
 import com.github.retrooper.packetevents.protocol.packettype.PacketType;
-import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
 import com.github.retrooper.packetevents.protocol.player.GameMode;
-import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientClickWindow;
-import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientCreativeInventoryAction;
-import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientPlayerBlockPlacement;
 import de.feelix.sierra.check.SierraDetection;
 import de.feelix.sierra.check.impl.creative.impl.*;
+import de.feelix.sierra.check.nbt.NBTInspection;
+import de.feelix.sierra.check.nbt.NBTInspector;
+import de.feelix.sierra.check.nbt.NBTRuleSet;
 import de.feelix.sierra.check.violation.Debug;
 import de.feelix.sierra.check.violation.ViolationDocument;
-import de.feelix.sierra.manager.packet.IngoingProcessor;
 import de.feelix.sierra.manager.storage.PlayerData;
-import de.feelix.sierra.utilities.CastUtil;
-import de.feelix.sierra.utilities.Triple;
 import de.feelix.sierraapi.check.SierraCheckData;
 import de.feelix.sierraapi.check.CheckType;
 import de.feelix.sierraapi.violation.MitigationStrategy;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 @SierraCheckData(checkType = CheckType.CREATIVE)
-public class CreativeCrasher extends SierraDetection implements IngoingProcessor {
-
-    private static final int    MAX_RECURSIONS       = 30;
-    private static final String ITEMS_KEY            = "Items";
-    private static final String TAG_KEY              = "tag";
-    private static final String BLOCK_ENTITY_TAG_KEY = "BlockEntityTag";
-    private static final int    MAX_ITEMS            = 54;
-
-    private final List<ItemCheck> checks         = new ArrayList<>();
-    private       int             recursionCount = 0;
-
-    public CreativeCrasher(PlayerData playerData) {
+public class CreativeCrasher extends SierraDetection {
+
+    private static final int MAX_ITEMS = 54;
+
+    /**
+     * Registers the item rules in the shared inspector of the player, which calls them while it walks the items of
+     * the packets the player sends.
+     *
+     * @param playerData    the player the check belongs to
+     * @param itemInspector the item inspector of the player
+     */
+    public CreativeCrasher(PlayerData playerData, NBTInspector itemInspector) {
         super(playerData);
-        initializeChecks();
+        initializeChecks(itemInspector.ruleSet(this::isInspected, this::report, true));
     }
 
-    private void initializeChecks() {
+    private void initializeChecks(NBTRuleSet rules) {
+        rules.onPath("BlockEntityTag.Items", this::checkItemCount);
+        rules.onItemEnd(this::checkContainerDepth);
+
         addCreativeChecks(
+            rules,
             new CreativeMap(),
             new CreativeClientBookCrash(),
             new PotionLimit(),
@@ -54,137 +52,63 @@ public class CreativeCrasher extends SierraDetection implements IngoingProcessor
             new InvalidPlainNbt()
         );
 
-        if (configEngine().config().getInt("max-enchantment-level", 5) != -1) {
-            addCreativeChecks(new EnchantLimit());
+        if (settings().getMaxEnchantmentLevel() != -1) {
+            addCreativeChecks(rules, new EnchantLimit());
         }
 
-        addCreativeChecks(new CreativeSkull());
+        addCreativeChecks(rules, new CreativeSkull());
     }
 
-    @Override
-    public void handle(PacketReceiveEvent event, PlayerData playerData) {
-        if (!configEngine().config().getBoolean("prevent-creative-crasher", true)
-            || playerData == null) {
-            return;
-        }
-
-        ItemStack itemStack = getItemStackFromEvent(event, playerData);
-        if (itemStack == null) return;
+    /**
+     * Decides whether the rules of this check inspect an item. Items of creative inventory actions are only
+     * inspected while the player is in creative mode.
+     */
+    private boolean isInspected(NBTInspection inspection) {
+        if (!settings().isPreventCreativeCrasher()) return false;
 
-        NBTCompound compound = itemStack.getNBT();
-        if (compound != null && compound.getTags().containsKey(BLOCK_ENTITY_TAG_KEY)) {
-            recursionCount = 0;
-            NBTCompound blockEntityTag = compound.getCompoundTagOrNull(BLOCK_ENTITY_TAG_KEY);
-            recursion(event, playerData, itemStack, blockEntityTag);
-        } else if (compound != null) {
-            performItemChecks(event, itemStack, compound, playerData);
-        }
-    }
-
-    private ItemStack getItemStackFromEvent(PacketReceiveEvent event, PlayerData playerData) {
-        PacketTypeCommon packetType = event.getPacketType();
-        if (packetType.equals(PacketType.Play.Client.CREATIVE_INVENTORY_ACTION)) {
-            if (playerData.getGameMode() != GameMode.CREATIVE) return null;
-            return CastUtil.getSupplier(
-                    () -> new WrapperPlayClientCreativeInventoryAction(event), playerData::exceptionDisconnect)
-                .getItemStack();
-        } else if (packetType.equals(PacketType.Play.Client.CLICK_WINDOW)) {
-            WrapperPlayClientClickWindow clickWrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientClickWindow(event), playerData::exceptionDisconnect);
-            return clickWrapper != null ? clickWrapper.getCarriedItemStack() : null;
-        } else if (packetType.equals(PacketType.Play.Client.PLAYER_BLOCK_PLACEMENT)) {
-            WrapperPlayClientPlayerBlockPlacement blockPlacementWrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientPlayerBlockPlacement(event), playerData::exceptionDisconnect);
-            return blockPlacementWrapper != null ? blockPlacementWrapper.getItemStack().orElse(null) : null;
-        }
-        return null;
+        return inspection.getEvent().getPacketType() != PacketType.Play.Client.CREATIVE_INVENTORY_ACTION
+               || playerData.getGameMode() == GameMode.CREATIVE;
     }
 
-    private void recursion(PacketReceiveEvent event, PlayerData data, ItemStack clickedItem,
-                           NBTCompound blockEntityTag) {
-
-        if (exceededRecursionMax() || !blockEntityTag.getTags().containsKey(ITEMS_KEY)) {
-            return;
-        }
+    private void checkItemCount(NBTInspection inspection, NBT tag) {
+        if (!(tag instanceof NBTList) || ((NBTList<?>) tag).size() <= MAX_ITEMS) return;
 
-        NBTList<NBTCompound> items = blockEntityTag.getCompoundListTagOrNull(ITEMS_KEY);
-
-        if(items == null) return;
-
-        if (exceededMaxItems(items)) {
-            this.dispatch(event, ViolationDocument.builder()
-                .mitigationStrategy(MitigationStrategy.BAN)
-                .description("performed invalid item click")
-                .debugs(Arrays.asList(
-                    new Debug<>("Items", items.size()),
-                    new Debug<>("Recursion", recursionCount),
-                    new Debug<>("Item", clickedItem.getType().getName())
-                ))
-                .build());
-            return;
-        }
-
-        processItems(event, data, clickedItem, items);
+        inspection.report(ViolationDocument.builder()
+                              .mitigationStrategy(MitigationStrategy.BAN)
+                              .description("performed invalid item click")
+                              .debugs(Collections.singletonList(new Debug<>("Items", ((NBTList<?>) tag).size())))
+                              .build());
     }
 
-    private boolean exceededRecursionMax() {
-        return ++recursionCount > MAX_RECURSIONS;
-    }
+    private void checkContainerDepth(NBTInspection inspection, NBT root) {
+        if (!inspection.isContainerOverflow()) return;
 
-    private boolean exceededMaxItems(NBTList<NBTCompound> items) {
-        return items.size() > MAX_ITEMS;
+        inspection.report(ViolationDocument.builder()
+                              .mitigationStrategy(MitigationStrategy.BAN)
+                              .description("performed invalid item click")
+                              .debugs(Collections.singletonList(
+                                  new Debug<>("Containers", NBTInspection.MAX_CONTAINER_DEPTH + 1)))
+                              .build());
     }
 
-    private void processItems(PacketReceiveEvent event, PlayerData data, ItemStack clickedItem,
-                              NBTList<NBTCompound> items) {
-        for (NBTCompound item : items.getTags()) {
-            if (item.getTags().containsKey(TAG_KEY)) {
-                NBTCompound tag = item.getCompoundTagOrNull(TAG_KEY);
-                if (tag == null || processTaggedItem(event, data, clickedItem, tag)) {
-                    return;
-                }
-            } else if (performItemChecks(event, clickedItem, item, data)) {
-                return;
-            }
-        }
+    /**
+     * Dispatches a violation of an item rule with the inspected item and the nesting depth appended to its debugs.
+     *
+     * @param inspection        the running inspection
+     * @param violationDocument the violation reported by the rule
+     */
+    private void report(NBTInspection inspection, ViolationDocument violationDocument) {
+        List<Debug<?>> debugs = new ArrayList<>(violationDocument.getDebugs());
+        debugs.add(new Debug<>("Item", inspection.getItemStack().getType().getName()));
+        debugs.add(new Debug<>("Recursion", inspection.getContainerDepth()));
+        violationDocument.setDebugs(debugs);
+
+        this.dispatch(inspection.getEvent(), violationDocument);
     }
 
-    private boolean processTaggedItem(PacketReceiveEvent event, PlayerData data, ItemStack clickedItem,
-                                      NBTCompound tag) {
-        if (performItemChecks(event, clickedItem, tag, data)) {
-            return true;
-        }
-
-        if (tag.getTags().containsKey(BLOCK_ENTITY_TAG_KEY)) {
-            NBTCompound recursionBlockEntityTag = tag.getCompoundTagOrNull(BLOCK_ENTITY_TAG_KEY);
-            recursion(event, data, clickedItem, recursionBlockEntityTag);
-        }
-        return false;
-    }
-
-    private boolean performItemChecks(PacketReceiveEvent event, ItemStack item, NBTCompound tag, PlayerData data) {
+    private void addCreativeChecks(NBTRuleSet rules, ItemCheck... checks) {
         for (ItemCheck check : checks) {
-            Triple<String, MitigationStrategy, List<Debug<?>>> crashDetails = check.handleCheck(event, item, tag, data);
-            if (crashDetails != null) {
-                List<Debug<?>> debugs = crashDetails.getThird();
-
-                debugs.addAll(Arrays.asList(
-                    new Debug<>("Item", item.getType().getName()),
-                    new Debug<>("Recursion", recursionCount)
-                ));
-
-                this.dispatch(event, ViolationDocument.builder()
-                    .mitigationStrategy(crashDetails.getSecond())
-                    .description(crashDetails.getFirst())
-                    .debugs(debugs)
-                    .build());
-                return true;
-            }
+            check.register(rules);
         }
-        return false;
-    }
-
-    private void addCreativeChecks(ItemCheck... checks) {
-        this.checks.addAll(Arrays.asList(checks));
     }
 }
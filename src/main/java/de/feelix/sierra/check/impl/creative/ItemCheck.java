@@ -1,20 +1,41 @@
 package de.feelix.sierra.check.impl.creative;
 
-import com.github.retrooper.packetevents.event.PacketReceiveEvent;
-import com.github.retrooper.packetevents.protocol.item.ItemStack;
-import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
+import de.feelix.sierra.check.nbt.NBTInspection;
+import de.feelix.sierra.check.nbt.NBTRuleSet;
 import de.feelix.sierra.check.violation.Debug;
-import de.feelix.sierra.manager.storage.PlayerData;
-import de.feelix.sierra.utilities.Triple;
+import de.feelix.sierra.check.violation.ViolationDocument;
 import de.feelix.sierraapi.violation.MitigationStrategy;
 
 import java.util.List;
 
 /**
- * An interface representing an item check.
+ * An interface representing an item check. Item checks register their rules in the {@link NBTRuleSet} of the
+ * creative crasher at the shared inspector of the player, which walks every item once and calls the rules for the
+ * tags they inspect.
  */
 public interface ItemCheck {
 
-    Triple<String, MitigationStrategy, List<Debug<?>>> handleCheck(PacketReceiveEvent event, ItemStack clickedStack,
-                                                                   NBTCompound nbtCompound, PlayerData playerData);
+    /**
+     * Registers the rules of this check.
+     *
+     * @param rules the rule set to register the rules in
+     */
+    void register(NBTRuleSet rules);
+
+    /**
+     * Reports a violation of this check to the running inspection.
+     *
+     * @param inspection         the running inspection
+     * @param description        the description of the violation
+     * @param mitigationStrategy the mitigation strategy of the violation
+     * @param debugs             the debug information of the violation
+     */
+    default void flag(NBTInspection inspection, String description, MitigationStrategy mitigationStrategy,
+                      List<Debug<?>> debugs) {
+        inspection.report(ViolationDocument.builder()
+                              .description(description)
+                              .mitigationStrategy(mitigationStrategy)
+                              .debugs(debugs)
+                              .build());
+    }
 }
@@ -1,19 +1,14 @@
 package de.feelix.sierra.check.impl.creative.impl;
 
-import com.github.retrooper.packetevents.event.PacketReceiveEvent;
-import com.github.retrooper.packetevents.protocol.item.ItemStack;
-import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
+import com.github.retrooper.packetevents.protocol.nbt.NBT;
 import com.github.retrooper.packetevents.protocol.nbt.NBTList;
 import com.github.retrooper.packetevents.protocol.nbt.NBTString;
 import de.feelix.sierra.check.impl.creative.ItemCheck;
-import de.feelix.sierra.check.violation.Debug;
-import de.feelix.sierra.manager.storage.PlayerData;
-import de.feelix.sierra.utilities.Triple;
+import de.feelix.sierra.check.nbt.NBTInspection;
+import de.feelix.sierra.check.nbt.NBTRuleSet;
 import de.feelix.sierraapi.violation.MitigationStrategy;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 import java.util.regex.Pattern;
 
 //Fixes client-side crash books
@@ -30,36 +25,23 @@ public class CreativeClientBookCrash implements ItemCheck {
     private static final Pattern PATTERN = Pattern.compile("\\s");
 
     @Override
-    public Triple<String, MitigationStrategy, List<Debug<?>>> handleCheck(PacketReceiveEvent event, ItemStack clickedStack,
-                                                                          NBTCompound nbtCompound, PlayerData playerData) {
-        List<String> pages = getPages(nbtCompound);
-        if (pages.isEmpty()) {
-            return null;
-        }
-        for (String page : pages) {
-            String withOutSpaces = PATTERN.matcher(page).replaceAll("");
-            if (withOutSpaces.toLowerCase().contains("{translate:translation.test.protocol}") || withOutSpaces.contains(
-                "{translate:translation.test.invalid2}")) {
-                return new Triple<>("interacted with an invalid translation", MitigationStrategy.KICK, Collections.emptyList());
-            }
-        }
-        return null;
+    public void register(NBTRuleSet rules) {
+        rules.onPath("pages", this::checkPages);
     }
 
-    /**
-     * Returns a list of pages from the given NBT compound.
-     *
-     * @param nbtCompound the NBT compound to retrieve pages from
-     * @return a List of String representing the pages, or an empty List if there are no pages
-     */
-    private List<String> getPages(NBTCompound nbtCompound) {
-        List<String>       pageList = new ArrayList<>();
-        NBTList<NBTString> nbtList  = nbtCompound.getStringListTagOrNull("pages");
-        if (nbtList != null) {
-            for (NBTString tag : nbtList.getTags()) {
-                pageList.add(tag.getValue());
+    private void checkPages(NBTInspection inspection, NBT tag) {
+        if (!(tag instanceof NBTList)) return;
+
+        for (NBT page : ((NBTList<?>) tag).getTags()) {
+            if (!(page instanceof NBTString)) return;
+
+            String withOutSpaces = PATTERN.matcher(((NBTString) page).getValue()).replaceAll("");
+            if (withOutSpaces.toLowerCase().contains("{translate:translation.test.protocol}") || withOutSpaces.contains(
+                "{translate:translation.test.invalid2}")) {
+                flag(inspection, "interacted with an invalid translation", MitigationStrategy.KICK,
+                     Collections.emptyList());
+                return;
             }
         }
-        return pageList;
     }
 }
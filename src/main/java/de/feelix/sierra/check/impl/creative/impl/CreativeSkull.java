@@ -1,14 +1,14 @@
 package de.feelix.sierra.check.impl.creative.impl;
 
-import com.github.retrooper.packetevents.event.PacketReceiveEvent;
-import com.github.retrooper.packetevents.protocol.item.ItemStack;
+import com.github.retrooper.packetevents.protocol.nbt.NBT;
 import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
 import com.github.retrooper.packetevents.protocol.nbt.NBTList;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import de.feelix.sierra.check.impl.creative.ItemCheck;
+import de.feelix.sierra.check.nbt.NBTInspection;
+import de.feelix.sierra.check.nbt.NBTRuleSet;
 import de.feelix.sierra.check.violation.Debug;
-import de.feelix.sierra.manager.storage.PlayerData;
 import de.feelix.sierra.manager.storage.SierraDataManager;
 import de.feelix.sierra.utilities.Triple;
 import de.feelix.sierraapi.violation.MitigationStrategy;
@@ -22,23 +22,25 @@ import java.util.*;
 //Fixes crash head / glitch head
 public class CreativeSkull implements ItemCheck {
 
-
     @Override
-    public Triple<String, MitigationStrategy, List<Debug<?>>> handleCheck(PacketReceiveEvent event, ItemStack clickedStack,
-                                                                          NBTCompound nbtCompound, PlayerData playerData) {
-        if (nbtCompound == null) {
-            return null;
-        }
+    public void register(NBTRuleSet rules) {
+        rules.onPath("SkullOwner", this::checkSkullOwner);
+    }
 
-        if (!nbtCompound.getTags().containsKey("SkullOwner")) {
-            return null;
+    private void checkSkullOwner(NBTInspection inspection, NBT tag) {
+        Triple<String, MitigationStrategy, List<Debug<?>>> details = validate(tag);
+        if (details != null) {
+            flag(inspection, details.getFirst(), details.getSecond(), details.getThird());
         }
+    }
 
-        NBTCompound skullOwner = nbtCompound.getCompoundTagOrNull("SkullOwner");
-        if (skullOwner == null) {
+    private Triple<String, MitigationStrategy, List<Debug<?>>> validate(NBT tag) {
+        if (!(tag instanceof NBTCompound)) {
             return new Triple<>("clicked on skull with null owner", MitigationStrategy.KICK, Collections.emptyList());
         }
 
+        NBTCompound skullOwner = (NBTCompound) tag;
+
         if (skullOwner.getTags().containsKey("Id")) {
             try {
                 //noinspection unused
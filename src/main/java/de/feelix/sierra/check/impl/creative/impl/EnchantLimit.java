@@ -1,21 +1,20 @@
 package de.feelix.sierra.check.impl.creative.impl;
 
 import com.github.retrooper.packetevents.PacketEvents;
-import com.github.retrooper.packetevents.event.PacketReceiveEvent;
-import com.github.retrooper.packetevents.protocol.item.ItemStack;
+import com.github.retrooper.packetevents.protocol.nbt.NBT;
 import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
 import com.github.retrooper.packetevents.protocol.nbt.NBTList;
 import com.github.retrooper.packetevents.protocol.nbt.NBTNumber;
 import com.github.retrooper.packetevents.protocol.player.ClientVersion;
 import de.feelix.sierra.Sierra;
 import de.feelix.sierra.check.impl.creative.ItemCheck;
+import de.feelix.sierra.check.nbt.NBTInspection;
+import de.feelix.sierra.check.nbt.NBTRuleSet;
 import de.feelix.sierra.check.violation.Debug;
-import de.feelix.sierra.manager.storage.PlayerData;
-import de.feelix.sierra.utilities.Triple;
+import de.feelix.sierra.manager.config.SierraSettings;
 import de.feelix.sierraapi.violation.MitigationStrategy;
 
 import java.util.Collections;
-import java.util.List;
 
 /**
  * The EnchantLimit class is responsible for handling the check for valid enchantment levels on a clicked stack.
@@ -29,41 +28,40 @@ public class EnchantLimit implements ItemCheck {
         .toClientVersion();
 
     @Override
-    public Triple<String, MitigationStrategy, List<Debug<?>>> handleCheck(PacketReceiveEvent event, ItemStack clickedStack,
-                                                                          NBTCompound nbtCompound, PlayerData playerData) {
-
+    public void register(NBTRuleSet rules) {
         //This is "version safe", since we check both the older 'ench' and the newer 'Enchantments' tag
-        //Not a very clean approach. A way to get items within pe itemstacks would certainly be helpful
-        if (nbtCompound.getTags().containsKey(clickedStack.getEnchantmentsTagName(CLIENT_VERSION))) {
+        //The tag name of the clicked stack decides which of them is inspected, like for the stack itself
+        rules.onPath("ench", this::checkEnchantments);
+        rules.onPath("Enchantments", this::checkEnchantments);
+        rules.onPath("StoredEnchantments", this::checkEnchantments);
+    }
+
+    private void checkEnchantments(NBTInspection inspection, NBT tag) {
+        if (!inspection.key().equals(inspection.getItemStack().getEnchantmentsTagName(CLIENT_VERSION))) return;
+
+        NBTList<NBTCompound> enchantments = inspection.parent().getCompoundListTagOrNull(inspection.key());
 
-            NBTList<NBTCompound> enchantments = nbtCompound.getCompoundListTagOrNull(
-                clickedStack.getEnchantmentsTagName(CLIENT_VERSION));
+        if (enchantments == null) return;
 
-            if (enchantments == null) return null;
+        SierraSettings settings = Sierra.getPlugin().getSierraConfigEngine().settings();
 
-            for (int i = 0; i < enchantments.size(); i++) {
-                NBTCompound enchantment = enchantments.getTag(i);
-                if (enchantment.getTags().containsKey("lvl")) {
-                    NBTNumber number = enchantment.getNumberTagOrNull("lvl");
+        for (int i = 0; i < enchantments.size(); i++) {
+            NBTCompound enchantment = enchantments.getTag(i);
+            if (enchantment.getTags().containsKey("lvl")) {
+                NBTNumber number = enchantment.getNumberTagOrNull("lvl");
 
-                    if (number == null) return null;
+                if (number == null) return;
 
-                    if ((number.getAsInt() < 0 && !Sierra.getPlugin()
-                        .getSierraConfigEngine()
-                        .config()
-                        .getBoolean("allow-negative-enchantments", false)) || number.getAsInt() > Sierra.getPlugin()
-                        .getSierraConfigEngine()
-                        .config()
-                        .getInt("max-enchantment-level", 5)) {
+                if ((number.getAsInt() < 0 && !settings.isAllowNegativeEnchantments())
+                    || number.getAsInt() > settings.getMaxEnchantmentLevel()) {
 
-                        return new Triple<>(
-                            "interacted on an item with invalid level", MitigationStrategy.KICK,
-                            Collections.singletonList(new Debug<>("Level", number.getAsInt()))
-                        );
-                    }
+                    flag(
+                        inspection, "interacted on an item with invalid level", MitigationStrategy.KICK,
+                        Collections.singletonList(new Debug<>("Level", number.getAsInt()))
+                    );
+                    return;
                 }
             }
         }
-        return null;
     }
 }
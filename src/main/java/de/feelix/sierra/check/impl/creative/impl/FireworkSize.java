@@ -1,21 +1,16 @@
 package de.feelix.sierra.check.impl.creative.impl;
 
-import com.github.retrooper.packetevents.event.PacketReceiveEvent;
-import com.github.retrooper.packetevents.protocol.item.ItemStack;
-import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
+import com.github.retrooper.packetevents.protocol.nbt.NBT;
 import com.github.retrooper.packetevents.protocol.nbt.NBTList;
 import com.github.retrooper.packetevents.protocol.packettype.PacketType;
-import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientClickWindow;
-import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientPlayerBlockPlacement;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
 import de.feelix.sierra.check.impl.creative.ItemCheck;
+import de.feelix.sierra.check.nbt.NBTInspection;
+import de.feelix.sierra.check.nbt.NBTRuleSet;
 import de.feelix.sierra.check.violation.Debug;
-import de.feelix.sierra.manager.storage.PlayerData;
-import de.feelix.sierra.utilities.CastUtil;
-import de.feelix.sierra.utilities.Triple;
 import de.feelix.sierraapi.violation.MitigationStrategy;
 
 import java.util.Collections;
-import java.util.List;
 
 /**
  * The FireworkSize class is an implementation of the ItemCheck interface. It handles the check for an protocol
@@ -26,65 +21,32 @@ import java.util.List;
 // PaperMC
 public class FireworkSize implements ItemCheck {
 
-    @Override
-    public Triple<String, MitigationStrategy, List<Debug<?>>> handleCheck(PacketReceiveEvent event, ItemStack clickedStack,
-                                                                          NBTCompound nbtCompound, PlayerData playerData) {
-
-        if (event.getPacketType() == PacketType.Play.Client.PLAYER_BLOCK_PLACEMENT) {
-
-            WrapperPlayClientPlayerBlockPlacement wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientPlayerBlockPlacement(event),
-                playerData::exceptionDisconnect
-            );
-
-            if (wrapper.getItemStack().isPresent()) {
-                if (this.invalid(wrapper.getItemStack().get())) {
-                    return new Triple<>(
-                        "interacted with invalid firework", MitigationStrategy.BAN,
-                        Collections.singletonList(new Debug<>("Type", "Place"))
-                    );
-                }
-            }
-        } else if (event.getPacketType() == PacketType.Play.Client.CLICK_WINDOW) {
-            WrapperPlayClientClickWindow wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientClickWindow(event),
-                playerData::exceptionDisconnect
-            );
-            if (wrapper.getCarriedItemStack() != null) {
-                if (this.invalid(wrapper.getCarriedItemStack())) {
-                    return new Triple<>(
-                        "interacted with invalid firework", MitigationStrategy.BAN,
-                        Collections.singletonList(new Debug<>("Type", "Click"))
-                    );
-                }
-            }
-        }
+    private static final int MAX_EXPLOSIONS = 25;
 
-        if (invalid(clickedStack)) {
-            return new Triple<>("interacted with invalid firework", MitigationStrategy.BAN, Collections.emptyList());
-        }
-        return null;
+    @Override
+    public void register(NBTRuleSet rules) {
+        rules.onPath("Fireworks.Explosions", this::checkExplosions);
     }
 
     /**
-     * Checks if an ItemStack has an protocol explosion size in a firework.
+     * Checks if a firework has an protocol explosion size.
      * It checks if the explosion size exceeds the maximum allowed size.
      *
-     * @param itemStack The ItemStack to check.
-     * @return {@code true} if the explosion size is protocol, {@code false} otherwise.
+     * @param inspection The running inspection.
+     * @param tag        The explosions tag of the firework.
      */
-    private boolean invalid(ItemStack itemStack) {
-        if (itemStack.getNBT() != null) {
-            NBTCompound fireworkNBT = itemStack.getNBT().getCompoundTagOrNull("Fireworks");
-            if (fireworkNBT != null) {
-                NBTList<NBTCompound> explosionsNBT = fireworkNBT.getCompoundListTagOrNull("Explosions");
-
-                if (explosionsNBT == null) return false;
-
-                int maxExplosions = 25;
-                return explosionsNBT.size() >= maxExplosions;
-            }
+    private void checkExplosions(NBTInspection inspection, NBT tag) {
+        if (!(tag instanceof NBTList) || ((NBTList<?>) tag).size() < MAX_EXPLOSIONS) return;
+
+        PacketTypeCommon packetType = inspection.getEvent().getPacketType();
+        if (packetType == PacketType.Play.Client.PLAYER_BLOCK_PLACEMENT) {
+            flag(inspection, "interacted with invalid firework", MitigationStrategy.BAN,
+                 Collections.singletonList(new Debug<>("Type", "Place")));
+        } else if (packetType == PacketType.Play.Client.CLICK_WINDOW) {
+            flag(inspection, "interacted with invalid firework", MitigationStrategy.BAN,
+                 Collections.singletonList(new Debug<>("Type", "Click")));
+        } else {
+            flag(inspection, "interacted with invalid firework", MitigationStrategy.BAN, Collections.emptyList());
         }
-        return false;
     }
 }
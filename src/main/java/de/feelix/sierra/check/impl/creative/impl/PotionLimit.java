@@ -1,44 +1,41 @@
 package de.feelix.sierra.check.impl.creative.impl;
 
-import com.github.retrooper.packetevents.event.PacketReceiveEvent;
-import com.github.retrooper.packetevents.protocol.item.ItemStack;
+import com.github.retrooper.packetevents.protocol.nbt.NBT;
 import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
 import com.github.retrooper.packetevents.protocol.nbt.NBTList;
 import com.github.retrooper.packetevents.protocol.nbt.NBTNumber;
 import de.feelix.sierra.check.impl.creative.ItemCheck;
+import de.feelix.sierra.check.nbt.NBTInspection;
+import de.feelix.sierra.check.nbt.NBTRuleSet;
 import de.feelix.sierra.check.violation.Debug;
-import de.feelix.sierra.manager.storage.PlayerData;
-import de.feelix.sierra.utilities.Triple;
 import de.feelix.sierraapi.violation.MitigationStrategy;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 
 /**
  * The PotionLimit class implements the ItemCheck interface to handle custom potion effects.
  */
 public class PotionLimit implements ItemCheck {
 
-
     @Override
-    public Triple<String, MitigationStrategy, List<Debug<?>>> handleCheck(PacketReceiveEvent event, ItemStack clickedStack,
-                                                                          NBTCompound nbtCompound, PlayerData playerData) {
-        if (!nbtCompound.getTags().containsKey("CustomPotionEffects")) {
-            return null;
-        }
+    public void register(NBTRuleSet rules) {
+        rules.onPath("CustomPotionEffects", this::checkPotionEffects);
+    }
 
-        NBTList<NBTCompound> potionEffects = nbtCompound.getCompoundListTagOrNull("CustomPotionEffects");
+    private void checkPotionEffects(NBTInspection inspection, NBT tag) {
+        NBTList<NBTCompound> potionEffects = inspection.parent().getCompoundListTagOrNull("CustomPotionEffects");
 
-        if (potionEffects == null) return null;
+        if (potionEffects == null) return;
 
         int maxPotionEffects = 5;
         //Limit how many custom potion effects a potion can have
         if (potionEffects.size() >= maxPotionEffects) {
-            return new Triple<>(
-                "interacted with too big potion", MitigationStrategy.KICK,
+            flag(
+                inspection, "interacted with too big potion", MitigationStrategy.KICK,
                 Arrays.asList(new Debug<>("Size", potionEffects.size()), new Debug<>("Max", maxPotionEffects))
             );
+            return;
         }
 
         for (int i = 0; i < potionEffects.size(); i++) {
@@ -49,11 +46,12 @@ public class PotionLimit implements ItemCheck {
                 if (nbtNumber != null) {
                     int maxEffectDuration = 9600;
                     if (nbtNumber.getAsInt() >= maxEffectDuration) {
-                        return new Triple<>(
-                            "interacted with too big potion", MitigationStrategy.KICK,
+                        flag(
+                            inspection, "interacted with too big potion", MitigationStrategy.KICK,
                             Arrays.asList(
                                 new Debug<>("Duration", nbtNumber.getAsInt()), new Debug<>("Max", maxEffectDuration))
                         );
+                        return;
                     }
                 }
             }
@@ -65,26 +63,27 @@ public class PotionLimit implements ItemCheck {
                 NBTNumber nbtNumber = effect.getNumberTagOrNull("Amplifier");
                 if (nbtNumber != null) {
                     if (nbtNumber.getAsInt() < 0) {
-                        return new Triple<>(
-                            "interacted with invalid potion", MitigationStrategy.BAN,
+                        flag(
+                            inspection, "interacted with invalid potion", MitigationStrategy.BAN,
                             Collections.singletonList(
                                 new Debug<>("Amplifier", nbtNumber.getAsInt()))
                         );
+                        return;
                     }
                     int maxPotionEffectAmplifier = 10;
                     if (nbtNumber.getAsInt() > maxPotionEffectAmplifier) {
-                        return new Triple<>(
-                            "interacted with invalid potion", MitigationStrategy.KICK,
+                        flag(
+                            inspection, "interacted with invalid potion", MitigationStrategy.KICK,
                             Arrays.asList(
                                 new Debug<>("Amplifier", nbtNumber.getAsInt()),
                                 new Debug<>("Max", maxPotionEffectAmplifier)
                             )
                         );
+                        return;
                     }
                 }
             }
 
         }
-        return null;
     }
 }
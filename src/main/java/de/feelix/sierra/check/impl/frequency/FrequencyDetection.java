@@ -11,27 +11,30 @@ import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientPl
 import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientPluginMessage;
 import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerCloseWindow;
 import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerOpenWindow;
-import de.feelix.sierra.Sierra;
 import de.feelix.sierra.check.SierraDetection;
 import de.feelix.sierra.check.violation.Debug;
 import de.feelix.sierra.check.violation.ViolationDocument;
+import de.feelix.sierra.manager.config.SierraSettings;
 import de.feelix.sierra.manager.init.impl.start.Ticker;
 import de.feelix.sierra.manager.packet.IngoingProcessor;
 import de.feelix.sierra.manager.packet.OutgoingProcessor;
 import de.feelix.sierra.manager.storage.PlayerData;
 import de.feelix.sierra.utilities.CastUtil;
+import de.feelix.sierra.utilities.ratelimit.RateLimiter;
 import de.feelix.sierraapi.check.CheckType;
 import de.feelix.sierraapi.check.SierraCheckData;
 import de.feelix.sierraapi.violation.MitigationStrategy;
-import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.EnumSet;
+import java.util.Set;
 
 @SierraCheckData(checkType = CheckType.FREQUENCY)
 public class FrequencyDetection extends SierraDetection implements IngoingProcessor, OutgoingProcessor {
 
+    private static final Set<PacketType.Play.Server> OUTGOING_TYPES = EnumSet.of(PacketType.Play.Server.OPEN_WINDOW);
+
     private int lastBookEditTick = 0;
     private int lastDropItemTick = 0;
     private int lastCraftRequestTick = 0;
@@ -51,7 +54,12 @@ public class FrequencyDetection extends SierraDetection implements IngoingProces
 
     boolean hasGottenMovementAfterTransaction = false;
 
-    private final HashMap<PacketTypeCommon, Integer> packetCounts = new HashMap<>();
+    /**
+     * Limits the packets per second of each client play packet type, indexed by ordinal.
+     * It is rebuilt when the settings it was created from are reloaded.
+     */
+    private RateLimiter packetLimiter;
+    private SierraSettings packetLimiterSettings;
 
     public FrequencyDetection(PlayerData playerData) {
         super(playerData);
@@ -60,7 +68,8 @@ public class FrequencyDetection extends SierraDetection implements IngoingProces
     @Override
     public void handle(PacketReceiveEvent event, PlayerData playerData) {
 
-        if (!configEngine().config().getBoolean("prevent-packet-frequency", true)) {
+        SierraSettings settings = settings();
+        if (!settings.isPreventPacketFrequency()) {
             return;
         }
 
@@ -69,34 +78,29 @@ public class FrequencyDetection extends SierraDetection implements IngoingProces
 
         if (!WrapperPlayClientPlayerFlying.isFlying(event.getPacketType())) {
 
-            YamlConfiguration configuration = Sierra.getPlugin().getSierraConfigEngine().config();
-            if (configuration.getStringList("excluded-packets-from-limit").contains(packetType.getName())) return;
-
-            long current = System.currentTimeMillis();
+            PacketType.Play.Client clientType = (PacketType.Play.Client) packetType;
+            if (settings.isExcludedFromFrequencyLimit(clientType)) return;
 
-            packetCounts.merge(packetType, 1, Integer::sum);
+            long now = System.nanoTime();
+            RateLimiter limiter = packetLimiter(settings, now);
+            int slot = clientType.ordinal();
 
-            int limit = retrieveLimitFromConfiguration(packetType);
-            int packetCount = packetCounts.getOrDefault(packetType, 0);
-
-            if (packetCount > limit) {
+            if (!limiter.tryAcquire(slot, 1, now)) {
                 this.dispatch(event, ViolationDocument.builder()
                     .description("is sending packets too frequent")
                     .mitigationStrategy(MitigationStrategy.KICK)
                     .debugs(Arrays.asList(
                         new Debug<>("Packet", packetType.getName()),
-                        new Debug<>("Limit", limit),
-                        new Debug<>("Count", packetCount),
+                        new Debug<>("Limit", settings.frequencyLimit(clientType)),
+                        new Debug<>("Count", limiter.usage(slot, now)),
+                        new Debug<>("Capacity", limiter.capacity(slot)),
                         new Debug<>("Alive", playerData.getPingProcessor().getPing()),
                         new Debug<>("Transaction", playerData.getTransactionProcessor().getTransactionPing()),
-                        new Debug<>("Version", playerData.getClientVersion().getReleaseName()),
-                        new Debug<>("Delay", (System.currentTimeMillis() - current) + "ms")
+                        new Debug<>("Version", playerData.getClientVersion().getReleaseName())
                     ))
                     .build());
                 return;
             }
-        } else {
-            this.packetCounts.clear();
         }
 
         if (packetType.equals(PacketType.Play.Client.EDIT_BOOK)) {
@@ -125,6 +129,14 @@ public class FrequencyDetection extends SierraDetection implements IngoingProces
         playerData.getTimingProcessor().getFrequencyTask().end();
     }
 
+    private RateLimiter packetLimiter(SierraSettings settings, long now) {
+        if (packetLimiterSettings != settings) {
+            packetLimiter = settings.createFrequencyLimiter(now);
+            packetLimiterSettings = settings;
+        }
+        return packetLimiter;
+    }
+
     // Check from: https://github.com/GrimAnticheat/Grim -> Credits to MWHunter
     private void doCheck(PacketReceiveEvent event) {
 
@@ -172,20 +184,6 @@ public class FrequencyDetection extends SierraDetection implements IngoingProces
                packetType == PacketType.Play.Client.WINDOW_CONFIRMATION;
     }
 
-    private int retrieveLimitFromConfiguration(PacketTypeCommon packetType) {
-
-        int limit = configEngine().config().getInt("generic-packet-frequency-default", 50);
-        for (String string : configEngine().config().getStringList("generic-packet-frequency-limit")) {
-
-            String[] parts = string.split(":");
-            if (parts[0].equals(packetType.getName())) {
-                limit = Integer.parseInt(parts[1]);
-                break;
-            }
-        }
-        return limit;
-    }
-
     private void handleEditBook(PacketReceiveEvent event) {
         if (isSpamming(lastBookEditTick)) {
             this.dispatch(event, ViolationDocument.builder()
@@ -197,8 +195,9 @@ public class FrequencyDetection extends SierraDetection implements IngoingProces
     }
 
     private void handlePluginMessage(PacketReceiveEvent event, PlayerData playerData) {
-        WrapperPlayClientPluginMessage wrapper = CastUtil.getSupplier(
-            () -> new WrapperPlayClientPluginMessage(event), playerData::exceptionDisconnect);
+        WrapperPlayClientPluginMessage wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientPluginMessage.class, WrapperPlayClientPluginMessage::new,
+            playerData::exceptionDisconnect);
 
         String channelName = wrapper.getChannelName();
         if (channelName.contains("MC|BEdit") || channelName.contains("MC|BSign")) {
@@ -227,8 +226,9 @@ public class FrequencyDetection extends SierraDetection implements IngoingProces
     }
 
     private void handlePlayerDigging(PacketReceiveEvent event, PlayerData playerData) {
-        WrapperPlayClientPlayerDigging wrapper = CastUtil.getSupplier(
-            () -> new WrapperPlayClientPlayerDigging(event), playerData::exceptionDisconnect);
+        WrapperPlayClientPlayerDigging wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientPlayerDigging.class, WrapperPlayClientPlayerDigging::new,
+            playerData::exceptionDisconnect);
 
         if (wrapper.getAction() == DiggingAction.DROP_ITEM) {
             int currentTick = Ticker.getInstance().getCurrentTick();
@@ -260,11 +260,17 @@ public class FrequencyDetection extends SierraDetection implements IngoingProces
         return isSpamming;
     }
 
+    @Override
+    public Set<PacketType.Play.Server> outgoingPacketTypes() {
+        return OUTGOING_TYPES;
+    }
+
     @Override
     public void handle(PacketSendEvent event, PlayerData playerData) {
         if (event.getPacketType() == PacketType.Play.Server.OPEN_WINDOW) {
-            WrapperPlayServerOpenWindow window = CastUtil.getSupplier(
-                () -> new WrapperPlayServerOpenWindow(event), playerData::exceptionDisconnect);
+            WrapperPlayServerOpenWindow window = CastUtil.getWrapper(
+                event, WrapperPlayServerOpenWindow.class, WrapperPlayServerOpenWindow::new,
+                playerData::exceptionDisconnect);
             this.containerId = window.getContainerId();
         }
     }
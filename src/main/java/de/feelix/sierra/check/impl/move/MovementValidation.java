@@ -22,10 +22,22 @@ import de.feelix.sierraapi.violation.MitigationStrategy;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 @SierraCheckData(checkType = CheckType.MOVEMENT_VALIDATION)
 public class MovementValidation extends SierraDetection implements IngoingProcessor {
 
+    private static final Set<PacketType.Play.Client> INGOING_TYPES = EnumSet.of(
+        PacketType.Play.Client.PLAYER_FLYING,
+        PacketType.Play.Client.PLAYER_POSITION,
+        PacketType.Play.Client.PLAYER_ROTATION,
+        PacketType.Play.Client.PLAYER_POSITION_AND_ROTATION,
+        PacketType.Play.Client.VEHICLE_MOVE,
+        PacketType.Play.Client.PONG,
+        PacketType.Play.Client.WINDOW_CONFIRMATION
+    );
+
     private double lastChunkId = -1;
     private long lastTick = -1;
     private int buffer = 0;
@@ -46,9 +58,14 @@ public class MovementValidation extends SierraDetection implements IngoingProces
         super(playerData);
     }
 
+    @Override
+    public Set<PacketType.Play.Client> ingoingPacketTypes() {
+        return INGOING_TYPES;
+    }
+
     @Override
     public void handle(PacketReceiveEvent event, PlayerData data) {
-        if (!configEngine().config().getBoolean("prevent-protocol-move", true)) {
+        if (!settings().isPreventProtocolMove()) {
             return;
         }
 
@@ -65,8 +82,9 @@ public class MovementValidation extends SierraDetection implements IngoingProces
     }
 
     private void handleFlyingPacket(PacketReceiveEvent event, PlayerData playerData) {
-        WrapperPlayClientPlayerFlying wrapper = CastUtil.getSupplier(
-            () -> new WrapperPlayClientPlayerFlying(event), playerData::exceptionDisconnect);
+        WrapperPlayClientPlayerFlying wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientPlayerFlying.class, WrapperPlayClientPlayerFlying::new,
+            playerData::exceptionDisconnect);
 
         if (wrapper.hasRotationChanged()) {
             checkInvalidRotation(wrapper, event);
@@ -91,7 +109,7 @@ public class MovementValidation extends SierraDetection implements IngoingProces
     }
 
     private void handleLatencyAbuse(PacketReceiveEvent event, PlayerData data) {
-        if (!configEngine().config().getBoolean("prevent-timer-cheats", true)) {
+        if (!settings().isPreventTimerCheats()) {
             return;
         }
 
@@ -148,8 +166,8 @@ public class MovementValidation extends SierraDetection implements IngoingProces
     }
 
     private void handleVehicleMove(PacketReceiveEvent event, PlayerData data) {
-        WrapperPlayClientVehicleMove wrapper = CastUtil.getSupplier(
-            () -> new WrapperPlayClientVehicleMove(event), data::exceptionDisconnect);
+        WrapperPlayClientVehicleMove wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientVehicleMove.class, WrapperPlayClientVehicleMove::new, data::exceptionDisconnect);
 
         Vector3d location = wrapper.getPosition();
 
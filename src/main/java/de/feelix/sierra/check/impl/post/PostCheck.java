@@ -16,6 +16,7 @@ import de.feelix.sierra.check.violation.ViolationDocument;
 import de.feelix.sierra.manager.packet.IngoingProcessor;
 import de.feelix.sierra.manager.packet.OutgoingProcessor;
 import de.feelix.sierra.manager.storage.PlayerData;
+import de.feelix.sierra.utilities.CastUtil;
 import de.feelix.sierra.utilities.EvictingQueue;
 import de.feelix.sierraapi.check.CheckType;
 import de.feelix.sierraapi.check.SierraCheckData;
@@ -24,14 +25,25 @@ import org.bukkit.entity.Player;
 
 import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import static com.github.retrooper.packetevents.protocol.packettype.PacketType.Play.Client.*;
 
 @SierraCheckData(checkType = CheckType.POST)
 public class PostCheck extends SierraDetection implements IngoingProcessor, OutgoingProcessor {
 
+    private static final Set<PacketType.Play.Client> INGOING_TYPES = EnumSet.of(
+        PLAYER_FLYING, PLAYER_POSITION, PLAYER_ROTATION, PLAYER_POSITION_AND_ROTATION,
+        PONG, WINDOW_CONFIRMATION,
+        PLAYER_ABILITIES, INTERACT_ENTITY, PLAYER_BLOCK_PLACEMENT, USE_ITEM, PLAYER_DIGGING,
+        CLICK_WINDOW, ANIMATION, ENTITY_ACTION
+    );
+    private static final Set<PacketType.Play.Server> OUTGOING_TYPES = EnumSet.of(
+        PacketType.Play.Server.ENTITY_ANIMATION);
+
     public PostCheck(PlayerData playerData) {
         super(playerData);
     }
@@ -42,7 +54,7 @@ public class PostCheck extends SierraDetection implements IngoingProcessor, Outg
     private boolean hasSentFlyingPacket = false;
 
     private void handleFlyingPacket(PacketReceiveEvent event) {
-        if (!flags.isEmpty() && configEngine().config().getBoolean("prevent-post-packets", true)) {
+        if (!flags.isEmpty() && settings().isPreventPostPackets()) {
 
             // Okay, the user might be cheating, let's double check
             // 1.8 clients have the idle packet, and this shouldn't false on 1.8 clients
@@ -97,7 +109,10 @@ public class PostCheck extends SierraDetection implements IngoingProcessor, Outg
     }
 
     private boolean shouldHandleEntityAction(PacketReceiveEvent event) {
-        WrapperPlayClientEntityAction entityAction = new WrapperPlayClientEntityAction(event);
+        WrapperPlayClientEntityAction entityAction = CastUtil.getWrapper(
+            event, WrapperPlayClientEntityAction.class, WrapperPlayClientEntityAction::new,
+            playerData::exceptionDisconnect);
+        if (entityAction == null) return false;
         return playerData.getClientVersion().isNewerThanOrEquals(ClientVersion.V_1_9)
                || entityAction.getAction() != WrapperPlayClientEntityAction.Action.START_FLYING_WITH_ELYTRA
                   && !isRidingEntityInNewVersion();
@@ -122,6 +137,11 @@ public class PostCheck extends SierraDetection implements IngoingProcessor, Outg
         return packetType.toString().toLowerCase(Locale.ROOT).replace("_", " ");
     }
 
+    @Override
+    public Set<PacketType.Play.Client> ingoingPacketTypes() {
+        return INGOING_TYPES;
+    }
+
     @Override
     public void handle(PacketReceiveEvent event, PlayerData playerData) {
         PacketTypeCommon packetType = event.getPacketType();
@@ -145,11 +165,18 @@ public class PostCheck extends SierraDetection implements IngoingProcessor, Outg
                || animation.getType() == WrapperPlayServerEntityAnimation.EntityAnimationType.SWING_OFF_HAND;
     }
 
+    @Override
+    public Set<PacketType.Play.Server> outgoingPacketTypes() {
+        return OUTGOING_TYPES;
+    }
+
     @Override
     public void handle(PacketSendEvent event, PlayerData playerData) {
         if (event.getPacketType() == PacketType.Play.Server.ENTITY_ANIMATION) {
-            WrapperPlayServerEntityAnimation animation = new WrapperPlayServerEntityAnimation(event);
-            if (animation.getEntityId() == playerData.entityId()) {
+            WrapperPlayServerEntityAnimation animation = CastUtil.getWrapper(
+                event, WrapperPlayServerEntityAnimation.class, WrapperPlayServerEntityAnimation::new,
+                playerData::exceptionDisconnect);
+            if (animation != null && animation.getEntityId() == playerData.entityId()) {
                 if (isSwingAnimation(animation)) {
                     exemptFromSwingingCheck = playerData.getTransactionProcessor().lastTransactionSent.get();
                 }
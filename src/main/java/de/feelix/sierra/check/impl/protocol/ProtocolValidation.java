@@ -24,8 +24,12 @@ import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerWi
 import de.feelix.sierra.Sierra;
 import de.feelix.sierra.check.SierraDetection;
 import de.feelix.sierra.check.impl.command.CommandValidation;
+import de.feelix.sierra.check.nbt.NBTInspection;
+import de.feelix.sierra.check.nbt.NBTInspector;
+import de.feelix.sierra.check.nbt.NBTRuleSet;
 import de.feelix.sierra.check.violation.Debug;
 import de.feelix.sierra.check.violation.ViolationDocument;
+import de.feelix.sierra.manager.config.SierraSettings;
 import de.feelix.sierra.manager.packet.IngoingProcessor;
 import de.feelix.sierra.manager.packet.OutgoingProcessor;
 import de.feelix.sierra.manager.storage.PlayerData;
@@ -35,19 +39,22 @@ import de.feelix.sierra.utilities.CastUtil;
 import de.feelix.sierra.utilities.FieldReader;
 import de.feelix.sierra.utilities.FormatUtils;
 import de.feelix.sierra.utilities.attributes.AttributeMapper;
+import de.feelix.sierra.utilities.nbt.RawNBTValidator;
+import de.feelix.sierra.utilities.ratelimit.RateLimiter;
 import de.feelix.sierra.utilities.types.BannerType;
 import de.feelix.sierra.utilities.types.ShulkerBoxType;
 import de.feelix.sierraapi.check.CheckType;
 import de.feelix.sierraapi.check.SierraCheckData;
 import de.feelix.sierraapi.violation.MitigationStrategy;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -68,20 +75,91 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
 
     private static final String WURSTCLIENT_URL = "www.wurstclient.net";
     private static final int MAX_BYTE_SIZE = 262144;
+    private static final int MAX_TAG_LENGTH = 10000;
     private static final int MAX_BANNER_LAYERS = 15;
     private static final int MAX_PATTERN_LENGTH = 50;
     private static final int MIN_VALID_COLOR = 0;
     private static final int MAX_SIGN_LENGTH = 45;
     private static final int MAX_VALID_COLOR = 255;
-    private final AtomicInteger listContent = new AtomicInteger(0);
-
-    public ProtocolValidation(PlayerData playerData) {
+    private final RawNBTValidator rawNbtValidator = new RawNBTValidator();
+
+    /**
+     * The state the item rules collect while the item inspector walks an item, reset for every item.
+     */
+    private final List<String> oversizedLists = new ArrayList<>();
+    private int listContent;
+    private int listAmount;
+    private int translateCount;
+    private boolean snooperRequest;
+    private boolean wurstContainer;
+    private boolean nestedExtra;
+
+    private static final Set<PacketType.Play.Server> OUTGOING_TYPES = EnumSet.of(
+        PacketType.Play.Server.SET_EXPERIENCE,
+        PacketType.Play.Server.WINDOW_ITEMS,
+        PacketType.Play.Server.OPEN_WINDOW
+    );
+
+    /**
+     * Limits the bytes per second the player sends. It is rebuilt when the settings it was created from are
+     * reloaded or the client version changes the allowed rate.
+     */
+    private RateLimiter    byteLimiter;
+    private SierraSettings byteLimiterSettings;
+    private int            byteLimiterMultiplier;
+
+    public ProtocolValidation(PlayerData playerData, NBTInspector itemInspector) {
         super(playerData);
+        registerItemRules(itemInspector.ruleSet(
+            inspection -> settings().isPreventProtocolPacket(),
+            (inspection, violationDocument) -> dispatch(inspection.getEvent(), violationDocument), false
+        ));
+    }
+
+    /**
+     * Walks the item NBT of the packet in the raw buffer before any check decodes it. Payloads that exceed the
+     * depth, size, length or node budgets of the {@link RawNBTValidator} are rejected without building the NBT tree.
+     *
+     * @param event the PacketReceiveEvent to validate
+     * @return true if the packet was rejected, false otherwise
+     */
+    public boolean handleRawNbt(PacketReceiveEvent event) {
+        if (!settings().isPreventProtocolPacket() || event.getConnectionState() != ConnectionState.PLAY) {
+            return false;
+        }
+
+        PacketType.Play.Client packetType = (PacketType.Play.Client) event.getPacketType();
+        ServerVersion serverVersion = event.getServerVersion();
+        if (!RawNBTValidator.canValidate(packetType, serverVersion)) return false;
+
+        RawNBTValidator.Result result = rawNbtValidator.validate(event.getByteBuf(), packetType, serverVersion);
+        if (result == RawNBTValidator.Result.VALID) return false;
+
+        dispatch(event, ViolationDocument.builder()
+            .mitigationStrategy(MitigationStrategy.KICK)
+            .description("send item nbt over budget")
+            .debugs(Arrays.asList(
+                new Debug<>("Packet", packetType.getName()),
+                new Debug<>("Budget", result.name()),
+                new Debug<>("Value", rawNbtValidator.getViolatingValue())
+            ))
+            .build());
+        return true;
+    }
+
+    private RateLimiter byteLimiter(int multiplier, long now) {
+        SierraSettings settings = settings();
+        if (byteLimiterSettings != settings || byteLimiterMultiplier != multiplier) {
+            byteLimiter = settings.createByteLimiter(multiplier, now);
+            byteLimiterSettings = settings;
+            byteLimiterMultiplier = multiplier;
+        }
+        return byteLimiter;
     }
 
     @Override
     public void handle(PacketReceiveEvent event, PlayerData playerData) {
-        if (!configEngine().config().getBoolean("prevent-protocol-packet", true)) {
+        if (!settings().isPreventProtocolPacket()) {
             return;
         }
 
@@ -97,71 +175,108 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
                 .build());
         }
 
-        int readableBytes = ByteBufHelper.readableBytes(event.getByteBuf());
-        int maxBytesPerSecond = 64000 * (playerData.getClientVersion().isOlderThan(ClientVersion.V_1_8) ? 2 : 1);
-        playerData.setBytesSent(playerData.getBytesSent() + readableBytes);
+        if (settings().getBytesPerSecondLimit() != -1) {
+            int readableBytes = ByteBufHelper.readableBytes(event.getByteBuf());
+            int multiplier = playerData.getClientVersion().isOlderThan(ClientVersion.V_1_8) ? 2 : 1;
+            long now = System.nanoTime();
+            RateLimiter limiter = byteLimiter(multiplier, now);
 
-        if (playerData.getBytesSent() > maxBytesPerSecond) {
-            dispatch(event, ViolationDocument.builder()
-                .mitigationStrategy(MitigationStrategy.KICK)
-                .description("sends too big packet in a second")
-                .debugs(Arrays.asList(
-                    new Debug<>("Bytes", playerData.getBytesSent()),
-                    new Debug<>("Max Bytes", maxBytesPerSecond)
-                ))
-                .build());
+            if (!limiter.tryAcquire(0, readableBytes, now)) {
+                dispatch(event, ViolationDocument.builder()
+                    .mitigationStrategy(MitigationStrategy.KICK)
+                    .description("sends too big packet in a second")
+                    .debugs(Arrays.asList(
+                        new Debug<>("Bytes", limiter.usage(0, now) + readableBytes),
+                        new Debug<>("Max Bytes", limiter.capacity(0))
+                    ))
+                    .build());
+            }
         }
 
-        handleAnvilInventory(event);
-        handleClientSettings(event, playerData);
-        handleCreativeInventoryAction(event, playerData);
-        handleEntityAction(event);
-        handleSpectate(event);
-        handleClickWindowButton(event);
-        handleChatMessage(event);
-        handleHeldItemChange(event);
-        handleTabComplete(event, playerData);
-        handleUpdateSign(event, playerData);
-        handlePlayerBlockPlacement(event, playerData);
-        handleSteerVehicle(event);
-        handleInteractEntity(event);
-        handleNameItem(event);
-        handlePlayerDigging(event, playerData);
-        handleUseItem(event, playerData);
-        handleClickWindow(event, playerData);
-        handlePluginMessage(event, playerData);
+        // The packet type is resolved once; each handler only runs for the packet it inspects
+        switch ((PacketType.Play.Client) event.getPacketType()) {
+            case PLUGIN_MESSAGE:
+                handleAnvilInventory(event);
+                handlePluginMessage(event, playerData);
+                break;
+            case CLOSE_WINDOW:
+                hasOpenAnvil = false;
+                break;
+            case CLIENT_SETTINGS:
+                handleClientSettings(event, playerData);
+                break;
+            case ENTITY_ACTION:
+                handleEntityAction(event);
+                break;
+            case SPECTATE:
+                handleSpectate(event);
+                break;
+            case CLICK_WINDOW_BUTTON:
+                handleClickWindowButton(event);
+                break;
+            case CHAT_MESSAGE:
+                handleChatMessage(event);
+                break;
+            case HELD_ITEM_CHANGE:
+                handleHeldItemChange(event);
+                break;
+            case TAB_COMPLETE:
+                handleTabComplete(event, playerData);
+                break;
+            case UPDATE_SIGN:
+                handleUpdateSign(event, playerData);
+                break;
+            case PLAYER_BLOCK_PLACEMENT:
+                handlePlayerBlockPlacement(event, playerData);
+                break;
+            case STEER_VEHICLE:
+                handleSteerVehicle(event);
+                break;
+            case INTERACT_ENTITY:
+                handleInteractEntity(event);
+                break;
+            case NAME_ITEM:
+                handleNameItem(event);
+                break;
+            case PLAYER_DIGGING:
+                handlePlayerDigging(event, playerData);
+                break;
+            case USE_ITEM:
+                handleUseItem(event, playerData);
+                break;
+            case CLICK_WINDOW:
+                handleClickWindow(event, playerData);
+                break;
+            default:
+                break;
+        }
     }
 
     private void handleAnvilInventory(PacketReceiveEvent event) {
-        if (event.getPacketType() == PacketType.Play.Client.PLUGIN_MESSAGE) {
-            WrapperPlayClientPluginMessage wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientPluginMessage(event), playerData::exceptionDisconnect);
+        WrapperPlayClientPluginMessage wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientPluginMessage.class, WrapperPlayClientPluginMessage::new,
+            playerData::exceptionDisconnect);
 
-            String channelName = wrapper.getChannelName();
+        String channelName = wrapper.getChannelName();
 
-            if (channelName.equalsIgnoreCase("MC|ItemName") && !hasOpenAnvil) {
+        if (channelName.equalsIgnoreCase("MC|ItemName") && !hasOpenAnvil) {
 
-                dispatch(event, ViolationDocument.builder()
-                    .mitigationStrategy(MitigationStrategy.KICK)
-                    .description("send anvil payload with closed inventory")
-                    .debugs(Collections.emptyList())
-                    .build());
-            }
-        } else if (event.getPacketType() == PacketType.Play.Client.CLOSE_WINDOW) {
-            if (hasOpenAnvil) hasOpenAnvil = false;
+            dispatch(event, ViolationDocument.builder()
+                .mitigationStrategy(MitigationStrategy.KICK)
+                .description("send anvil payload with closed inventory")
+                .debugs(Collections.emptyList())
+                .build());
         }
     }
 
     private void handleClientSettings(PacketReceiveEvent event, PlayerData playerData) {
-        if (event.getPacketType() == PacketType.Play.Client.CLIENT_SETTINGS) {
-            WrapperPlayClientSettings wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientSettings(event), playerData::exceptionDisconnect);
+        WrapperPlayClientSettings wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientSettings.class, WrapperPlayClientSettings::new, playerData::exceptionDisconnect);
 
-            if (wrapper == null) return;
+        if (wrapper == null) return;
 
-            adjustViewDistance(wrapper, event);
-            checkLocale(wrapper, event);
-        }
+        adjustViewDistance(wrapper, event);
+        checkLocale(wrapper, event);
     }
 
     private void adjustViewDistance(WrapperPlayClientSettings wrapper, PacketReceiveEvent event) {
@@ -192,21 +307,11 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         }
     }
 
-    private void handleCreativeInventoryAction(PacketReceiveEvent event, PlayerData playerData) {
-        if (event.getPacketType() == PacketType.Play.Client.CREATIVE_INVENTORY_ACTION) {
-            WrapperPlayClientCreativeInventoryAction wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientCreativeInventoryAction(event), playerData::exceptionDisconnect);
-            ItemStack itemStack = wrapper.getItemStack();
-            checkItemStack(event, itemStack);
-        }
-    }
-
     private void handleEntityAction(PacketReceiveEvent event) {
-        if (event.getPacketType() == PacketType.Play.Client.ENTITY_ACTION) {
-            WrapperPlayClientEntityAction wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientEntityAction(event), playerData::exceptionDisconnect);
-            checkEntityAction(wrapper, event);
-        }
+        WrapperPlayClientEntityAction wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientEntityAction.class, WrapperPlayClientEntityAction::new,
+            playerData::exceptionDisconnect);
+        checkEntityAction(wrapper, event);
     }
 
     private void checkEntityAction(WrapperPlayClientEntityAction wrapper, PacketReceiveEvent event) {
@@ -221,8 +326,7 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
     }
 
     private void handleSpectate(PacketReceiveEvent event) {
-        if (event.getPacketType() == PacketType.Play.Client.SPECTATE
-            && playerData.getGameMode() != GameMode.SPECTATOR) {
+        if (playerData.getGameMode() != GameMode.SPECTATOR) {
             dispatch(event, ViolationDocument.builder()
                 .mitigationStrategy(MitigationStrategy.BAN)
                 .description("spoofed his game-mode")
@@ -232,44 +336,41 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
     }
 
     private void handleClickWindowButton(PacketReceiveEvent event) {
-        if (event.getPacketType() == PacketType.Play.Client.CLICK_WINDOW_BUTTON) {
-            WrapperPlayClientClickWindowButton wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientClickWindowButton(event), playerData::exceptionDisconnect);
-            if (wrapper.getButtonId() < 0 || wrapper.getWindowId() < 0) {
+        WrapperPlayClientClickWindowButton wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientClickWindowButton.class, WrapperPlayClientClickWindowButton::new,
+            playerData::exceptionDisconnect);
+        if (wrapper.getButtonId() < 0 || wrapper.getWindowId() < 0) {
 
-                dispatch(event, ViolationDocument.builder()
-                    .mitigationStrategy(MitigationStrategy.BAN)
-                    .description("clicked on invalid button")
-                    .debugs(Arrays.asList(
-                        new Debug<>("WindowId", wrapper.getWindowId()),
-                        new Debug<>("ButtonId", wrapper.getButtonId())
-                    ))
-                    .build());
-            }
+            dispatch(event, ViolationDocument.builder()
+                .mitigationStrategy(MitigationStrategy.BAN)
+                .description("clicked on invalid button")
+                .debugs(Arrays.asList(
+                    new Debug<>("WindowId", wrapper.getWindowId()),
+                    new Debug<>("ButtonId", wrapper.getButtonId())
+                ))
+                .build());
         }
     }
 
     private void handleChatMessage(PacketReceiveEvent event) {
-        if (event.getPacketType() == PacketType.Play.Client.CHAT_MESSAGE) {
-            WrapperPlayClientChatMessage wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientChatMessage(event), playerData::exceptionDisconnect);
-            if (wrapper.getMessage().contains("${")) {
+        WrapperPlayClientChatMessage wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientChatMessage.class, WrapperPlayClientChatMessage::new,
+            playerData::exceptionDisconnect);
+        if (wrapper.getMessage().contains("${")) {
 
-                dispatch(event, ViolationDocument.builder()
-                    .mitigationStrategy(MitigationStrategy.KICK)
-                    .description("send log4j exploit")
-                    .debugs(Collections.singletonList(new Debug<>("Message", wrapper.getMessage())))
-                    .build());
-            }
+            dispatch(event, ViolationDocument.builder()
+                .mitigationStrategy(MitigationStrategy.KICK)
+                .description("send log4j exploit")
+                .debugs(Collections.singletonList(new Debug<>("Message", wrapper.getMessage())))
+                .build());
         }
     }
 
     private void handleHeldItemChange(PacketReceiveEvent event) {
-        if (event.getPacketType() == PacketType.Play.Client.HELD_ITEM_CHANGE) {
-            WrapperPlayClientHeldItemChange wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientHeldItemChange(event), playerData::exceptionDisconnect);
-            checkHeldItemChange(wrapper, event);
-        }
+        WrapperPlayClientHeldItemChange wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientHeldItemChange.class, WrapperPlayClientHeldItemChange::new,
+            playerData::exceptionDisconnect);
+        checkHeldItemChange(wrapper, event);
     }
 
     private void checkHeldItemChange(WrapperPlayClientHeldItemChange wrapper, PacketReceiveEvent event) {
@@ -303,11 +404,10 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
     }
 
     private void handleTabComplete(PacketReceiveEvent event, PlayerData playerData) {
-        if (event.getPacketType() == PacketType.Play.Client.TAB_COMPLETE) {
-            WrapperPlayClientTabComplete wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientTabComplete(event), playerData::exceptionDisconnect);
-            checkTabComplete(wrapper, event);
-        }
+        WrapperPlayClientTabComplete wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientTabComplete.class, WrapperPlayClientTabComplete::new,
+            playerData::exceptionDisconnect);
+        checkTabComplete(wrapper, event);
     }
 
     private void checkTabComplete(WrapperPlayClientTabComplete wrapper, PacketReceiveEvent event) {
@@ -362,12 +462,11 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
     }
 
     private void handleUpdateSign(PacketReceiveEvent event, PlayerData playerData) {
-        if (event.getPacketType() == PacketType.Play.Client.UPDATE_SIGN) {
-            WrapperPlayClientUpdateSign wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientUpdateSign(event), playerData::exceptionDisconnect);
-            if (wrapper == null) return;
-            checkUpdateSign(wrapper, event, playerData);
-        }
+        WrapperPlayClientUpdateSign wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientUpdateSign.class, WrapperPlayClientUpdateSign::new,
+            playerData::exceptionDisconnect);
+        if (wrapper == null) return;
+        checkUpdateSign(wrapper, event, playerData);
     }
 
     private void checkUpdateSign(WrapperPlayClientUpdateSign wrapper, PacketReceiveEvent event, PlayerData playerData) {
@@ -400,11 +499,10 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
     }
 
     private void handlePluginMessage(PacketReceiveEvent event, PlayerData playerData) {
-        if (event.getPacketType() == PacketType.Play.Client.PLUGIN_MESSAGE) {
-            WrapperPlayClientPluginMessage wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientPluginMessage(event), playerData::exceptionDisconnect);
-            checkPluginMessage(wrapper, event, playerData);
-        }
+        WrapperPlayClientPluginMessage wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientPluginMessage.class, WrapperPlayClientPluginMessage::new,
+            playerData::exceptionDisconnect);
+        checkPluginMessage(wrapper, event, playerData);
     }
 
     private void checkPluginMessage(WrapperPlayClientPluginMessage wrapper, PacketReceiveEvent event,
@@ -498,14 +596,13 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
     }
 
     private void handlePlayerBlockPlacement(PacketReceiveEvent event, PlayerData playerData) {
-        if (event.getPacketType() == PacketType.Play.Client.PLAYER_BLOCK_PLACEMENT) {
-            WrapperPlayClientPlayerBlockPlacement wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientPlayerBlockPlacement(event), playerData::exceptionDisconnect);
+        WrapperPlayClientPlayerBlockPlacement wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientPlayerBlockPlacement.class, WrapperPlayClientPlayerBlockPlacement::new,
+            playerData::exceptionDisconnect);
 
-            if (wrapper == null) return;
+        if (wrapper == null) return;
 
-            checkBlockPlacement(wrapper, event);
-        }
+        checkBlockPlacement(wrapper, event);
     }
 
     private void checkBlockPlacement(WrapperPlayClientPlayerBlockPlacement wrapper, PacketReceiveEvent event) {
@@ -544,7 +641,6 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         if (wrapper.getItemStack().isPresent()) {
             ItemStack itemStack = wrapper.getItemStack().get();
             checkBookUse(itemStack);
-            checkItemStack(event, itemStack);
         }
     }
 
@@ -556,11 +652,10 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
     }
 
     private void handleSteerVehicle(PacketReceiveEvent event) {
-        if (event.getPacketType() == PacketType.Play.Client.STEER_VEHICLE) {
-            WrapperPlayClientSteerVehicle wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientSteerVehicle(event), playerData::exceptionDisconnect);
-            checkSteerVehicle(wrapper, event);
-        }
+        WrapperPlayClientSteerVehicle wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientSteerVehicle.class, WrapperPlayClientSteerVehicle::new,
+            playerData::exceptionDisconnect);
+        checkSteerVehicle(wrapper, event);
     }
 
     private void checkSteerVehicle(WrapperPlayClientSteerVehicle wrapper, PacketReceiveEvent event) {
@@ -583,11 +678,10 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
     }
 
     private void handleInteractEntity(PacketReceiveEvent event) {
-        if (event.getPacketType() == PacketType.Play.Client.INTERACT_ENTITY) {
-            WrapperPlayClientInteractEntity wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientInteractEntity(event), playerData::exceptionDisconnect);
-            checkInteractEntity(wrapper, event);
-        }
+        WrapperPlayClientInteractEntity wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientInteractEntity.class, WrapperPlayClientInteractEntity::new,
+            playerData::exceptionDisconnect);
+        checkInteractEntity(wrapper, event);
     }
 
     private void checkInteractEntity(WrapperPlayClientInteractEntity wrapper, PacketReceiveEvent event) {
@@ -606,11 +700,9 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
     }
 
     private void handleNameItem(PacketReceiveEvent event) {
-        if (event.getPacketType() == PacketType.Play.Client.NAME_ITEM) {
-            WrapperPlayClientNameItem wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientNameItem(event), playerData::exceptionDisconnect);
-            checkNameItem(wrapper, event);
-        }
+        WrapperPlayClientNameItem wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientNameItem.class, WrapperPlayClientNameItem::new, playerData::exceptionDisconnect);
+        checkNameItem(wrapper, event);
     }
 
     private void checkNameItem(WrapperPlayClientNameItem wrapper, PacketReceiveEvent event) {
@@ -646,11 +738,11 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         ServerVersion currentVersion = PacketEvents.getAPI().getServerManager().getVersion();
         boolean isVersion19OrNewer = currentVersion.isNewerThanOrEquals(ServerVersion.V_1_19);
 
-        if (event.getPacketType() == PacketType.Play.Client.PLAYER_DIGGING
-            && isClientVersion19OrNewer && isVersion19OrNewer) {
+        if (isClientVersion19OrNewer && isVersion19OrNewer) {
 
-            WrapperPlayClientPlayerDigging dig = CastUtil.getSupplier(
-                () -> new WrapperPlayClientPlayerDigging(event), playerData::exceptionDisconnect);
+            WrapperPlayClientPlayerDigging dig = CastUtil.getWrapper(
+                event, WrapperPlayClientPlayerDigging.class, WrapperPlayClientPlayerDigging::new,
+                playerData::exceptionDisconnect);
             checkPlayerDigging(dig, event);
         }
     }
@@ -677,11 +769,10 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         ServerVersion currentVersion = PacketEvents.getAPI().getServerManager().getVersion();
         boolean isVersionAtLeastV1_19 = currentVersion.isNewerThanOrEquals(ServerVersion.V_1_19);
 
-        if (event.getPacketType() == PacketType.Play.Client.USE_ITEM && isClientVersionAtLeastV1_19
-            && isVersionAtLeastV1_19) {
+        if (isClientVersionAtLeastV1_19 && isVersionAtLeastV1_19) {
 
-            WrapperPlayClientUseItem use = CastUtil.getSupplier(
-                () -> new WrapperPlayClientUseItem(event), playerData::exceptionDisconnect);
+            WrapperPlayClientUseItem use = CastUtil.getWrapper(
+                event, WrapperPlayClientUseItem.class, WrapperPlayClientUseItem::new, playerData::exceptionDisconnect);
 
             if (use.getSequence() < 0) {
                 dispatch(event, ViolationDocument.builder()
@@ -694,15 +785,13 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
     }
 
     private void handleClickWindow(PacketReceiveEvent event, PlayerData playerData) {
-        if (event.getPacketType() == PacketType.Play.Client.CLICK_WINDOW) {
-
-            WrapperPlayClientClickWindow wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientClickWindow(event), playerData::exceptionDisconnect);
+        WrapperPlayClientClickWindow wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientClickWindow.class, WrapperPlayClientClickWindow::new,
+            playerData::exceptionDisconnect);
 
-            if (wrapper == null) return;
+        if (wrapper == null) return;
 
-            checkClickWindow(wrapper, event);
-        }
+        checkClickWindow(wrapper, event);
     }
 
     private void checkClickWindow(WrapperPlayClientClickWindow wrapper, PacketReceiveEvent event) {
@@ -721,33 +810,53 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
             }
         }
 
-        ItemStack carriedItemStack = wrapper.getCarriedItemStack();
         checkButtonClickPosition(event, wrapper);
-        checkItemStack(event, carriedItemStack);
         checkForInvalidSlot(event, wrapper);
         checkInvalidClick(wrapper, event);
     }
 
-    private void checkItemStack(PacketReceiveEvent event, ItemStack itemStack) {
-        if (itemStack == null || itemStack.getNBT() == null) return;
-        checkItemStackTag(event, itemStack);
-        checkGenericBookPages(event, itemStack);
-        checkGenericNBTLimit(event, itemStack);
-        checkLanguageExploit(event, itemStack);
-        checkAttributes(event, itemStack);
-        checkInvalidNbt(event, itemStack);
-        checkForInvalidBanner(event, itemStack);
-        checkForInvalidArmorStand(event, itemStack);
-        checkForInvalidContainer(event, itemStack);
-        checkForInvalidShulker(event, itemStack);
-        checkNbtTags(event, itemStack);
-    }
-
-    private void checkGenericBookPages(PacketReceiveEvent event, ItemStack itemStack) {
-
-        if (itemStack == null || itemStack.getNBT() == null) return;
-
-        NBTList<NBTString> pages = itemStack.getNBT().getStringListTagOrNull("pages");
+    /**
+     * Registers the item rules of this check at the item inspector of the player. The tag rules collect the state
+     * of an item while the inspector walks it, the item end rules check that state together with the encoded size
+     * the walk measured, so every item is walked once for all rules.
+     *
+     * @param rules the rule set of this check
+     */
+    private void registerItemRules(NBTRuleSet rules) {
+        rules.onItem(this::resetItemState)
+            .onItem(this::checkBookTags)
+            .onItem(this::checkTagAmount)
+            .onRootPath("pages", this::checkGenericBookPages)
+            .onRootPath("AttributeModifiers", this::checkAttributes)
+            .onRootPath("Items", this::checkInvalidItems)
+            .onRootPath("ChargedProjectiles", this::checkProjectileTags)
+            .onRootPath("CustomModelData", this::checkCustomModelData)
+            .onRootPath("BlockEntityTag.Patterns", this::checkForInvalidBanner)
+            .onRootPath("EntityTag.Pose", this::checkInvalidPoses)
+            .onRootPath("EntityTag.CustomName", this::checkInvalidCustomName)
+            .onRootPath("EntityTag.Equipment", this::checkInvalidSkullOwner)
+            .onRootPath("EntityTag.Rotation", this::checkInvalidRotation)
+            .onType(LIST, this::checkRootList)
+            .onType(LIST, this::checkNestedExtra)
+            .onTagEnd(this::checkRootListElement)
+            .onTagEnd(this::checkTagContent)
+            .onItemEnd(this::checkItemSize)
+            .onItemEnd(this::checkItemContent);
+    }
+
+    private void resetItemState(NBTInspection inspection, NBT root) {
+        oversizedLists.clear();
+        listContent = 0;
+        listAmount = 0;
+        translateCount = 0;
+        snooperRequest = false;
+        wurstContainer = false;
+        nestedExtra = false;
+    }
+
+    private void checkGenericBookPages(NBTInspection inspection, NBT nbt) {
+        PacketReceiveEvent event = inspection.getEvent();
+        NBTList<NBTString> pages = inspection.parent().getStringListTagOrNull("pages");
 
         if (pages == null) return;
 
@@ -779,33 +888,77 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         return totalLength;
     }
 
-    private void checkLanguageExploit(PacketReceiveEvent event, ItemStack itemStack) {
+    private void checkTagContent(NBTInspection inspection, NBT nbt) {
+        // List elements share the key of their list, which was checked with the list
+        if (inspection.index() < 0) {
+            checkText(inspection.key());
+        }
+        if (nbt instanceof NBTString) {
+            checkText(((NBTString) nbt).getValue());
+        }
+    }
 
-        if (itemStack == null || itemStack.getNBT() == null) return;
+    private void checkText(String text) {
+        translateCount += FormatUtils.countOccurrences(text, "translate");
+        snooperRequest |= text.contains("options.snooper.desc");
+        wurstContainer |= text.contains(WURSTCLIENT_URL);
+    }
 
-        String mapped = FormatUtils.mapToString(itemStack.getNBT().getTags());
+    /**
+     * Checks the item for raw translate requests and clears its NBT if it contains any. Oversized lists are
+     * removed after the walk, as the tree must not change while it is inspected.
+     */
+    private void checkItemContent(NBTInspection inspection, NBT root) {
+        PacketReceiveEvent event = inspection.getEvent();
+        ItemStack itemStack = inspection.getItemStack();
 
-        if (mapped.contains("translate") || mapped.contains("options.snooper.desc")
-            || FormatUtils.countOccurrences(mapped, "translate") > 20) {
+        if (nestedExtra && isBook(itemStack)) {
+            dispatch(event, ViolationDocument.builder()
+                .mitigationStrategy(MitigationStrategy.MITIGATE)
+                .description("send tag with invalid extra")
+                .debugs(Arrays.asList(
+                    new Debug<>("Tag", "Extra"),
+                    new Debug<>("Extra", "Array")
+                ))
+                .build());
+        }
+
+        if (wurstContainer && isContainerItem(itemStack)) {
+            dispatch(event, ViolationDocument.builder()
+                .description("send invalid container")
+                .mitigationStrategy(MitigationStrategy.BAN)
+                .debugs(Collections.singletonList(new Debug<>("Tag", "WurstClient")))
+                .build());
+        }
 
+        if (translateCount > 0 || snooperRequest) {
             dispatch(event, ViolationDocument.builder()
                 .mitigationStrategy(MitigationStrategy.MITIGATE)
                 .description("send raw translate request")
                 .debugs(Arrays.asList(
-                    new Debug<>("Contains", mapped.contains("translate")),
-                    new Debug<>("Snooper", mapped.contains("options.snooper.desc")),
-                    new Debug<>("Count", FormatUtils.countOccurrences(mapped, "translate")),
+                    new Debug<>("Contains", translateCount > 0),
+                    new Debug<>("Snooper", snooperRequest),
+                    new Debug<>("Count", translateCount),
                     new Debug<>("Max Count", 20)
                 )).build());
             itemStack.setNBT(new NBTCompound());
+            return;
+        }
+
+        for (String key : oversizedLists) {
+            ((NBTCompound) root).removeTag(key);
         }
     }
 
-    private void checkAttributes(ProtocolPacketEvent event, ItemStack itemStack) {
-        if (!hasAttributeModifiers(itemStack)) return;
-        List<NBTCompound> tags = getAttributeModifiers(itemStack);
+    private void checkAttributes(NBTInspection inspection, NBT nbt) {
+        checkAttributes(inspection.getEvent(), inspection.parent());
+    }
+
+    private void checkAttributes(ProtocolPacketEvent event, NBTCompound nbt) {
+        NBTList<NBTCompound> modifiers = nbt.getCompoundListTagOrNull("AttributeModifiers");
+        if (modifiers == null) return;
         boolean vanillaMapping = useVanillaAttributeMapping();
-        for (NBTCompound tag : tags) {
+        for (NBTCompound tag : modifiers.getTags()) {
             AttributeMapper attributeMapper = getAttributeMapper(tag);
             if (attributeMapper != null) {
                 handleAttributeViolation(event, vanillaMapping, attributeMapper, tag);
@@ -818,26 +971,15 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         return AttributeMapper.getAttributeMapper(tag.getStringTagOrNull("AttributeName").getValue());
     }
 
-    private boolean hasAttributeModifiers(ItemStack itemStack) {
-        return itemStack.getNBT() != null && itemStack.getNBT().getCompoundListTagOrNull("AttributeModifiers") != null;
+    private int genericNbtLimit() {
+        return playerData.getClientVersion().isNewerThanOrEquals(ClientVersion.V_1_16) ? 30000 : 25000;
     }
 
-    private List<NBTCompound> getAttributeModifiers(ItemStack itemStack) {
-        //noinspection DataFlowIssue
-        return itemStack.getNBT().getCompoundListTagOrNull("AttributeModifiers").getTags();
-    }
-
-    public void checkGenericNBTLimit(PacketReceiveEvent event, ItemStack itemStack) {
-        if (!configEngine().config().getBoolean("generic-nbt-limit", true)) {
+    private void checkGenericNBTLimit(PacketReceiveEvent event, long length, int limit) {
+        if (!settings().isGenericNbtLimit()) {
             return;
         }
 
-        if (itemStack == null || itemStack.getNBT() == null) return;
-
-        int length = FormatUtils.mapToString(itemStack.getNBT().getTags()).length();
-
-        int limit = playerData.getClientVersion().isNewerThanOrEquals(ClientVersion.V_1_16) ? 30000 : 25000;
-
         if (length > limit) {
 
             dispatch(event, ViolationDocument.builder()
@@ -883,7 +1025,7 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
     }
 
     private boolean useVanillaAttributeMapping() {
-        return configEngine().config().getBoolean("use-vanilla-attribute-mapping", true);
+        return settings().isUseVanillaAttributeMapping();
     }
 
     private boolean isAmountInvalid(boolean vanillaMapping, AttributeMapper attributeMapper, double amount) {
@@ -894,10 +1036,9 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         return Math.abs(amount) > 5.000;
     }
 
-    private void checkInvalidNbt(PacketReceiveEvent event, ItemStack itemStack) {
-        if (itemStack == null || itemStack.getNBT() == null) return;
-        NBTCompound nbt = itemStack.getNBT();
-        NBTList<NBTCompound> items = nbt.getTagListOfTypeOrNull("Items", NBTCompound.class);
+    private void checkInvalidItems(NBTInspection inspection, NBT nbt) {
+        PacketReceiveEvent event = inspection.getEvent();
+        NBTList<NBTCompound> items = inspection.parent().getTagListOfTypeOrNull("Items", NBTCompound.class);
         if (items != null) {
             if (items.size() > 64) {
                 dispatch(event, ViolationDocument.builder()
@@ -910,8 +1051,6 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
                 checkItemTag(tag, event);
             }
         }
-        checkProjectileTags(nbt, event);
-        checkCustomModelData(nbt, event);
     }
 
     private void checkItemTag(NBTCompound tag, PacketReceiveEvent event) {
@@ -931,8 +1070,10 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         }
     }
 
-    private void checkProjectileTags(NBTCompound nbt, PacketReceiveEvent event) {
-        NBTList<NBTCompound> chargedProjectiles = nbt.getTagListOfTypeOrNull("ChargedProjectiles", NBTCompound.class);
+    private void checkProjectileTags(NBTInspection inspection, NBT nbt) {
+        PacketReceiveEvent event = inspection.getEvent();
+        NBTList<NBTCompound> chargedProjectiles = inspection.parent()
+            .getTagListOfTypeOrNull("ChargedProjectiles", NBTCompound.class);
         if (chargedProjectiles != null) {
             for (NBTCompound tag : chargedProjectiles.getTags()) {
                 NBTCompound tag1 = tag.getCompoundTagOrNull("tag");
@@ -951,9 +1092,9 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         }
     }
 
-    private void checkCustomModelData(NBTCompound nbt, PacketReceiveEvent event) {
-
-        NBTInt customModelData = nbt.getTagOfTypeOrNull("CustomModelData", NBTInt.class);
+    private void checkCustomModelData(NBTInspection inspection, NBT nbt) {
+        PacketReceiveEvent event = inspection.getEvent();
+        NBTInt customModelData = nbt instanceof NBTInt ? (NBTInt) nbt : null;
 
         ServerVersion currentVersion = PacketEvents.getAPI().getServerManager().getVersion();
         boolean isVersion1_14OrNewer = currentVersion.isNewerThanOrEquals(ServerVersion.V_1_14);
@@ -1036,13 +1177,8 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         }
     }
 
-    private void checkForInvalidShulker(PacketReceiveEvent event, ItemStack itemStack) {
-
-        if (itemStack == null || itemStack.getNBT() == null) return;
-
+    private void checkForInvalidShulker(PacketReceiveEvent event, ItemStack itemStack, long length) {
         if (isShulkerBox(itemStack)) {
-            String string = FormatUtils.mapToString(itemStack.getNBT().getTags());
-            int length = string.getBytes(StandardCharsets.UTF_8).length;
             if (length > 10000) {
 
                 dispatch(event, ViolationDocument.builder()
@@ -1063,11 +1199,13 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         }
     }
 
-    private void checkForInvalidContainer(PacketReceiveEvent event, ItemStack itemStack) {
-        if (isContainerItem(itemStack)) {
-            //noinspection DataFlowIssue
-            String string = FormatUtils.mapToString(itemStack.getNBT().getTags());
-            checkForInvalidSizeAndPresence(event, string);
+    private void checkForInvalidContainer(PacketReceiveEvent event, ItemStack itemStack, long length) {
+        if (isContainerItem(itemStack) && length > MAX_BYTE_SIZE) {
+            dispatch(event, ViolationDocument.builder()
+                .description("send to big container")
+                .mitigationStrategy(MitigationStrategy.KICK)
+                .debugs(Arrays.asList(new Debug<>("Size", length), new Debug<>("Max", MAX_BYTE_SIZE)))
+                .build());
         }
     }
 
@@ -1076,186 +1214,217 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
                || itemStack.getType() == ItemTypes.HOPPER_MINECART || itemStack.getType() == ItemTypes.CHEST_MINECART;
     }
 
-    private void checkForInvalidSizeAndPresence(PacketReceiveEvent event, String string) {
-        if (string.getBytes(StandardCharsets.UTF_8).length > MAX_BYTE_SIZE) {
+    /**
+     * Checks whether the current tag is a list stored directly in the top-level item, or an element of one.
+     */
+    private static boolean isRootList(NBTInspection inspection) {
+        return !inspection.isNestedItem() && inspection.relativeDepth() == 1;
+    }
+
+    private void checkRootList(NBTInspection inspection, NBT nbt) {
+        if (!isRootList(inspection) || inspection.index() >= 0) return;
+
+        PacketReceiveEvent event = inspection.getEvent();
+        NBTList<?> list = (NBTList<?>) nbt;
+        NBTType<?> elementType = list.getTagsType();
+
+        if (elementType.equals(COMPOUND) && list.size() > 50) {
             dispatch(event, ViolationDocument.builder()
-                .description("send to big container")
+                .description("send invalid nbt list size")
                 .mitigationStrategy(MitigationStrategy.KICK)
-                .debugs(Arrays.asList(
-                    new Debug<>("Size", string.getBytes(StandardCharsets.UTF_8).length),
-                    new Debug<>("Max", MAX_BYTE_SIZE)
-                ))
+                .debugs(Arrays.asList(new Debug<>("Size", list.size()), new Debug<>("Max", 50)))
                 .build());
         }
-        if (string.contains(WURSTCLIENT_URL)) {
+        if (++listContent > 10) {
             dispatch(event, ViolationDocument.builder()
-                .description("send invalid container")
-                .mitigationStrategy(MitigationStrategy.BAN)
-                .debugs(Collections.singletonList(new Debug<>("Tag", "WurstClient")))
+                .description("send too many invalid nbt list")
+                .mitigationStrategy(MitigationStrategy.KICK)
+                .debugs(Collections.singletonList(new Debug<>("Content", listContent)))
                 .build());
         }
+
+        if (elementType.equals(INT_ARRAY)) {
+            checkArrayListSize(event, list, "send invalid int array");
+        } else if (elementType.equals(LONG_ARRAY)) {
+            checkArrayListSize(event, list, "send invalid long array");
+        } else if (elementType.equals(BYTE_ARRAY)) {
+            checkArrayListSize(event, list, "send invalid byte array");
+        } else if (elementType.equals(LIST)) {
+            checkListOfLists(event, inspection.key(), list);
+        }
     }
 
-    private void checkNbtTags(PacketReceiveEvent event, ItemStack itemStack) {
-        if (itemStack.getNBT() != null) {
-            itemStack.getNBT().getTags().forEach((s, nbt) -> {
-                NBTType<?> nbtType = nbt.getType();
-                if (nbtType.equals(LIST)) {
-                    checkList(s, event, itemStack);
-                } else if (nbtType.equals(INT_ARRAY)) {
-                    checkIntArray(s, event, itemStack);
-                } else if (nbtType.equals(LONG_ARRAY)) {
-                    checkLongArray(s, event, itemStack);
-                } else if (nbtType.equals(BYTE_ARRAY)) {
-                    checkByteArray(s, event, itemStack);
-                }
-            });
+    /**
+     * Flags a list of compounds with a nested extra list, like {@code [{extra:[{...}]}]}, checked for books at the end
+     * of the item.
+     */
+    private void checkNestedExtra(NBTInspection inspection, NBT nbt) {
+        if (!"extra".equals(inspection.key()) || inspection.index() >= 0 || !inspection.isParentListElement()) return;
+
+        NBTList<?> extra = (NBTList<?>) nbt;
+        if (extra.getTagsType().equals(COMPOUND) && !extra.isEmpty()) {
+            nestedExtra = true;
         }
-        this.listContent.set(0);
     }
 
-    private void checkList(String s, PacketReceiveEvent event, ItemStack itemStack) {
-        //noinspection DataFlowIssue
-        NBTList<NBTCompound> tagOrNull = itemStack.getNBT().getCompoundListTagOrNull(s);
-        if (tagOrNull != null) {
-            if (tagOrNull.getTags().size() > 50) {
+    private void checkArrayListSize(PacketReceiveEvent event, NBTList<?> list, String description) {
+        if (list.size() > 50) {
+            dispatch(event, ViolationDocument.builder()
+                .mitigationStrategy(MitigationStrategy.KICK)
+                .description(description)
+                .debugs(Collections.singletonList(new Debug<>("Tag", "Size")))
+                .build());
+        }
+    }
+
+    private void checkListOfLists(PacketReceiveEvent event, String key, NBTList<?> list) {
+        if (++listAmount > 10) {
+            dispatch(event, ViolationDocument.builder()
+                .mitigationStrategy(MitigationStrategy.MITIGATE)
+                .description("send tag with too many lists")
+                .debugs(Collections.singletonList(new Debug<>("Lists", listAmount)))
+                .build());
+        }
+
+        if (list.size() > 20) {
+            dispatch(event, ViolationDocument.builder()
+                .mitigationStrategy(MitigationStrategy.MITIGATE)
+                .description("send tag with big list")
+                .debugs(Arrays.asList(
+                    new Debug<>("Size", list.size()),
+                    new Debug<>("Tag", key)
+                ))
+                .build());
+            oversizedLists.add(key);
+        }
+    }
+
+    /**
+     * Checks an element of a list stored directly in the top-level item, with its encoded size measured by the walk.
+     */
+    private void checkRootListElement(NBTInspection inspection, NBT nbt) {
+        if (!isRootList(inspection) || inspection.index() < 0) return;
+
+        // Elements of nested lists share the depth and the key of the top-level list
+        NBT parentTag = inspection.parent().getTagOrNull(inspection.key());
+        if (!(parentTag instanceof NBTList)) return;
+        NBTList<?> list = (NBTList<?>) parentTag;
+        int index = inspection.index();
+        if (index >= list.size() || list.getTag(index) != nbt) return;
+
+        PacketReceiveEvent event = inspection.getEvent();
+        NBTType<?> elementType = list.getTagsType();
+        if (elementType.equals(COMPOUND)) {
+            if (nbt == null || inspection.getTagSize() > 900) {
                 dispatch(event, ViolationDocument.builder()
-                    .description("send invalid nbt list size")
+                    .description("send invalid nbt list")
                     .mitigationStrategy(MitigationStrategy.KICK)
-                    .debugs(Arrays.asList(new Debug<>("Size", tagOrNull.getTags().size()), new Debug<>("Max", 50)))
+                    .debugs(Arrays.asList(
+                        new Debug<>("Size", list.size()),
+                        new Debug<>("Tag", "Null/Length")
+                    ))
                     .build());
             }
-            for (NBTCompound tag : tagOrNull.getTags()) {
-                if (tag == null || tag.toString().equalsIgnoreCase("null") || tag.toString().length() > 900) {
+        } else if (elementType.equals(LIST)) {
+            checkListContent(inspection, nbt, list.size(), index);
+        } else if (nbt instanceof NBTIntArray) {
+            checkIntArray(event, (NBTIntArray) nbt);
+        } else if (nbt instanceof NBTLongArray) {
+            checkLongArray(event, (NBTLongArray) nbt);
+        } else if (nbt instanceof NBTByteArray) {
+            checkByteArray(event, (NBTByteArray) nbt);
+        }
+    }
 
-                    dispatch(event, ViolationDocument.builder()
-                        .description("send invalid nbt list")
-                        .mitigationStrategy(MitigationStrategy.KICK)
-                        .debugs(Arrays.asList(
-                            new Debug<>("Size", tagOrNull.getTags().size()),
-                            new Debug<>("Tag", "Null/Length")
-                        ))
-                        .build());
-                }
-            }
+    private void checkListContent(NBTInspection inspection, NBT content, int size, int index) {
+        if (content == null) {
+            dispatch(inspection.getEvent(), ViolationDocument.builder()
+                .mitigationStrategy(MitigationStrategy.MITIGATE)
+                .description("send tag with invalid list content")
+                .debugs(Arrays.asList(
+                    new Debug<>("Size", size),
+                    new Debug<>("Tag", inspection.key()),
+                    new Debug<>("Index", index)
+                ))
+                .build());
+        } else if (inspection.getTagSize() > 90) {
+            dispatch(inspection.getEvent(), ViolationDocument.builder()
+                .mitigationStrategy(MitigationStrategy.MITIGATE)
+                .description("send tag with invalid list content")
+                .debugs(Arrays.asList(
+                    new Debug<>("Size", size),
+                    new Debug<>("Tag", inspection.key()),
+                    new Debug<>("Index", index),
+                    new Debug<>("Content", inspection.getTagSize())
+                )).build());
         }
-        if (listContent.incrementAndGet() > 10) {
+    }
+
+    private void checkIntArray(PacketReceiveEvent event, NBTIntArray tag) {
+        if (tag.getValue().length > 150) {
             dispatch(event, ViolationDocument.builder()
-                .description("send too many invalid nbt list")
                 .mitigationStrategy(MitigationStrategy.KICK)
-                .debugs(Collections.singletonList(new Debug<>("Content", listContent.get())))
+                .description("send invalid int array")
+                .debugs(Collections.singletonList(new Debug<>("Tag", "Length")))
                 .build());
         }
-    }
-
-    private void checkIntArray(String key, PacketReceiveEvent event, ItemStack itemStack) {
-        //noinspection DataFlowIssue
-        NBTList<NBTIntArray> tagListOfTypeOrNull = itemStack.getNBT().getTagListOfTypeOrNull(key, NBTIntArray.class);
-        if (tagListOfTypeOrNull != null) {
-            if (tagListOfTypeOrNull.size() > 50) {
+        for (int i : tag.getValue()) {
+            if (i == Integer.MAX_VALUE || i == Integer.MIN_VALUE) {
                 dispatch(event, ViolationDocument.builder()
                     .mitigationStrategy(MitigationStrategy.KICK)
                     .description("send invalid int array")
-                    .debugs(Collections.singletonList(new Debug<>("Tag", "Size")))
+                    .debugs(Collections.singletonList(new Debug<>("Tag", "MAX")))
                     .build());
             }
-            for (NBTIntArray tag : tagListOfTypeOrNull.getTags()) {
-                if (tag.getValue().length > 150) {
-                    dispatch(event, ViolationDocument.builder()
-                        .mitigationStrategy(MitigationStrategy.KICK)
-                        .description("send invalid int array")
-                        .debugs(Collections.singletonList(new Debug<>("Tag", "Length")))
-                        .build());
-                }
-                for (int i : tag.getValue()) {
-                    if (i == Integer.MAX_VALUE || i == Integer.MIN_VALUE) {
-                        dispatch(event, ViolationDocument.builder()
-                            .mitigationStrategy(MitigationStrategy.KICK)
-                            .description("send invalid int array")
-                            .debugs(Collections.singletonList(new Debug<>("Tag", "MAX")))
-                            .build());
-                    }
-                }
-            }
         }
     }
 
-    private void checkLongArray(String key, PacketReceiveEvent event, ItemStack itemStack) {
-        //noinspection DataFlowIssue
-        NBTList<NBTLongArray> tagListOfTypeOrNull = itemStack.getNBT().getTagListOfTypeOrNull(key, NBTLongArray.class);
-        if (tagListOfTypeOrNull != null) {
-            if (tagListOfTypeOrNull.size() > 50) {
+    private void checkLongArray(PacketReceiveEvent event, NBTLongArray tag) {
+        if (tag.getValue().length > 150) {
+            dispatch(event, ViolationDocument.builder()
+                .mitigationStrategy(MitigationStrategy.KICK)
+                .description("send invalid long array")
+                .debugs(Collections.singletonList(new Debug<>("Tag", "Length")))
+                .build());
+        }
+        for (long i : tag.getValue()) {
+            if (i == Long.MAX_VALUE || i == Long.MIN_VALUE) {
                 dispatch(event, ViolationDocument.builder()
                     .mitigationStrategy(MitigationStrategy.KICK)
                     .description("send invalid long array")
-                    .debugs(Collections.singletonList(new Debug<>("Tag", "Size")))
+                    .debugs(Collections.singletonList(new Debug<>("Tag", "Max")))
                     .build());
             }
-            for (NBTLongArray tag : tagListOfTypeOrNull.getTags()) {
-                if (tag.getValue().length > 150) {
-                    dispatch(event, ViolationDocument.builder()
-                        .mitigationStrategy(MitigationStrategy.KICK)
-                        .description("send invalid long array")
-                        .debugs(Collections.singletonList(new Debug<>("Tag", "Length")))
-                        .build());
-                }
-                for (long i : tag.getValue()) {
-                    if (i == Long.MAX_VALUE || i == Long.MIN_VALUE) {
-                        dispatch(event, ViolationDocument.builder()
-                            .mitigationStrategy(MitigationStrategy.KICK)
-                            .description("send invalid long array")
-                            .debugs(Collections.singletonList(new Debug<>("Tag", "Max")))
-                            .build());
-                    }
-                }
-            }
         }
     }
 
-    private void checkByteArray(String key, PacketReceiveEvent event, ItemStack itemStack) {
-        //noinspection DataFlowIssue
-        NBTList<NBTByteArray> tagListOfTypeOrNull = itemStack.getNBT().getTagListOfTypeOrNull(key, NBTByteArray.class);
-        if (tagListOfTypeOrNull != null) {
-            if (tagListOfTypeOrNull.size() > 50) {
+    private void checkByteArray(PacketReceiveEvent event, NBTByteArray tag) {
+        if (tag.getValue().length > 150) {
+            dispatch(event, ViolationDocument.builder()
+                .mitigationStrategy(MitigationStrategy.KICK)
+                .description("send invalid byte array")
+                .debugs(Collections.singletonList(new Debug<>("Tag", "Length")))
+                .build());
+        }
+        for (byte i : tag.getValue()) {
+            if (i == Byte.MAX_VALUE || i == Byte.MIN_VALUE) {
                 dispatch(event, ViolationDocument.builder()
                     .mitigationStrategy(MitigationStrategy.KICK)
                     .description("send invalid byte array")
-                    .debugs(Collections.singletonList(new Debug<>("Tag", "Size")))
+                    .debugs(Collections.singletonList(new Debug<>("Tag", "Max")))
                     .build());
             }
-            for (NBTByteArray tag : tagListOfTypeOrNull.getTags()) {
-                if (tag.getValue().length > 150) {
-                    dispatch(event, ViolationDocument.builder()
-                        .mitigationStrategy(MitigationStrategy.KICK)
-                        .description("send invalid byte array")
-                        .debugs(Collections.singletonList(new Debug<>("Tag", "Length")))
-                        .build());
-                }
-                for (byte i : tag.getValue()) {
-                    if (i == Byte.MAX_VALUE || i == Byte.MIN_VALUE) {
-                        dispatch(event, ViolationDocument.builder()
-                            .mitigationStrategy(MitigationStrategy.KICK)
-                            .description("send invalid byte array")
-                            .debugs(Collections.singletonList(new Debug<>("Tag", "Max")))
-                            .build());
-                    }
-                }
-            }
         }
     }
 
-    private void checkForInvalidArmorStand(PacketReceiveEvent event, ItemStack itemStack) {
-        if (itemStack.getType() != ItemTypes.ARMOR_STAND || itemStack.getNBT() == null) return;
-        NBTCompound entityTag = itemStack.getNBT().getCompoundTagOrNull("EntityTag");
-        if (entityTag == null) return;
-        checkInvalidPoses(event, entityTag);
-        checkInvalidCustomName(event, entityTag);
-        checkInvalidSkullOwner(event, entityTag);
-        checkInvalidRotation(event, entityTag);
+    private boolean isArmorStand(NBTInspection inspection) {
+        return inspection.getItemStack().getType() == ItemTypes.ARMOR_STAND;
     }
 
-    private void checkInvalidPoses(PacketReceiveEvent event, NBTCompound entityTag) {
-        NBTCompound pose = entityTag.getCompoundTagOrNull("Pose");
+    private void checkInvalidPoses(NBTInspection inspection, NBT nbt) {
+        if (!isArmorStand(inspection)) return;
+        PacketReceiveEvent event = inspection.getEvent();
+        NBTCompound pose = nbt instanceof NBTCompound ? (NBTCompound) nbt : null;
         if (pose != null) {
             invalidPoseAngles(event, pose, "Head");
             invalidPoseAngles(event, pose, "Body");
@@ -1266,8 +1435,10 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         }
     }
 
-    private void checkInvalidCustomName(PacketReceiveEvent event, NBTCompound entityTag) {
-        NBTString customName = entityTag.getStringTagOrNull("CustomName");
+    private void checkInvalidCustomName(NBTInspection inspection, NBT nbt) {
+        if (!isArmorStand(inspection)) return;
+        PacketReceiveEvent event = inspection.getEvent();
+        NBTString customName = nbt instanceof NBTString ? (NBTString) nbt : null;
         if (customName != null && customName.getValue().length() > 70) {
             dispatch(event, ViolationDocument.builder()
                 .mitigationStrategy(MitigationStrategy.MITIGATE)
@@ -1277,8 +1448,10 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         }
     }
 
-    private void checkInvalidSkullOwner(PacketReceiveEvent event, NBTCompound entityTag) {
-        NBTList<NBTCompound> equipment = entityTag.getCompoundListTagOrNull("Equipment");
+    private void checkInvalidSkullOwner(NBTInspection inspection, NBT nbt) {
+        if (!isArmorStand(inspection)) return;
+        PacketReceiveEvent event = inspection.getEvent();
+        NBTList<NBTCompound> equipment = inspection.parent().getCompoundListTagOrNull("Equipment");
         if (equipment != null) {
             for (NBTCompound tag : equipment.getTags()) {
                 checkSkullOwner(event, tag);
@@ -1286,8 +1459,10 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         }
     }
 
-    private void checkInvalidRotation(PacketReceiveEvent event, NBTCompound entityTag) {
-        NBTList<NBTNumber> rotation = entityTag.getNumberListTagOrNull("Rotation");
+    private void checkInvalidRotation(NBTInspection inspection, NBT nbt) {
+        if (!isArmorStand(inspection)) return;
+        PacketReceiveEvent event = inspection.getEvent();
+        NBTList<NBTNumber> rotation = inspection.parent().getNumberListTagOrNull("Rotation");
         if (rotation != null) {
             for (NBTNumber tag : rotation.getTags()) {
                 float armorStandRotation = tag.getAsFloat();
@@ -1337,15 +1512,12 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         }
     }
 
-    private void checkForInvalidBanner(PacketReceiveEvent event, ItemStack itemStack) {
-        if (!isBanner(itemStack) || itemStack.getNBT() == null) {
-            return;
-        }
-        NBTCompound blockEntityTag = itemStack.getNBT().getCompoundTagOrNull("BlockEntityTag");
-        if (blockEntityTag == null) {
+    private void checkForInvalidBanner(NBTInspection inspection, NBT nbt) {
+        if (!isBanner(inspection.getItemStack())) {
             return;
         }
-        NBTList<NBTCompound> tagOrNull = blockEntityTag.getCompoundListTagOrNull("Patterns");
+        PacketReceiveEvent event = inspection.getEvent();
+        NBTList<NBTCompound> tagOrNull = inspection.parent().getCompoundListTagOrNull("Patterns");
         if (tagOrNull == null) {
             return;
         }
@@ -1427,29 +1599,37 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         }
     }
 
+    @Override
+    public Set<PacketType.Play.Server> outgoingPacketTypes() {
+        return OUTGOING_TYPES;
+    }
+
     @Override
     public void handle(PacketSendEvent event, PlayerData playerData) {
 
-        if (!configEngine().config().getBoolean("prevent-protocol-packet", true)) {
+        if (!settings().isPreventProtocolPacket()) {
             return;
         }
 
         if (event.getPacketType() == PacketType.Play.Server.SET_EXPERIENCE) {
 
-            WrapperPlayServerSetExperience wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayServerSetExperience(event), playerData::exceptionDisconnect);
+            WrapperPlayServerSetExperience wrapper = CastUtil.getWrapper(
+                event, WrapperPlayServerSetExperience.class, WrapperPlayServerSetExperience::new,
+                playerData::exceptionDisconnect);
             checkSetExperience(wrapper, event);
 
         } else if (event.getPacketType() == PacketType.Play.Server.WINDOW_ITEMS) {
 
-            WrapperPlayServerWindowItems wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayServerWindowItems(event), playerData::exceptionDisconnect);
+            WrapperPlayServerWindowItems wrapper = CastUtil.getWrapper(
+                event, WrapperPlayServerWindowItems.class, WrapperPlayServerWindowItems::new,
+                playerData::exceptionDisconnect);
 
             checkWindowItems(wrapper, event);
 
         } else if (event.getPacketType() == PacketType.Play.Server.OPEN_WINDOW) {
-            WrapperPlayServerOpenWindow window = CastUtil.getSupplier(
-                () -> new WrapperPlayServerOpenWindow(event), playerData::exceptionDisconnect);
+            WrapperPlayServerOpenWindow window = CastUtil.getWrapper(
+                event, WrapperPlayServerOpenWindow.class, WrapperPlayServerOpenWindow::new,
+                playerData::exceptionDisconnect);
 
             checkOpenWindow(window);
         }
@@ -1460,11 +1640,7 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         boolean isLevelNegative = wrapper.getLevel() < 0;
         boolean totalExperienceNegative = wrapper.getTotalExperience() < 0;
 
-        YamlConfiguration configEngine = Sierra.getPlugin().getSierraConfigEngine().config();
-        boolean skipNegativeExperienceCheck = configEngine.getBoolean(
-            "skip-negative-experience-check",
-            false
-        );
+        boolean skipNegativeExperienceCheck = settings().isSkipNegativeExperienceCheck();
         boolean skipNegativeCheck = wrapper.getExperienceBar() < 0 && !skipNegativeExperienceCheck;
 
         if (isLevelNegative || skipNegativeCheck || totalExperienceNegative) {
@@ -1484,7 +1660,7 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
     private void checkWindowItems(WrapperPlayServerWindowItems wrapper, PacketSendEvent event) {
         for (ItemStack item : wrapper.getItems()) {
             if (item.getNBT() == null) continue;
-            checkAttributes(event, item);
+            checkAttributes(event, item.getNBT());
         }
     }
 
@@ -1508,73 +1684,85 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         this.containerId = window.getContainerId();
     }
 
-    private void checkItemStackTag(PacketReceiveEvent event, ItemStack itemStack) {
-
-        // Check if references are null
-        if (itemStack == null || itemStack.getNBT() == null) return;
-
-        ItemType itemStackType = itemStack.getType();
-        NBTCompound compound = itemStack.getNBT();
-        String formattedTags = FormatUtils.mapToString(compound.getTags());
+    private boolean isBook(ItemStack itemStack) {
+        return itemStack.getType() == ItemTypes.WRITTEN_BOOK || itemStack.getType() == ItemTypes.WRITABLE_BOOK;
+    }
 
-        if (itemStackType == ItemTypes.WRITTEN_BOOK || itemStackType == ItemTypes.WRITABLE_BOOK) {
+    private void checkBookTags(NBTInspection inspection, NBT root) {
+        if (!isBook(inspection.getItemStack())) return;
 
-            if (compound.getStringTagOrNull("author") != null) {
-                String author = compound.getStringTagOrNull("author").getValue();
+        PacketReceiveEvent event = inspection.getEvent();
+        NBTCompound compound = (NBTCompound) root;
+        if (compound.getStringTagOrNull("author") != null) {
+            String author = compound.getStringTagOrNull("author").getValue();
 
-                if (author.length() > 20) {
-                    dispatch(event, ViolationDocument.builder()
-                        .mitigationStrategy(MitigationStrategy.KICK)
-                        .description("send tag with invalid author")
-                        .debugs(Arrays.asList(
-                            new Debug<>("Author", author),
-                            new Debug<>("Length", author.length())
-                        ))
-                        .build());
-                }
-            }
-            if (compound.getStringTagOrNull("title") != null) {
-                String title = compound.getStringTagOrNull("title").getValue();
-                if (title.length() > 32) {
-                    dispatch(event, ViolationDocument.builder()
-                        .mitigationStrategy(MitigationStrategy.MITIGATE)
-                        .description("send tag with invalid title")
-                        .debugs(Arrays.asList(
-                            new Debug<>("Title", title),
-                            new Debug<>("Length", title.length())
-                        ))
-                        .build());
-                }
+            if (author.length() > 20) {
+                dispatch(event, ViolationDocument.builder()
+                    .mitigationStrategy(MitigationStrategy.KICK)
+                    .description("send tag with invalid author")
+                    .debugs(Arrays.asList(
+                        new Debug<>("Author", author),
+                        new Debug<>("Length", author.length())
+                    ))
+                    .build());
             }
-            if (formattedTags.contains(":[{extra:[{")) {
+        }
+        if (compound.getStringTagOrNull("title") != null) {
+            String title = compound.getStringTagOrNull("title").getValue();
+            if (title.length() > 32) {
                 dispatch(event, ViolationDocument.builder()
                     .mitigationStrategy(MitigationStrategy.MITIGATE)
-                    .description("send tag with invalid extra")
+                    .description("send tag with invalid title")
                     .debugs(Arrays.asList(
-                        new Debug<>("Tag", "Extra"),
-                        new Debug<>("Extra", "Array")
+                        new Debug<>("Title", title),
+                        new Debug<>("Length", title.length())
                     ))
                     .build());
             }
         }
+    }
+
+    private void checkTagAmount(NBTInspection inspection, NBT root) {
+        NBTCompound compound = (NBTCompound) root;
+        if (compound.getTags().size() > 20) {
+            dispatch(inspection.getEvent(), ViolationDocument.builder()
+                .mitigationStrategy(MitigationStrategy.MITIGATE)
+                .description("send tag with too many keys")
+                .debugs(Collections.singletonList(new Debug<>("Tags", compound.getTags().size()))
+                ).build());
+        }
+    }
+
+    /**
+     * Checks the encoded size of an item, which the inspector measured while it walked the item.
+     */
+    private void checkItemSize(NBTInspection inspection, NBT root) {
+        PacketReceiveEvent event = inspection.getEvent();
+        ItemStack itemStack = inspection.getItemStack();
+        ItemType itemStackType = itemStack.getType();
+        long encodedLength = inspection.getSize();
+
+        checkGenericNBTLimit(event, encodedLength, genericNbtLimit());
+        checkForInvalidShulker(event, itemStack, encodedLength);
+        checkForInvalidContainer(event, itemStack, encodedLength);
 
         if (itemStackType == ItemTypes.FIREWORK_ROCKET) {
-            if (formattedTags.length() > 300) {
+            if (encodedLength > 300) {
                 dispatch(event, ViolationDocument.builder()
                     .mitigationStrategy(MitigationStrategy.MITIGATE)
                     .description("send firework-tag with invalid length")
-                    .debugs(Collections.singletonList(new Debug<>("Length", formattedTags.length())))
+                    .debugs(Collections.singletonList(new Debug<>("Length", encodedLength)))
                     .build());
             }
         }
 
         if (itemStackType == ItemTypes.FIREWORK_STAR) {
-            if (formattedTags.length() > 800) {
+            if (encodedLength > 800) {
                 dispatch(event, ViolationDocument.builder()
                     .mitigationStrategy(MitigationStrategy.MITIGATE)
                     .description("send firework-tag with invalid length")
                     .debugs(Arrays.asList(
-                        new Debug<>("Length", formattedTags.length()),
+                        new Debug<>("Length", encodedLength),
                         new Debug<>("Tag", "Star")
                     ))
                     .build());
@@ -1582,78 +1770,18 @@ public class ProtocolValidation extends SierraDetection implements IngoingProces
         }
 
         if (itemStackType != ItemTypes.CHEST && itemStackType != ItemTypes.HOPPER && !isShulkerBox(itemStack)) {
-            int encodedLength = formattedTags.getBytes(StandardCharsets.UTF_8).length;
-            if (encodedLength > 10000) {
+            if (encodedLength > MAX_TAG_LENGTH) {
                 dispatch(event, ViolationDocument.builder()
                     .mitigationStrategy(MitigationStrategy.MITIGATE)
                     .description("send tag with invalid encoded-length")
-                    .debugs(Collections.singletonList(new Debug<>("Length", encodedLength)))
+                    .debugs(Arrays.asList(
+                        new Debug<>("Length", encodedLength),
+                        new Debug<>("Depth", inspection.getMaxDepth()),
+                        new Debug<>("Nodes", inspection.getNodes())
+                    ))
                     .build());
             }
         }
-
-        AtomicInteger listAmount = new AtomicInteger(0);
-        compound.getTags().forEach((s, nbt) -> {
-            if (compound.getTagListOfTypeOrNull(s, nbt.getType().getNBTClass()) != null) {
-                NBTList<?> list = compound.getTagListOfTypeOrNull(s, nbt.getType().getNBTClass());
-
-                listAmount.set(listAmount.get() + 1);
-
-                if (listAmount.get() > 10) {
-                    dispatch(event, ViolationDocument.builder()
-                        .mitigationStrategy(MitigationStrategy.MITIGATE)
-                        .description("send tag with too many lists")
-                        .debugs(Collections.singletonList(new Debug<>("Lists", listAmount.get())))
-                        .build());
-                }
-
-                final int size = list.size();
-                if (size > 20) {
-                    dispatch(event, ViolationDocument.builder()
-                        .mitigationStrategy(MitigationStrategy.MITIGATE)
-                        .description("send tag with big list")
-                        .debugs(Arrays.asList(
-                            new Debug<>("Size", size),
-                            new Debug<>("Tag", s)
-                        ))
-                        .build());
-                    compound.removeTag(s);
-                }
-                for (int i = 0; i < list.size(); ++i) {
-                    final String content = String.valueOf(list.getTag(i));
-                    if (content == null || content.equalsIgnoreCase("null")) {
-                        dispatch(event, ViolationDocument.builder()
-                            .mitigationStrategy(MitigationStrategy.MITIGATE)
-                            .description("send tag with invalid list content")
-                            .debugs(Arrays.asList(
-                                new Debug<>("Size", size),
-                                new Debug<>("Tag", s),
-                                new Debug<>("Index", i)
-                            ))
-                            .build());
-                    }
-                    if (content.length() > 90) {
-                        dispatch(event, ViolationDocument.builder()
-                            .mitigationStrategy(MitigationStrategy.MITIGATE)
-                            .description("send tag with invalid list content")
-                            .debugs(Arrays.asList(
-                                new Debug<>("Size", size),
-                                new Debug<>("Tag", s),
-                                new Debug<>("Index", i),
-                                new Debug<>("Content", content.length())
-                            )).build());
-                    }
-                }
-            }
-        });
-
-        if (compound.getTags().size() > 20) {
-            dispatch(event, ViolationDocument.builder()
-                .mitigationStrategy(MitigationStrategy.MITIGATE)
-                .description("send tag with too many keys")
-                .debugs(Collections.singletonList(new Debug<>("Tags", compound.getTags().size()))
-                ).build());
-        }
     }
 
     private void checkInvalidClick(WrapperPlayClientClickWindow wrapper, PacketReceiveEvent event) {
@@ -0,0 +1,313 @@
+package de.feelix.sierra.check.nbt;
+
+import com.github.retrooper.packetevents.event.PacketReceiveEvent;
+import com.github.retrooper.packetevents.protocol.item.ItemStack;
+import com.github.retrooper.packetevents.protocol.nbt.NBTCompound;
+import de.feelix.sierra.check.violation.ViolationDocument;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The NBTInspection class holds the state of a single walk of an {@link NBTInspector} over the NBT of an item. It
+ * tracks the keys from the root down to the current tag, the item roots nested in the tree and the encoded size
+ * visited so far, and forwards the violations of the rules to the check that owns their {@link NBTRuleSet}. An
+ * instance is reused for every item the inspector walks.
+ * <p>
+ * The nesting of containers, i.e. of {@code Items} lists inside the items of other {@code Items} lists, is limited.
+ * Every item of an allowed container is inspected, the items of a deeper container are only measured and the item
+ * is flagged instead.
+ */
+public class NBTInspection {
+
+    /**
+     * The maximum amount of containers nested in each other.
+     */
+    public static final int MAX_CONTAINER_DEPTH = 30;
+
+    @Getter
+    private PacketReceiveEvent event;
+
+    @Getter
+    private ItemStack itemStack;
+
+    /**
+     * The amount of containers the current tag is nested in, 0 for the tags of the top-level item.
+     */
+    @Getter
+    private int containerDepth;
+
+    /**
+     * Whether the item contains containers nested deeper than {@link #MAX_CONTAINER_DEPTH}.
+     */
+    @Getter
+    private boolean containerOverflow;
+
+    /**
+     * The encoded size in bytes of the tags visited so far. In item end rules, it is the size of the whole item.
+     */
+    @Getter
+    private long size;
+
+    /**
+     * The encoded size in bytes of the current tag including its type id, available in tag end rules.
+     */
+    @Getter
+    private long tagSize;
+
+    /**
+     * The amount of tags visited so far.
+     */
+    @Getter
+    private int nodes;
+
+    /**
+     * The deepest key path visited so far.
+     */
+    @Getter
+    private int maxDepth;
+
+    private boolean[]  active = new boolean[4];
+    private int        activeCount;
+    private NBTRuleSet current;
+    private int        muted;
+
+    private String[]      keys    = new String[16];
+    private NBTCompound[] parents = new NBTCompound[16];
+    private int[]         indices = new int[16];
+    private int           depth;
+
+    private int[]     itemRoots    = new int[8];
+    private boolean[] itemTagRoots = new boolean[8];
+    private int       itemRootCount;
+
+    NBTInspection() {
+    }
+
+    /**
+     * Reports a violation of the running rule to the check that owns it.
+     *
+     * @param violationDocument the violation to dispatch
+     */
+    public void report(ViolationDocument violationDocument) {
+        if (current == null || !active[current.id]) return;
+
+        current.reporter.accept(this, violationDocument);
+        if (current.stopOnReport) {
+            active[current.id] = false;
+            activeCount--;
+        }
+    }
+
+    /**
+     * Retrieves the key of the current tag. List elements share the key of their list.
+     *
+     * @return the key of the current tag, or null at the root
+     */
+    public String key() {
+        return keys[depth];
+    }
+
+    /**
+     * Retrieves the compound that holds the current tag, or the list of the current tag.
+     *
+     * @return the parent compound of the current tag, or null at the root
+     */
+    public NBTCompound parent() {
+        return parents[depth];
+    }
+
+    /**
+     * Retrieves the index of the current tag in its list.
+     *
+     * @return the index of the current list element, or -1 if the current tag is not a list element
+     */
+    public int index() {
+        return indices[depth];
+    }
+
+    /**
+     * Checks whether the compound that holds the current tag is an element of a list.
+     *
+     * @return true if the parent compound is a list element, false otherwise
+     */
+    public boolean isParentListElement() {
+        return depth > 0 && indices[depth - 1] >= 0;
+    }
+
+    /**
+     * Checks whether the current tag belongs to an item nested in the top-level item, e.g. in a shulker box.
+     *
+     * @return true if the current tag belongs to a nested item, false otherwise
+     */
+    public boolean isNestedItem() {
+        return itemRootCount > 1;
+    }
+
+    /**
+     * Retrieves the depth of the current tag below its item root.
+     *
+     * @return the relative depth, 1 for the keys of the item root itself
+     */
+    public int relativeDepth() {
+        return depth - itemRoots[itemRootCount - 1];
+    }
+
+    /**
+     * Checks whether the rules of every rule set stopped or were not selected for the item.
+     *
+     * @return true if no rule is called anymore, false otherwise
+     */
+    public boolean isStopped() {
+        return activeCount == 0;
+    }
+
+    boolean reset(PacketReceiveEvent event, ItemStack itemStack, List<NBTRuleSet> ruleSets) {
+        this.event = event;
+        this.itemStack = itemStack;
+        this.containerDepth = 0;
+        this.containerOverflow = false;
+        this.size = 0;
+        this.tagSize = 0;
+        this.nodes = 0;
+        this.maxDepth = 0;
+        this.muted = 0;
+        this.depth = 0;
+        this.indices[0] = -1;
+        this.itemRootCount = 0;
+        enterItem(true);
+
+        if (active.length < ruleSets.size()) {
+            active = new boolean[ruleSets.size()];
+        }
+        activeCount = 0;
+        for (NBTRuleSet ruleSet : ruleSets) {
+            active[ruleSet.id] = ruleSet.condition.test(this);
+            if (active[ruleSet.id]) activeCount++;
+        }
+        return activeCount > 0;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0, keys.length, null);
+        Arrays.fill(parents, 0, parents.length, null);
+        this.event = null;
+        this.itemStack = null;
+        this.current = null;
+    }
+
+    boolean select(NBTRuleSet ruleSet) {
+        if (!active[ruleSet.id]) return false;
+        current = ruleSet;
+        return true;
+    }
+
+    boolean isMuted() {
+        return muted > 0;
+    }
+
+    boolean matches(String[] path, boolean nested) {
+        if (!nested && isNestedItem()) return false;
+
+        int root = itemRoots[itemRootCount - 1];
+        if (depth - root != path.length) return false;
+
+        // The last key already matched by the lookup of the inspector
+        for (int i = 0; i < path.length - 1; i++) {
+            if (!path[i].equals(keys[root + 1 + i])) return false;
+        }
+        return true;
+    }
+
+    void push(String key, NBTCompound parent) {
+        if (++depth == keys.length) {
+            keys = Arrays.copyOf(keys, depth * 2);
+            parents = Arrays.copyOf(parents, depth * 2);
+            indices = Arrays.copyOf(indices, depth * 2);
+        }
+        keys[depth] = key;
+        parents[depth] = parent;
+        indices[depth] = -1;
+        if (depth > maxDepth) maxDepth = depth;
+    }
+
+    void pop() {
+        keys[depth] = null;
+        parents[depth--] = null;
+    }
+
+    int enterElement(int index) {
+        int previous = indices[depth];
+        indices[depth] = index;
+        return previous;
+    }
+
+    void exitElement(int previous) {
+        indices[depth] = previous;
+    }
+
+    void addSize(long bytes) {
+        size += bytes;
+    }
+
+    void countNode() {
+        nodes++;
+    }
+
+    void endTag(long start) {
+        // The type id is not part of the walked size of a list element or an entry value
+        tagSize = size - start + 1;
+    }
+
+    /**
+     * Enters the items list of a container. A container nested deeper than the limit mutes the rules below it.
+     *
+     * @return false if the container is nested deeper than the limit, true otherwise
+     */
+    boolean enterContainer() {
+        if (containerDepth >= MAX_CONTAINER_DEPTH) {
+            containerOverflow = true;
+            muted++;
+            return false;
+        }
+        containerDepth++;
+        return true;
+    }
+
+    void exitContainer(boolean entered) {
+        if (entered) {
+            containerDepth--;
+        } else {
+            muted--;
+        }
+    }
+
+    void enterNestedItem() {
+        enterItem(false);
+    }
+
+    void enterItemTag() {
+        enterItem(true);
+    }
+
+    void exitItem() {
+        itemRootCount--;
+    }
+
+    /**
+     * Checks whether the current tag is a direct key of a nested item compound, like its id, count or tag.
+     */
+    boolean isItemCompoundKey() {
+        return isNestedItem() && !itemTagRoots[itemRootCount - 1] && relativeDepth() == 1;
+    }
+
+    private void enterItem(boolean tagRoot) {
+        if (itemRootCount == itemRoots.length) {
+            itemRoots = Arrays.copyOf(itemRoots, itemRootCount * 2);
+            itemTagRoots = Arrays.copyOf(itemTagRoots, itemRootCount * 2);
+        }
+        itemTagRoots[itemRootCount] = tagRoot;
+        itemRoots[itemRootCount++] = depth;
+    }
+}
@@ -0,0 +1,274 @@
+package de.feelix.sierra.check.nbt;
+
+import com.github.retrooper.packetevents.event.PacketReceiveEvent;
+import com.github.retrooper.packetevents.protocol.item.ItemStack;
+import com.github.retrooper.packetevents.protocol.nbt.*;
+import de.feelix.sierra.check.violation.ViolationDocument;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * The NBTInspector class walks the NBT tree of an item exactly once and dispatches every tag to the rules registered
+ * for its path or its type. A player has a single inspector, every check registers its rules in its own
+ * {@link NBTRuleSet}. The cost of an inspection therefore scales with the size of the tree, not with the size of
+ * the tree times the amount of rules or checks.
+ * <p>
+ * Paths are dot separated keys relative to an item root, e.g. {@code BlockEntityTag.Patterns}. Lists are transparent
+ * in paths, so the keys of the compounds in a list continue the path of the list. The NBT of the top-level item is
+ * an item root, and so is every compound of an {@code Items} list together with its {@code tag} compound, which
+ * lets the same rules inspect the items stored in shulker boxes and other containers.
+ * <p>
+ * The walk measures the encoded size of the tree on the way, so size limits are checked by tag end and item end
+ * rules instead of measuring the tree again. Containers nested deeper than the limit of the {@link NBTInspection}
+ * are still measured, but no rule is called below them.
+ */
+public class NBTInspector {
+
+    private static final String ITEMS_KEY = "Items";
+    private static final String TAG_KEY   = "tag";
+
+    private final NBTInspection                       inspection   = new NBTInspection();
+    private final List<NBTRuleSet>                    ruleSets     = new ArrayList<>();
+    private final List<Registration>                  itemRules    = new ArrayList<>();
+    private final List<Registration>                  itemEndRules = new ArrayList<>();
+    private final List<Registration>                  tagEndRules  = new ArrayList<>();
+    private final Map<String, List<Registration>>     pathRules    = new HashMap<>();
+    private final Map<NBTType<?>, List<Registration>> typeRules    = new HashMap<>();
+
+    /**
+     * Creates a new rule set for the rules of a check.
+     *
+     * @param condition    decides per item whether the rules of the set are called
+     * @param reporter     dispatches the violations reported by the rules of the set
+     * @param stopOnReport true if the rules of the set should not be called after their first violation
+     * @return the created rule set
+     */
+    public NBTRuleSet ruleSet(Predicate<NBTInspection> condition,
+                              BiConsumer<NBTInspection, ViolationDocument> reporter, boolean stopOnReport) {
+        NBTRuleSet ruleSet = new NBTRuleSet(this, ruleSets.size(), condition, reporter, stopOnReport);
+        ruleSets.add(ruleSet);
+        return ruleSet;
+    }
+
+    /**
+     * Inspects the NBT of the given item with the rules of every rule set whose condition accepts the item.
+     *
+     * @param event     the event the item was sent with
+     * @param itemStack the item to inspect
+     */
+    public void inspect(PacketReceiveEvent event, ItemStack itemStack) {
+        NBTCompound root = itemStack == null ? null : itemStack.getNBT();
+        if (root == null) return;
+
+        try {
+            if (!inspection.reset(event, itemStack, ruleSets)) return;
+
+            call(itemRules, root);
+            if (inspection.isStopped()) return;
+
+            // Type id of the root
+            inspection.addSize(1);
+            inspection.countNode();
+            visitCompound(root);
+            if (inspection.isStopped()) return;
+
+            call(itemEndRules, root);
+        } finally {
+            inspection.clear();
+        }
+    }
+
+    void addItemRule(NBTRuleSet ruleSet, NBTRule rule, boolean end) {
+        (end ? itemEndRules : itemRules).add(new Registration(ruleSet, null, false, rule));
+    }
+
+    void addTagEndRule(NBTRuleSet ruleSet, NBTRule rule) {
+        tagEndRules.add(new Registration(ruleSet, null, false, rule));
+    }
+
+    void addPathRule(NBTRuleSet ruleSet, String path, boolean nested, NBTRule rule) {
+        String[] keys = path.split("\\.");
+        pathRules.computeIfAbsent(keys[keys.length - 1], key -> new ArrayList<>())
+            .add(new Registration(ruleSet, keys, nested, rule));
+    }
+
+    void addTypeRule(NBTRuleSet ruleSet, NBTType<?> type, NBTRule rule) {
+        typeRules.computeIfAbsent(type, key -> new ArrayList<>()).add(new Registration(ruleSet, null, false, rule));
+    }
+
+    private void visitCompound(NBTCompound compound) {
+        for (Map.Entry<String, NBT> entry : compound.getTags().entrySet()) {
+            if (inspection.isStopped()) return;
+            visitTag(compound, entry.getKey(), entry.getValue());
+        }
+        // End tag
+        inspection.addSize(1);
+    }
+
+    private void visitTag(NBTCompound parent, String key, NBT tag) {
+        inspection.push(key, parent);
+        try {
+            // Type id and name of the entry
+            inspection.addSize(3 + utfLength(key));
+            long start = inspection.getSize();
+
+            call(pathRules.get(key), tag);
+            if (inspection.isStopped()) return;
+            visitType(tag);
+            if (inspection.isStopped()) return;
+
+            inspection.countNode();
+            if (tag instanceof NBTCompound) {
+                if (TAG_KEY.equals(key) && inspection.isItemCompoundKey()) {
+                    inspection.enterItemTag();
+                    visitCompound((NBTCompound) tag);
+                    inspection.exitItem();
+                } else {
+                    visitCompound((NBTCompound) tag);
+                }
+            } else if (tag instanceof NBTList) {
+                visitList(key, (NBTList<?>) tag);
+            } else {
+                inspection.addSize(valueSize(tag));
+            }
+            if (inspection.isStopped()) return;
+
+            inspection.endTag(start);
+            call(tagEndRules, tag);
+        } finally {
+            inspection.pop();
+        }
+    }
+
+    private void visitList(String key, NBTList<?> list) {
+        // Element type id and length
+        inspection.addSize(5);
+
+        if (ITEMS_KEY.equals(key)) {
+            visitItems(key, list);
+            return;
+        }
+
+        List<? extends NBT> tags = list.getTags();
+        for (int i = 0; i < tags.size(); i++) {
+            if (inspection.isStopped()) return;
+            visitElement(key, tags.get(i), i, false);
+        }
+    }
+
+    /**
+     * Visits the items of a container, each as an item root. A container nested deeper than the limit of the
+     * inspection is flagged and only measured.
+     */
+    private void visitItems(String key, NBTList<?> list) {
+        boolean entered = inspection.enterContainer();
+        try {
+            List<? extends NBT> tags = list.getTags();
+            for (int i = 0; i < tags.size(); i++) {
+                if (inspection.isStopped()) return;
+                visitElement(key, tags.get(i), i, true);
+            }
+        } finally {
+            inspection.exitContainer(entered);
+        }
+    }
+
+    private void visitElement(String key, NBT element, int index, boolean item) {
+        int previous = inspection.enterElement(index);
+        try {
+            long start = inspection.getSize();
+
+            visitType(element);
+            if (inspection.isStopped()) return;
+
+            inspection.countNode();
+            if (element instanceof NBTCompound) {
+                if (item) {
+                    inspection.enterNestedItem();
+                    visitCompound((NBTCompound) element);
+                    inspection.exitItem();
+                } else {
+                    visitCompound((NBTCompound) element);
+                }
+            } else if (element instanceof NBTList) {
+                visitList(key, (NBTList<?>) element);
+            } else {
+                inspection.addSize(valueSize(element));
+            }
+            if (inspection.isStopped()) return;
+
+            inspection.endTag(start);
+            call(tagEndRules, element);
+        } finally {
+            inspection.exitElement(previous);
+        }
+    }
+
+    private void visitType(NBT tag) {
+        if (tag != null) {
+            call(typeRules.get(tag.getType()), tag);
+        }
+    }
+
+    private void call(List<Registration> registrations, NBT tag) {
+        if (registrations == null || inspection.isMuted()) return;
+
+        for (Registration registration : registrations) {
+            if (registration.path != null && !inspection.matches(registration.path, registration.nested)) continue;
+            if (!inspection.select(registration.ruleSet)) continue;
+
+            registration.rule.visit(inspection, tag);
+            if (inspection.isStopped()) return;
+        }
+    }
+
+    private static long valueSize(NBT tag) {
+        if (tag instanceof NBTString) return 2 + utfLength(((NBTString) tag).getValue());
+        if (tag instanceof NBTByte) return 1;
+        if (tag instanceof NBTShort) return 2;
+        if (tag instanceof NBTInt || tag instanceof NBTFloat) return 4;
+        if (tag instanceof NBTLong || tag instanceof NBTDouble) return 8;
+        if (tag instanceof NBTByteArray) return 4 + (long) ((NBTByteArray) tag).getValue().length;
+        if (tag instanceof NBTIntArray) return 4 + 4L * ((NBTIntArray) tag).getValue().length;
+        if (tag instanceof NBTLongArray) return 4 + 8L * ((NBTLongArray) tag).getValue().length;
+        return 0;
+    }
+
+    /**
+     * Computes the length of a string in the modified UTF-8 encoding NBT uses, without encoding it.
+     */
+    private static long utfLength(String value) {
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                length++;
+            } else if (c <= 0x07FF) {
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static final class Registration {
+
+        private final NBTRuleSet ruleSet;
+        private final String[]   path;
+        private final boolean    nested;
+        private final NBTRule    rule;
+
+        private Registration(NBTRuleSet ruleSet, String[] path, boolean nested, NBTRule rule) {
+            this.ruleSet = ruleSet;
+            this.path = path;
+            this.nested = nested;
+            this.rule = rule;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package de.feelix.sierra.check.nbt;
+
+import com.github.retrooper.packetevents.protocol.nbt.NBT;
+
+/**
+ * The NBTRule interface represents a single rule of an {@link NBTInspector}. A rule is registered for a tag path or
+ * a tag type and is called by the inspector whenever it reaches a matching tag, so it never walks the tree itself.
+ */
+@FunctionalInterface
+public interface NBTRule {
+
+    /**
+     * Visits a matching tag. Rules must not modify the tree while it is being inspected.
+     *
+     * @param inspection the current inspection, which holds the item, the event and the position in the tree
+     * @param tag        the matching tag
+     */
+    void visit(NBTInspection inspection, NBT tag);
+}
@@ -0,0 +1,102 @@
+package de.feelix.sierra.check.nbt;
+
+import com.github.retrooper.packetevents.protocol.nbt.NBTType;
+import de.feelix.sierra.check.violation.ViolationDocument;
+
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * The NBTRuleSet class groups the rules of a single check at the shared {@link NBTInspector} of a player. The
+ * condition of a rule set decides per item whether its rules take part in the walk, and the violations its rules
+ * report are forwarded to the reporter of the owning check.
+ */
+public class NBTRuleSet {
+
+    private final NBTInspector inspector;
+
+    final int                                          id;
+    final Predicate<NBTInspection>                     condition;
+    final BiConsumer<NBTInspection, ViolationDocument> reporter;
+    final boolean                                      stopOnReport;
+
+    NBTRuleSet(NBTInspector inspector, int id, Predicate<NBTInspection> condition,
+               BiConsumer<NBTInspection, ViolationDocument> reporter, boolean stopOnReport) {
+        this.inspector = inspector;
+        this.id = id;
+        this.condition = condition;
+        this.reporter = reporter;
+        this.stopOnReport = stopOnReport;
+    }
+
+    /**
+     * Registers a rule that is called once for the top-level item with its root compound, before the walk.
+     *
+     * @param rule the rule to register
+     * @return this rule set
+     */
+    public NBTRuleSet onItem(NBTRule rule) {
+        inspector.addItemRule(this, rule, false);
+        return this;
+    }
+
+    /**
+     * Registers a rule that is called once for the top-level item with its root compound, after the walk. The size,
+     * the nodes and the depth of the whole tree are available on the inspection at this point.
+     *
+     * @param rule the rule to register
+     * @return this rule set
+     */
+    public NBTRuleSet onItemEnd(NBTRule rule) {
+        inspector.addItemRule(this, rule, true);
+        return this;
+    }
+
+    /**
+     * Registers a rule for a path below the top-level item and below every nested item.
+     *
+     * @param path the dot separated path relative to an item root
+     * @param rule the rule to register
+     * @return this rule set
+     */
+    public NBTRuleSet onPath(String path, NBTRule rule) {
+        inspector.addPathRule(this, path, true, rule);
+        return this;
+    }
+
+    /**
+     * Registers a rule for a path below the top-level item only.
+     *
+     * @param path the dot separated path relative to the top-level item
+     * @param rule the rule to register
+     * @return this rule set
+     */
+    public NBTRuleSet onRootPath(String path, NBTRule rule) {
+        inspector.addPathRule(this, path, false, rule);
+        return this;
+    }
+
+    /**
+     * Registers a rule for every tag of the given type, including the elements of lists.
+     *
+     * @param type the type of the tags
+     * @param rule the rule to register
+     * @return this rule set
+     */
+    public NBTRuleSet onType(NBTType<?> type, NBTRule rule) {
+        inspector.addTypeRule(this, type, rule);
+        return this;
+    }
+
+    /**
+     * Registers a rule that is called for every tag, including the elements of lists, after the tag and everything
+     * below it was visited. The encoded size of the tag is available as {@link NBTInspection#getTagSize()}.
+     *
+     * @param rule the rule to register
+     * @return this rule set
+     */
+    public NBTRuleSet onTagEnd(NBTRule rule) {
+        inspector.addTagEndRule(this, rule);
+        return this;
+    }
+}
@@ -0,0 +1,65 @@
+package de.feelix.sierra.check.violation;
+
+/**
+ * Enumeration of the curves violations can decay along once the grace period of a {@link ViolationDecay} passed.
+ */
+public enum DecayCurve {
+
+    /**
+     * Removes a fixed amount of violations per second.
+     */
+    LINEAR {
+        @Override
+        double decay(double level, long elapsedMillis, double parameter) {
+            double removed = Math.floor(elapsedMillis / 1000.0 * parameter);
+            return Math.max(0, level - removed);
+        }
+    },
+
+    /**
+     * Halves the violations every half-life, clearing them once less than one violation remains.
+     */
+    EXPONENTIAL {
+        @Override
+        double decay(double level, long elapsedMillis, double parameter) {
+            if (parameter <= 0) return 0;
+            double decayed = level * Math.pow(0.5, elapsedMillis / (parameter * 1000.0));
+            return decayed < 1 ? 0 : decayed;
+        }
+    },
+
+    /**
+     * Keeps the violations until they are reset.
+     */
+    NONE {
+        @Override
+        double decay(double level, long elapsedMillis, double parameter) {
+            return level;
+        }
+    };
+
+    /**
+     * Computes the violations after decaying for the given time.
+     *
+     * @param level         the violations when the decay started
+     * @param elapsedMillis the milliseconds since the decay started
+     * @param parameter     the rate per second of a linear curve or the half-life in seconds of an exponential curve
+     * @return the decayed violations
+     */
+    abstract double decay(double level, long elapsedMillis, double parameter);
+
+    /**
+     * Retrieves the decay curve with the given name, ignoring case.
+     *
+     * @param name the name of the curve
+     * @return the matching curve, or {@link #LINEAR} if no curve matches
+     */
+    public static DecayCurve fromName(String name) {
+        for (DecayCurve curve : values()) {
+            if (curve.name().equalsIgnoreCase(name)) {
+                return curve;
+            }
+        }
+        return LINEAR;
+    }
+}
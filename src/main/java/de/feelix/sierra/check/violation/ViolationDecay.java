@@ -0,0 +1,51 @@
+package de.feelix.sierra.check.violation;
+
+import lombok.Getter;
+
+/**
+ * The ViolationDecay class describes how the violations of a check decay while the check does not detect anything.
+ * The violations are kept as the level of the last update and decay is computed from the time since that update when
+ * the level is read, so idle checks need no periodic work.
+ */
+@Getter
+public final class ViolationDecay {
+
+    /**
+     * The decay of the former ticker, which removed one violation per tick after four seconds without detection.
+     */
+    public static final ViolationDecay DEFAULT = new ViolationDecay(DecayCurve.LINEAR, 4000, 20);
+
+    private final DecayCurve curve;
+
+    /**
+     * The milliseconds after the last update before the violations start to decay.
+     */
+    private final long graceMillis;
+
+    /**
+     * The violations removed per second of a linear curve, or the half-life in seconds of an exponential curve.
+     */
+    private final double parameter;
+
+    public ViolationDecay(DecayCurve curve, long graceMillis, double parameter) {
+        this.curve = curve;
+        this.graceMillis = Math.max(0, graceMillis);
+        this.parameter = parameter;
+    }
+
+    /**
+     * Computes the violations at the given time.
+     *
+     * @param level      the violations at the last update
+     * @param lastUpdate the time of the last update in milliseconds
+     * @param now        the current time in milliseconds
+     * @return the decayed violations
+     */
+    public double apply(double level, long lastUpdate, long now) {
+        long elapsed = now - lastUpdate - graceMillis;
+        if (level <= 0 || elapsed <= 0) {
+            return level;
+        }
+        return curve.decay(level, elapsed, parameter);
+    }
+}
@@ -4,11 +4,13 @@ package de.feelix.sierra.command.impl;
 import com.github.retrooper.packetevents.protocol.player.User;
 import de.feelix.sierra.Sierra;
 import de.feelix.sierra.manager.storage.history.HistoryDocument;
+import de.feelix.sierra.manager.storage.history.HistoryPage;
+import de.feelix.sierra.manager.storage.history.HistoryStore;
 import de.feelix.sierra.utilities.FormatUtils;
 import de.feelix.sierra.utilities.message.ConfigValue;
-import de.feelix.sierra.utilities.pagination.Pagination;
 import de.feelix.sierraapi.commands.*;
 import de.feelix.sierraapi.history.History;
+import de.feelix.sierraapi.history.HistoryType;
 import de.feelix.sierraapi.user.impl.SierraUser;
 import io.github.retrooper.packetevents.adventure.serializer.legacy.LegacyComponentSerializer;
 import net.kyori.adventure.text.Component;
@@ -16,21 +18,28 @@ import net.kyori.adventure.text.TextComponent;
 import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.event.HoverEvent;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 
 /**
- * The HistoryCommand class represents a command that retrieves and displays the history of a player's punishments.
+ * The HistoryCommand class represents a command that retrieves and displays the history of punishments. The history
+ * can be filtered by player, type and time, pages are read from the history index without sorting the history.
  * It implements the ISierraCommand interface.
  */
 public class HistoryCommand implements ISierraCommand {
 
+    private static final int PAGE_SIZE = 5;
+
+    private static final String PLAYER_PREFIX = "player:";
+    private static final String TYPE_PREFIX   = "type:";
+    private static final String SINCE_PREFIX  = "since:";
+
     /**
-     * This method processes the command by validating the arguments, setting up pagination,
-     * sending the appropriate help syntax if arguments are protocol, sending the pagination message
-     * to the sender, and sending the history messages.
+     * This method processes the command by parsing the filters and the page from the arguments, querying the page
+     * from the history store and sending it to the sender. Filters are named by a prefix, like player:Name, type:punish
+     * or since:2h, so any player name can be queried. An argument without a prefix is the page.
      *
      * @param user            The User object representing the user.
      * @param sierraUser      The SierraUser object representing the user in the Sierra API.
@@ -42,33 +51,80 @@ public class HistoryCommand implements ISierraCommand {
     public void process(User user, SierraUser sierraUser, IBukkitAbstractCommand abstractCommand,
                         ISierraLabel sierraLabel, ISierraArguments sierraArguments) {
 
-        if (!validateArguments(sierraArguments)) {
+        HistoryStore historyStore = HistoryStore.getInstance();
+        if (!validateArguments(sierraArguments) || historyStore == null) {
             sendHelpSyntax(user);
             return;
         }
 
-        Pagination<History> pagination = setupPagination();
+        String username = null;
+        HistoryType type = null;
+        long since = 0;
+        int page = 1;
+        // The filters are repeated in the commands of the page buttons
+        StringBuilder filters = new StringBuilder("/sierra history ");
 
-        int page = correctPage(FormatUtils.toInt(sierraArguments.getArguments().get(1)), pagination.totalPages());
+        List<String> arguments = sierraArguments.getArguments();
+        for (String argument : arguments.subList(1, arguments.size())) {
+            String lowerCase = argument.toLowerCase(Locale.ROOT);
+            if (lowerCase.startsWith(PLAYER_PREFIX) && argument.length() > PLAYER_PREFIX.length()) {
+                username = argument.substring(PLAYER_PREFIX.length());
+            } else if (lowerCase.startsWith(TYPE_PREFIX)) {
+                type = parseType(argument.substring(TYPE_PREFIX.length()));
+                if (type == null) {
+                    sendHelpSyntax(user);
+                    return;
+                }
+            } else if (lowerCase.startsWith(SINCE_PREFIX)) {
+                long duration = FormatUtils.parseDuration(argument.substring(SINCE_PREFIX.length()));
+                if (duration <= 0) {
+                    sendHelpSyntax(user);
+                    return;
+                }
+                since = System.currentTimeMillis() - duration;
+            } else if (!argument.isEmpty() && argument.chars().allMatch(Character::isDigit)) {
+                page = FormatUtils.toInt(argument);
+                continue;
+            } else {
+                sendHelpSyntax(user);
+                return;
+            }
+            filters.append(argument).append(' ');
+        }
 
-        List<History> historyDocumentList = pagination.itemsForPage(page);
+        String command = filters.toString();
+        historyStore.query(username, type, since, page, PAGE_SIZE).whenComplete((historyPage, error) -> {
+            if (error != null) {
+                Sierra.getPlugin().getLogger().warning("Unable to query history: " + error.getMessage());
+                return;
+            }
 
-        sendPaginationMessage(user, page, pagination);
-        if (historyDocumentList.isEmpty()) {
-            user.sendMessage(
-                new ConfigValue(
-                    "commands.history.empty",
-                    "{prefix} &cNo history available",
-                    true
-                ).replacePrefix().colorize().message());
-            return;
+            sendPaginationMessage(user, historyPage, command);
+            if (historyPage.getEntries().isEmpty()) {
+                user.sendMessage(
+                    new ConfigValue(
+                        "commands.history.empty",
+                        "{prefix} &cNo history available",
+                        true
+                    ).replacePrefix().colorize().message());
+                return;
+            }
+            sendHistoryMessages(user, historyPage.getEntries());
+        });
+    }
+
+    private HistoryType parseType(String input) {
+        try {
+            return HistoryType.valueOf(input.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
         }
-        sendHistoryMessages(user, historyDocumentList);
     }
 
-    private void sendPaginationMessage(User user, int currentPage, Pagination<History> pagination) {
+    private void sendPaginationMessage(User user, HistoryPage historyPage, String command) {
 
-        boolean hasNextPage = pagination.totalPages() > currentPage;
+        int currentPage = historyPage.getPage();
+        boolean hasNextPage = historyPage.getTotalPages() > currentPage;
         boolean hasPreviousPage = currentPage > 1;
 
         TextComponent component = LegacyComponentSerializer.legacy('&')
@@ -78,8 +134,8 @@ public class HistoryCommand implements ISierraCommand {
                 + "&3{entries} &7entries)",
                 true
             ).replacePrefix().replace("{current}", String.valueOf(currentPage))
-                             .replace("{total}", String.valueOf(pagination.totalPages()))
-                             .replace("{entries}", String.valueOf(pagination.getEntries().size()))
+                             .replace("{total}", String.valueOf(historyPage.getTotalPages()))
+                             .replace("{entries}", String.valueOf(historyPage.getTotalEntries()))
                              .colorize()
                              .message())
             .append(Component.text(" "))
@@ -89,7 +145,7 @@ public class HistoryCommand implements ISierraCommand {
                             Component.text(hasPreviousPage ? "View previous page" : "No previous page available")))
                         .clickEvent(ClickEvent.clickEvent(
                             ClickEvent.Action.RUN_COMMAND,
-                            hasPreviousPage ? "/sierra history " + (currentPage - 1) : "/sierra history 1"
+                            hasPreviousPage ? command + (currentPage - 1) : command + "1"
                         )))
             .append(Component.text(" "))
             .append(LegacyComponentSerializer.legacy('&')
@@ -98,7 +154,7 @@ public class HistoryCommand implements ISierraCommand {
                             Component.text(hasNextPage ? "View next page" : "No next page available")))
                         .clickEvent(ClickEvent.clickEvent(
                             ClickEvent.Action.RUN_COMMAND,
-                            hasNextPage ? "/sierra history " + (currentPage + 1) : "/sierra history " + currentPage
+                            hasNextPage ? command + (currentPage + 1) : command + currentPage
                         )));
 
         user.sendMessage(component);
@@ -129,35 +185,10 @@ public class HistoryCommand implements ISierraCommand {
      * Validates the arguments passed with a command.
      *
      * @param sierraArguments The ISierraArguments object representing the arguments.
-     * @return true if the number of arguments is greater than 1, false otherwise.
+     * @return true if the number of arguments is greater than 0, false otherwise.
      */
     private boolean validateArguments(ISierraArguments sierraArguments) {
-        return sierraArguments.getArguments().size() > 1;
-    }
-
-    /**
-     * Sets up pagination for the history documents.
-     *
-     * @return A Pagination object containing the sorted history documents.
-     */
-    private Pagination<History> setupPagination() {
-        List<History> list = new ArrayList<>(Sierra.getPlugin().getSierraDataManager().getHistories());
-        list.sort(Comparator.comparing(History::timestamp).reversed());
-        return new Pagination<>(list, 5);
-    }
-
-    /**
-     * Corrects the page number by ensuring it is within the valid range of pages.
-     *
-     * @param page       The current page number.
-     * @param totalPages The total number of pages.
-     * @return The corrected page number.
-     */
-    private int correctPage(int page, int totalPages) {
-        if (page > totalPages || page < 0) {
-            return 1;
-        }
-        return page;
+        return !sierraArguments.getArguments().isEmpty();
     }
 
     /**
@@ -192,7 +223,7 @@ public class HistoryCommand implements ISierraCommand {
         user.sendMessage(
             new ConfigValue(
                 "commands.history.protocol",
-                "{prefix} &cInvalid usage, try /sierra history <page>",
+                "{prefix} &cInvalid usage, try /sierra history [player:<name>] [type:<type>] [since:<time>] [page]",
                 true
             ).replacePrefix()
                 .colorize()
@@ -210,8 +241,9 @@ public class HistoryCommand implements ISierraCommand {
     public List<String> fromId(int id, String[] args) {
         if (id == 1) {
             return Collections.singletonList("history");
-        } else if (id == 2 && args[0].equalsIgnoreCase("history")) {
-            return Collections.singletonList("1");
+        } else if (id >= 2 && args[0].equalsIgnoreCase("history")) {
+            return Arrays.asList("1", PLAYER_PREFIX, TYPE_PREFIX + "punish", TYPE_PREFIX + "mitigate",
+                                 SINCE_PREFIX + "1h", SINCE_PREFIX + "1d");
         } else {
             return Collections.emptyList();
         }
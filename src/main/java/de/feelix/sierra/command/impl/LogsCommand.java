@@ -0,0 +1,197 @@
+package de.feelix.sierra.command.impl;
+
+import com.github.retrooper.packetevents.protocol.player.User;
+import de.feelix.sierra.Sierra;
+import de.feelix.sierra.manager.storage.logger.LogRecord;
+import de.feelix.sierra.manager.storage.logger.LogTag;
+import de.feelix.sierra.utilities.FormatUtils;
+import de.feelix.sierra.utilities.message.ConfigValue;
+import de.feelix.sierraapi.commands.*;
+import de.feelix.sierraapi.user.impl.SierraUser;
+import io.github.retrooper.packetevents.adventure.serializer.legacy.LegacyComponentSerializer;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.HoverEvent;
+
+import java.util.*;
+
+/**
+ * The LogsCommand class represents a command that queries the stored log of a player, optionally limited to the
+ * records after a point in time and to a single tag.
+ */
+public class LogsCommand implements ISierraCommand {
+
+    private static final int LIMIT          = 15;
+    private static final int MESSAGE_LENGTH = 60;
+
+    /**
+     * Processes the command by parsing the optional time and tag filters and sending the matching records once the
+     * query completed.
+     *
+     * @param user            The User object representing the user.
+     * @param sierraUser      The SierraUser object representing the user in the Sierra API.
+     * @param abstractCommand The IBukkitAbstractCommand object representing the wrapped Bukkit Command.
+     * @param sierraLabel     The ISierraLabel object representing the label of the initial symbol.
+     * @param sierraArguments The ISierraArguments object representing the arguments passed with the command.
+     */
+    @Override
+    public void process(User user, SierraUser sierraUser, IBukkitAbstractCommand abstractCommand,
+                        ISierraLabel sierraLabel, ISierraArguments sierraArguments) {
+
+        List<String> arguments = sierraArguments.getArguments();
+        if (arguments.size() < 2 || arguments.size() > 4) {
+            sendHelpSyntax(user);
+            return;
+        }
+
+        String playerName = arguments.get(1);
+        long since = 0;
+        LogTag tag = null;
+        for (String argument : arguments.subList(2, arguments.size())) {
+            long duration = FormatUtils.parseDuration(argument);
+            if (duration > 0 && since == 0) {
+                since = System.currentTimeMillis() - duration;
+                continue;
+            }
+            tag = parseTag(argument);
+            if (tag == null) {
+                sendHelpSyntax(user);
+                return;
+            }
+        }
+
+        Sierra.getPlugin().getLogRepository().query(playerName, since, tag, LIMIT).whenComplete((records, error) -> {
+            if (error != null) {
+                Sierra.getPlugin().getLogger().warning("Unable to query logs of " + playerName + ": "
+                                                       + error.getMessage());
+                records = Collections.emptyList();
+            }
+            sendRecords(user, playerName, records);
+        });
+    }
+
+    private LogTag parseTag(String input) {
+        try {
+            return LogTag.valueOf(input.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sends the queried records to the user.
+     *
+     * @param user       The User object representing the user.
+     * @param playerName The name of the player whose records were queried.
+     * @param records    The records, oldest first.
+     */
+    private void sendRecords(User user, String playerName, List<LogRecord> records) {
+        if (records.isEmpty()) {
+            user.sendMessage(
+                new ConfigValue(
+                    "commands.logs.empty",
+                    "{prefix} &cNo logs available",
+                    true
+                ).replacePrefix().colorize().message());
+            return;
+        }
+
+        user.sendMessage(
+            new ConfigValue(
+                "commands.logs.header",
+                "{prefix} &fLogs of &b{playerName} &7(&3{entries} &7entries)",
+                true
+            ).replacePrefix()
+                .replace("{playerName}", playerName)
+                .replace("{entries}", String.valueOf(records.size()))
+                .colorize()
+                .message());
+
+        for (LogRecord record : records) {
+            user.sendMessage(
+                LegacyComponentSerializer.legacy('&')
+                    .deserialize(createLogMessage(record))
+                    .hoverEvent(HoverEvent.showText(Component.text(record.getMessage()))));
+        }
+    }
+
+    /**
+     * Creates a formatted message of a single record.
+     *
+     * @param record The record to format.
+     * @return The formatted message.
+     */
+    private String createLogMessage(LogRecord record) {
+        String message = record.getMessage();
+        if (message.length() > MESSAGE_LENGTH) {
+            message = message.substring(0, MESSAGE_LENGTH) + "...";
+        }
+
+        return new ConfigValue(
+            "commands.logs.entry",
+            "&7{timestamp} &b{tag}&7: &f{message}",
+            true
+        ).replacePrefix()
+            .replace("{timestamp}", FormatUtils.formatTimestamp(record.getTimestamp()))
+            .replace("{tag}", record.getLogTag().name())
+            .replace("{check}", String.valueOf(record.getCheckId()))
+            .replace("{message}", message)
+            .colorize()
+            .message();
+    }
+
+    /**
+     * Sends the help syntax message to the user.
+     *
+     * @param user The User object representing the user.
+     */
+    private void sendHelpSyntax(User user) {
+        user.sendMessage(
+            new ConfigValue(
+                "commands.logs.invalid",
+                "{prefix} &cInvalid usage, try /sierra logs <player> [since] [tag]",
+                true
+            ).replacePrefix()
+                .colorize()
+                .message());
+    }
+
+    /**
+     * Converts an ID and arguments into a list of strings.
+     *
+     * @param id   The ID to convert.
+     * @param args The arguments to consider while converting.
+     * @return The converted list of strings.
+     */
+    @Override
+    public List<String> fromId(int id, String[] args) {
+        if (id == 1) {
+            return Collections.singletonList("logs");
+        } else if ((id == 3 || id == 4) && args[0].equalsIgnoreCase("logs")) {
+            List<String> completions = new ArrayList<>();
+            if (id == 3) {
+                completions.addAll(Arrays.asList("30m", "1h", "1d"));
+            }
+            for (LogTag tag : LogTag.values()) {
+                completions.add(tag.name().toLowerCase(Locale.ROOT));
+            }
+            return completions;
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Returns the description of this method.
+     *
+     * @return The description of the method
+     */
+    @Override
+    public String description() {
+        return "Query the logs of a player";
+    }
+
+    @Override
+    public String permission() {
+        return "sierra.command.logs";
+    }
+}
@@ -0,0 +1,84 @@
+package de.feelix.sierra.command.impl;
+
+import com.github.retrooper.packetevents.protocol.player.User;
+import de.feelix.sierra.Sierra;
+import de.feelix.sierra.utilities.message.ConfigValue;
+import de.feelix.sierraapi.commands.*;
+import de.feelix.sierraapi.user.impl.SierraUser;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The MetricsCommand class represents a command that shows a snapshot of the counters and gauges of Sierra.
+ */
+public class MetricsCommand implements ISierraCommand {
+
+    /**
+     * Processes the command by sending every value of a metrics snapshot.
+     *
+     * @param user            The User object representing the user.
+     * @param sierraUser      The SierraUser object representing the user in the Sierra API.
+     * @param abstractCommand The IBukkitAbstractCommand object representing the wrapped Bukkit Command.
+     * @param sierraLabel     The ISierraLabel object representing the label of the initial symbol.
+     * @param sierraArguments The ISierraArguments object representing the arguments passed with the command.
+     */
+    @Override
+    public void process(User user, SierraUser sierraUser, IBukkitAbstractCommand abstractCommand,
+                        ISierraLabel sierraLabel, ISierraArguments sierraArguments) {
+
+        Map<String, Long> snapshot = Sierra.getPlugin().getSierraMetrics().snapshot();
+
+        user.sendMessage(
+            new ConfigValue(
+                "commands.metrics.header",
+                "{prefix} &fMetrics since the start &7(&3{entries} &7values)",
+                true
+            ).replacePrefix()
+                .replace("{entries}", String.valueOf(snapshot.size()))
+                .colorize()
+                .message());
+
+        snapshot.forEach((name, value) -> user.sendMessage(
+            new ConfigValue(
+                "commands.metrics.entry",
+                "{prefix} &7{name}: &b{value}",
+                true
+            ).replacePrefix()
+                .replace("{name}", name)
+                .replace("{value}", String.valueOf(value))
+                .colorize()
+                .message()));
+    }
+
+    /**
+     * Converts an ID and arguments into a list of strings.
+     *
+     * @param id   The ID to convert.
+     * @param args The arguments to consider while converting.
+     * @return The converted list of strings.
+     */
+    @Override
+    public List<String> fromId(int id, String[] args) {
+        if (id == 1) {
+            return Collections.singletonList("metrics");
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the description of this method.
+     *
+     * @return The description of the method
+     */
+    @Override
+    public String description() {
+        return "Show kicks, bans and detections";
+    }
+
+    @Override
+    public String permission() {
+        return "sierra.command.metrics";
+    }
+}
@@ -2,14 +2,15 @@ package de.feelix.sierra.command.impl;
 
 import com.github.retrooper.packetevents.protocol.player.User;
 import de.feelix.sierra.Sierra;
+import de.feelix.sierra.manager.init.impl.start.Ticker;
 import de.feelix.sierra.manager.storage.PlayerData;
+import de.feelix.sierra.manager.storage.processor.TransactionScheduler;
 import de.feelix.sierra.utilities.message.ConfigValue;
 import de.feelix.sierraapi.commands.*;
 import de.feelix.sierraapi.timing.Timing;
 import de.feelix.sierraapi.timing.TimingHandler;
 import de.feelix.sierraapi.user.impl.SierraUser;
 
-import java.lang.ref.WeakReference;
 import java.util.Collections;
 import java.util.List;
 
@@ -41,9 +42,9 @@ public class MonitorCommand implements ISierraCommand {
             true
         ).replacePrefix().colorize().message());
 
-        WeakReference<PlayerData> playerData = Sierra.getPlugin().getSierraDataManager().getPlayerData(user);
+        PlayerData playerData = Sierra.getPlugin().getSierraDataManager().getPlayerData(user);
 
-        if (playerData == null || playerData.get() == null) {
+        if (playerData == null) {
             user.sendMessage(
                 new ConfigValue(
                     "commands.monitor.nothing-found",
@@ -80,6 +81,25 @@ public class MonitorCommand implements ISierraCommand {
             ).replacePrefix().colorize().message());
         sendTiming(timingProcessor.getMovementTask(), "Movement Task", user);
         sendTiming(timingProcessor.getFrequencyTask(), "Frequency Task", user);
+        sendTransactions(user);
+    }
+
+    /**
+     * Sends the statistics of the batched transaction flushing to the user.
+     *
+     * @param user the User object to send the message to
+     */
+    private void sendTransactions(User user) {
+        TransactionScheduler scheduler = Ticker.getInstance().getTransactionScheduler();
+        user.sendMessage(
+            new ConfigValue(
+                "commands.monitor.transactions",
+                "{prefix}  &8- &fTransaction Flush &7({delay}ms, {coalesced} coalesced)",
+                true
+            ).replacePrefix()
+                .replace("{delay}", String.format("%.5f", scheduler.averageFlushLatency()))
+                .replace("{coalesced}", String.valueOf(scheduler.coalesced()))
+                .colorize().message());
     }
 
     /**
@@ -13,6 +13,7 @@ import com.github.retrooper.packetevents.wrapper.play.client.*;
 import de.feelix.sierra.manager.storage.PlayerData;
 import de.feelix.sierra.manager.storage.SierraDataManager;
 import de.feelix.sierra.manager.storage.logger.LogTag;
+import de.feelix.sierra.manager.storage.logger.SierraLogger;
 import de.feelix.sierra.utilities.CastUtil;
 import de.feelix.sierra.utilities.FormatUtils;
 
@@ -31,75 +32,79 @@ public class PacketLoggerListener extends PacketListenerAbstract {
 
         if (playerData.isReceivedPunishment() || event.isCancelled() || playerData.isExempt()) return;
 
+        // Packets are only decoded inside the message suppliers, which are skipped for disabled tags
+        SierraLogger logger = playerData.getSierraLogger();
+
         if (event.getPacketType() == PacketType.Play.Client.PLAYER_BLOCK_PLACEMENT) {
 
-            WrapperPlayClientPlayerBlockPlacement wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientPlayerBlockPlacement(event), playerData::exceptionDisconnect);
+            logger.log(LogTag.BLOCK_PLACE, () -> {
+                WrapperPlayClientPlayerBlockPlacement wrapper = CastUtil.getWrapper(
+                    event, WrapperPlayClientPlayerBlockPlacement.class, WrapperPlayClientPlayerBlockPlacement::new,
+                    playerData::exceptionDisconnect);
 
-            wrapper.getItemStack().ifPresent(itemStack -> {
-                if (itemStack.getNBT() != null) {
-                    playerData.getSierraLogger()
-                        .log(LogTag.BLOCK_PLACE, FormatUtils.mapToString(itemStack.getNBT().getTags()));
-                }
+                return wrapper.getItemStack().map(PacketLoggerListener::formatNbt).orElse(null);
             });
 
         } else if (event.getPacketType() == PacketType.Play.Client.PLUGIN_MESSAGE) {
 
-            WrapperPlayClientPluginMessage wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientPluginMessage(event), playerData::exceptionDisconnect);
+            logger.log(LogTag.PAYLOAD, () -> {
+                WrapperPlayClientPluginMessage wrapper = CastUtil.getWrapper(
+                    event, WrapperPlayClientPluginMessage.class, WrapperPlayClientPluginMessage::new,
+                    playerData::exceptionDisconnect);
 
-            String payload = wrapper.getChannelName();
+                String payload = wrapper.getChannelName();
 
-            if (payload.contains("MC|BEdit") || payload.contains("MC|BSign") || payload.contains("MC|BOpen")) {
+                if (!payload.contains("MC|BEdit") && !payload.contains("MC|BSign") && !payload.contains("MC|BOpen")) {
+                    return null;
+                }
 
-                Object buffer = null;
+                // The payload is only read, so it is wrapped instead of copied
+                Object buffer = UnpooledByteBufAllocationHelper.wrappedBuffer(wrapper.getData());
                 try {
-                    buffer = UnpooledByteBufAllocationHelper.buffer();
-                    ByteBufHelper.writeBytes(buffer, wrapper.getData());
                     PacketWrapper<?> universalWrapper = PacketWrapper.createUniversalPacketWrapper(buffer);
-
-                    try {
-                        ItemStack itemStack = universalWrapper.readItemStack();
-
-                        if (itemStack.getNBT() != null) {
-                            playerData.getSierraLogger()
-                                .log(
-                                    LogTag.PAYLOAD, FormatUtils.mapToString(itemStack.getNBT().getTags())
-                                );
-                        }
-                    } catch (Exception exception) {
-                        playerData.getSierraLogger().log(LogTag.EXCEP_PAYLOAD, exception.getMessage());
-                    }
+                    return formatNbt(universalWrapper.readItemStack());
+                } catch (Exception exception) {
+                    logger.log(LogTag.EXCEP_PAYLOAD, exception::getMessage);
+                    return null;
                 } finally {
                     ByteBufHelper.release(buffer);
                 }
-            }
+            });
 
         } else if (event.getPacketType() == PacketType.Play.Client.CREATIVE_INVENTORY_ACTION) {
 
-            WrapperPlayClientCreativeInventoryAction wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientCreativeInventoryAction(event), playerData::exceptionDisconnect);
+            logger.log(LogTag.CREATIVE, () -> {
+                WrapperPlayClientCreativeInventoryAction wrapper = CastUtil.getWrapper(
+                    event, WrapperPlayClientCreativeInventoryAction.class,
+                    WrapperPlayClientCreativeInventoryAction::new, playerData::exceptionDisconnect);
 
-            ItemStack itemStack = wrapper.getItemStack();
-            if (itemStack != null && itemStack.getNBT() != null) {
-                playerData.getSierraLogger()
-                    .log(LogTag.CREATIVE, FormatUtils.mapToString(itemStack.getNBT().getTags()));
-            }
+                return formatNbt(wrapper.getItemStack());
+            });
 
         } else if (event.getPacketType() == PacketType.Play.Client.CLICK_WINDOW) {
 
-            WrapperPlayClientClickWindow wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientClickWindow(event), playerData::exceptionDisconnect);
+            logger.log(LogTag.WINDOW_CLICK, () -> {
+                WrapperPlayClientClickWindow wrapper = CastUtil.getWrapper(
+                    event, WrapperPlayClientClickWindow.class, WrapperPlayClientClickWindow::new,
+                    playerData::exceptionDisconnect);
 
-            ItemStack itemStack = wrapper.getCarriedItemStack();
-            if (itemStack != null && itemStack.getNBT() != null) {
-                playerData.getSierraLogger()
-                    .log(LogTag.WINDOW_CLICK, FormatUtils.mapToString(itemStack.getNBT().getTags()));
-            }
+                return formatNbt(wrapper.getCarriedItemStack());
+            });
         }
     }
 
+    /**
+     * Formats the NBT tags of an ItemStack.
+     *
+     * @param itemStack the ItemStack, may be null
+     * @return the formatted tags, or null if the ItemStack has no NBT
+     */
+    private static String formatNbt(ItemStack itemStack) {
+        if (itemStack == null || itemStack.getNBT() == null) return null;
+        return FormatUtils.mapToString(itemStack.getNBT().getTags());
+    }
+
     private PlayerData getPlayerData(ProtocolPacketEvent event) {
-        return SierraDataManager.getInstance().getPlayerData(event.getUser()).get();
+        return SierraDataManager.getInstance().getPlayerData(event.getUser());
     }
 }
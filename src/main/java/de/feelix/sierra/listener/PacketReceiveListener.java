@@ -13,7 +13,6 @@ import de.feelix.sierra.manager.storage.logger.LogTag;
 import de.feelix.sierra.utilities.CastUtil;
 import de.feelix.sierra.utilities.FormatUtils;
 import de.feelix.sierraapi.violation.MitigationStrategy;
-import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.util.Arrays;
 import java.util.logging.Logger;
@@ -63,18 +62,17 @@ public class PacketReceiveListener extends PacketListenerAbstract {
 
     private void handleLocale(PacketReceiveEvent event, PlayerData playerData) {
         if (event.getPacketType() == PacketType.Play.Client.CLIENT_SETTINGS) {
-            WrapperPlayClientSettings wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientSettings(event), playerData::exceptionDisconnect);
+            WrapperPlayClientSettings wrapper = CastUtil.getWrapper(
+                event, WrapperPlayClientSettings.class, WrapperPlayClientSettings::new,
+                playerData::exceptionDisconnect);
             playerData.setLocale(wrapper.getLocale());
         }
     }
 
     private boolean isWeirdPacket(ProtocolPacketEvent event, PlayerData playerData) {
 
-        YamlConfiguration sierraConfig = Sierra.getPlugin().getSierraConfigEngine().config();
-
         int readableBytes = ByteBufHelper.readableBytes(event.getByteBuf());
-        int maxPacketSize = sierraConfig.getInt("generic-packet-size-limit", 6000);
+        int maxPacketSize = Sierra.getPlugin().getSierraConfigEngine().settings().getPacketSizeLimit();
         int capacity = ByteBufHelper.capacity(event.getByteBuf());
 
         boolean shouldCheck = maxPacketSize != -1;
@@ -88,7 +86,7 @@ public class PacketReceiveListener extends PacketListenerAbstract {
 
         if (isPacketSizeOrBytesWeird || isNegativePacketId || isPacketIdWeird) {
 
-            playerData.getSierraLogger().log(LogTag.PRE, FormatUtils.chainDebugs(Arrays.asList(
+            playerData.getSierraLogger().log(LogTag.PRE, () -> FormatUtils.chainDebugs(Arrays.asList(
                 new Debug<>("Packet", event.getPacketType().getName()),
                 new Debug<>("Bytes", readableBytes),
                 new Debug<>("Max", maxPacketSize),
@@ -122,12 +120,12 @@ public class PacketReceiveListener extends PacketListenerAbstract {
     }
 
     private boolean bypassPermission(PlayerData playerData) {
-        return Sierra.getPlugin().getSierraConfigEngine().config().getBoolean("enable-bypass-permission", false)
+        return Sierra.getPlugin().getSierraConfigEngine().settings().isEnableBypassPermission()
                && playerData.isBypassPermission();
     }
 
     private PlayerData getPlayerData(ProtocolPacketEvent event) {
-        return SierraDataManager.getInstance().getPlayerData(event.getUser()).get();
+        return SierraDataManager.getInstance().getPlayerData(event.getUser());
     }
 
     private boolean handleExemptOrBlockedPlayer(PlayerData playerData, ProtocolPacketEvent event) {
@@ -0,0 +1,90 @@
+package de.feelix.sierra.listener.bukkit;
+
+import com.github.retrooper.packetevents.PacketEvents;
+import com.github.retrooper.packetevents.protocol.player.GameMode;
+import com.github.retrooper.packetevents.protocol.player.User;
+import de.feelix.sierra.manager.init.impl.start.Ticker;
+import de.feelix.sierra.manager.storage.PlayerData;
+import de.feelix.sierra.manager.storage.SierraDataManager;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerGameModeChangeEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+/**
+ * This class keeps the Bukkit state of the PlayerData in sync with the server. The state is updated when a player
+ * joins, changes the game mode or the world, instead of polling every player on every tick. Permissions can change
+ * without an event, so they are refreshed by the maintenance wheel of the {@link Ticker} as well. Players leave the
+ * wheel when their PlayerData is removed on disconnect.
+ */
+public class PlayerStateListener implements Listener {
+
+    /**
+     * Binds the players that are already online, for example after the plugin was reloaded.
+     */
+    public PlayerStateListener() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            bind(player);
+        }
+    }
+
+    /**
+     * Binds the joining player to its PlayerData and schedules its maintenance.
+     *
+     * @param event The PlayerJoinEvent to handle.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handle(PlayerJoinEvent event) {
+        bind(event.getPlayer());
+    }
+
+    /**
+     * Updates the game mode of the player once the change went through.
+     *
+     * @param event The PlayerGameModeChangeEvent to handle.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void handle(PlayerGameModeChangeEvent event) {
+        PlayerData playerData = getPlayerData(event.getPlayer());
+        if (playerData != null) {
+            playerData.setGameMode(GameMode.valueOf(event.getNewGameMode().name()));
+        }
+    }
+
+    /**
+     * Refreshes the permissions of the player, which can differ per world.
+     *
+     * @param event The PlayerChangedWorldEvent to handle.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void handle(PlayerChangedWorldEvent event) {
+        PlayerData playerData = getPlayerData(event.getPlayer());
+        if (playerData != null) {
+            playerData.refreshPermissions(event.getPlayer());
+        }
+    }
+
+    private void bind(Player player) {
+        PlayerData playerData = getPlayerData(player);
+        if (playerData == null) return;
+
+        playerData.bindPlayer(player);
+        Ticker ticker = Ticker.getInstance();
+        if (ticker == null) return;
+
+        ticker.getMaintenanceWheel().add(playerData);
+        // The player may have disconnected on the netty thread in the meantime, the removal would have missed it
+        if (SierraDataManager.getInstance().getPlayerData().get(playerData.getUser()) != playerData) {
+            ticker.getMaintenanceWheel().remove(playerData);
+        }
+    }
+
+    private PlayerData getPlayerData(Player player) {
+        User user = PacketEvents.getAPI().getPlayerManager().getUser(player);
+        return SierraDataManager.getInstance().getPlayerData(user);
+    }
+}
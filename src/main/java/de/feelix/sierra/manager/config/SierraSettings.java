@@ -0,0 +1,342 @@
+package de.feelix.sierra.manager.config;
+
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import de.feelix.sierra.Sierra;
+import de.feelix.sierra.check.violation.DecayCurve;
+import de.feelix.sierra.check.violation.ViolationDecay;
+import de.feelix.sierra.manager.storage.logger.LogTag;
+import de.feelix.sierra.utilities.ratelimit.RateLimiter;
+import de.feelix.sierra.utilities.ratelimit.RateLimiterType;
+import de.feelix.sierra.utilities.text.AhoCorasickMatcher;
+import de.feelix.sierraapi.check.CheckType;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The SierraSettings class is an immutable, typed snapshot of the sierra.yml file.
+ * It is compiled once when the configuration is loaded or reloaded, so packet handlers read plain fields and
+ * precomputed tables instead of looking up string keys in the YamlConfiguration for every packet.
+ */
+@Getter
+public final class SierraSettings {
+
+    /**
+     * The maximum readable bytes of a single packet, or -1 if the size check is disabled.
+     */
+    private final int packetSizeLimit;
+
+    private final boolean enableBypassPermission;
+    private final boolean logViolationToConsole;
+    private final boolean blockConnectionsAfterBan;
+
+    /**
+     * The time in minutes a connection stays blocked after a ban.
+     */
+    private final int connectionBlockTime;
+
+    private final boolean preventPacketFrequency;
+    private final int     defaultFrequencyLimit;
+
+    /**
+     * The packets per second limit of each client play packet type, indexed by ordinal.
+     */
+    @Getter(AccessLevel.NONE)
+    private final int[] frequencyLimits;
+
+    /**
+     * The ordinals of all client play packet types excluded from the frequency limit.
+     */
+    @Getter(AccessLevel.NONE)
+    private final BitSet frequencyExcluded;
+
+    /**
+     * The algorithm used for the packet frequency and byte rate limiters.
+     */
+    private final RateLimiterType rateLimiterType;
+
+    /**
+     * The amount of seconds of packets a player may send at once before the frequency limit applies.
+     */
+    private final double frequencyBurst;
+
+    /**
+     * The maximum bytes per second a player may send, or -1 if the byte rate check is disabled.
+     */
+    private final int bytesPerSecondLimit;
+
+    private final boolean preventBookCrasher;
+    private final boolean disableBooksCompletely;
+    private final boolean skipBookReadableCheck;
+
+    private final boolean preventProtocolPacket;
+    private final boolean genericNbtLimit;
+    private final boolean useVanillaAttributeMapping;
+    private final boolean skipNegativeExperienceCheck;
+
+    private final boolean blockDisallowedCommands;
+
+    /**
+     * The disallowed commands compiled into a matcher, which finds all of them in one scan of a command.
+     */
+    private final AhoCorasickMatcher disallowedCommandMatcher;
+
+    private final boolean preventProtocolMove;
+    private final boolean preventTimerCheats;
+    private final boolean preventPostPackets;
+
+    private final boolean preventCreativeCrasher;
+    private final int     maxEnchantmentLevel;
+    private final boolean allowNegativeEnchantments;
+
+    /**
+     * The decay of the violations of each check type, indexed by ordinal.
+     */
+    @Getter(AccessLevel.NONE)
+    private final ViolationDecay[] violationDecays;
+
+    /**
+     * The amount of history entries kept in memory, older entries are only kept on disk.
+     */
+    private final int historyMemoryEntries;
+
+    /**
+     * The days history entries are kept on disk, or 0 to keep them forever.
+     */
+    private final int historyRetentionDays;
+
+    /**
+     * The maximum amount of history entries kept on disk, or 0 for no limit.
+     */
+    private final int historyMaxEntries;
+
+    /**
+     * The ordinals of all log tags that are written to the player logs, as a bit mask.
+     */
+    @Getter(AccessLevel.NONE)
+    private final long loggedTags;
+
+    /**
+     * The sample rate of each log tag, indexed by ordinal. Every n-th record of a tag is written.
+     */
+    @Getter(AccessLevel.NONE)
+    private final int[] logSampleRates;
+
+    private SierraSettings(YamlConfiguration config) {
+        this.packetSizeLimit = config.getInt("generic-packet-size-limit", 6000);
+        this.enableBypassPermission = config.getBoolean("enable-bypass-permission", false);
+        this.logViolationToConsole = config.getBoolean("log-violation-to-console", true);
+        this.blockConnectionsAfterBan = config.getBoolean("block-connections-after-ban", true);
+        this.connectionBlockTime = config.getInt("connection-block-time", 15);
+
+        this.preventPacketFrequency = config.getBoolean("prevent-packet-frequency", true);
+        this.defaultFrequencyLimit = config.getInt("generic-packet-frequency-default", 50);
+        this.frequencyLimits = compileFrequencyLimits(config, defaultFrequencyLimit);
+        this.frequencyExcluded = compileFrequencyExclusions(config);
+        this.rateLimiterType = RateLimiterType.fromName(config.getString("rate-limiter-algorithm", "TOKEN_BUCKET"));
+        this.frequencyBurst = Math.max(1.0, config.getDouble("generic-packet-frequency-burst", 2.0));
+        this.bytesPerSecondLimit = config.getInt("generic-bytes-per-second-limit", 64000);
+
+        this.preventBookCrasher = config.getBoolean("prevent-book-crasher", true);
+        this.disableBooksCompletely = config.getBoolean("disable-books-completely", false);
+        this.skipBookReadableCheck = config.getBoolean("skip-book-readable-check", false);
+
+        this.preventProtocolPacket = config.getBoolean("prevent-protocol-packet", true);
+        this.genericNbtLimit = config.getBoolean("generic-nbt-limit", true);
+        this.useVanillaAttributeMapping = config.getBoolean("use-vanilla-attribute-mapping", true);
+        this.skipNegativeExperienceCheck = config.getBoolean("skip-negative-experience-check", false);
+
+        this.blockDisallowedCommands = config.getBoolean("block-disallowed-commands", true);
+        this.disallowedCommandMatcher = AhoCorasickMatcher.compile(config.getStringList("disallowed-commands"));
+
+        this.preventProtocolMove = config.getBoolean("prevent-protocol-move", true);
+        this.preventTimerCheats = config.getBoolean("prevent-timer-cheats", true);
+        this.preventPostPackets = config.getBoolean("prevent-post-packets", true);
+
+        this.preventCreativeCrasher = config.getBoolean("prevent-creative-crasher", true);
+        this.maxEnchantmentLevel = config.getInt("max-enchantment-level", 5);
+        this.allowNegativeEnchantments = config.getBoolean("allow-negative-enchantments", false);
+
+        this.violationDecays = compileViolationDecays(config);
+
+        this.historyMemoryEntries = Math.max(1, config.getInt("history.memory-entries", 500));
+        this.historyRetentionDays = Math.max(0, config.getInt("history.retention-days", 30));
+        this.historyMaxEntries = Math.max(0, config.getInt("history.max-entries", 100000));
+
+        this.logSampleRates = compileLogSampleRates(config);
+        this.loggedTags = compileLoggedTags(logSampleRates);
+    }
+
+    /**
+     * Compiles a new settings snapshot from the given configuration.
+     *
+     * @param config the loaded sierra.yml configuration
+     * @return the compiled settings
+     */
+    public static SierraSettings compile(YamlConfiguration config) {
+        return new SierraSettings(config);
+    }
+
+    /**
+     * Retrieves the packets per second limit for the given packet type.
+     *
+     * @param packetType the client play packet type
+     * @return the configured limit, or the default limit if the packet type has no own entry
+     */
+    public int frequencyLimit(PacketType.Play.Client packetType) {
+        return frequencyLimits[packetType.ordinal()];
+    }
+
+    /**
+     * Checks whether the given packet type is excluded from the frequency limit.
+     *
+     * @param packetType the client play packet type
+     * @return true if the packet type is excluded, false otherwise
+     */
+    public boolean isExcludedFromFrequencyLimit(PacketType.Play.Client packetType) {
+        return frequencyExcluded.get(packetType.ordinal());
+    }
+
+    /**
+     * Creates a new packet frequency limiter with one slot for each client play packet type, indexed by ordinal.
+     *
+     * @param now the current time as returned by {@link System#nanoTime()}
+     * @return the created rate limiter
+     */
+    public RateLimiter createFrequencyLimiter(long now) {
+        return rateLimiterType.create(frequencyLimits, frequencyBurst, now);
+    }
+
+    /**
+     * Creates a new byte rate limiter with a single slot.
+     *
+     * @param multiplier the multiplier of the configured bytes per second limit, e.g. for older clients
+     * @param now        the current time as returned by {@link System#nanoTime()}
+     * @return the created rate limiter
+     */
+    public RateLimiter createByteLimiter(int multiplier, long now) {
+        return rateLimiterType.create(new int[]{bytesPerSecondLimit * multiplier}, 1.0, now);
+    }
+
+    /**
+     * Retrieves the decay of the violations of the given check type.
+     *
+     * @param checkType the check type, or null for checks without a type
+     * @return the configured decay, or the default decay if the check type has no own entry
+     */
+    public ViolationDecay violationDecay(CheckType checkType) {
+        return checkType == null ? ViolationDecay.DEFAULT : violationDecays[checkType.ordinal()];
+    }
+
+    /**
+     * Checks whether records of the given tag are written to the player logs.
+     *
+     * @param tag the log tag
+     * @return true if the tag is enabled, false otherwise
+     */
+    public boolean isLogged(LogTag tag) {
+        return (loggedTags & (1L << tag.ordinal())) != 0;
+    }
+
+    /**
+     * Retrieves the sample rate of the given log tag.
+     *
+     * @param tag the log tag
+     * @return the sample rate, every n-th record of the tag is written
+     */
+    public int logSampleRate(LogTag tag) {
+        return logSampleRates[tag.ordinal()];
+    }
+
+    private static int[] compileLogSampleRates(YamlConfiguration config) {
+        int fallback = Math.max(0, config.getInt("log-sampling.default", 1));
+
+        int[] rates = new int[LogTag.values().length];
+        for (LogTag tag : LogTag.values()) {
+            rates[tag.ordinal()] = Math.max(
+                0, config.getInt("log-sampling." + tag.name().toLowerCase().replace('_', '-'), fallback));
+        }
+        return rates;
+    }
+
+    private static long compileLoggedTags(int[] sampleRates) {
+        long mask = 0;
+        for (int ordinal = 0; ordinal < sampleRates.length; ordinal++) {
+            if (sampleRates[ordinal] > 0) {
+                mask |= 1L << ordinal;
+            }
+        }
+        return mask;
+    }
+
+    private static ViolationDecay[] compileViolationDecays(YamlConfiguration config) {
+        ViolationDecay fallback = compileViolationDecay(config, "violation-decay.default", ViolationDecay.DEFAULT);
+
+        ViolationDecay[] decays = new ViolationDecay[CheckType.values().length];
+        for (CheckType checkType : CheckType.values()) {
+            decays[checkType.ordinal()] = compileViolationDecay(
+                config, "violation-decay." + checkType.name().toLowerCase().replace('_', '-'), fallback);
+        }
+        return decays;
+    }
+
+    private static ViolationDecay compileViolationDecay(YamlConfiguration config, String path,
+                                                        ViolationDecay fallback) {
+        DecayCurve curve = DecayCurve.fromName(config.getString(path + ".curve", fallback.getCurve().name()));
+        double grace = config.getDouble(path + ".grace-period", fallback.getGraceMillis() / 1000.0);
+
+        // Only reuse the parameter of the fallback if it means the same for both curves
+        double parameter = curve == fallback.getCurve() ? fallback.getParameter() : 1.0;
+        parameter = config.getDouble(path + (curve == DecayCurve.EXPONENTIAL ? ".half-life" : ".rate"), parameter);
+
+        return new ViolationDecay(curve, (long) (grace * 1000), parameter);
+    }
+
+    private static int[] compileFrequencyLimits(YamlConfiguration config, int defaultLimit) {
+        int[] limits = new int[PacketType.Play.Client.values().length];
+        Arrays.fill(limits, defaultLimit);
+
+        // The first entry of a packet type wins, like the linear lookup it replaces
+        boolean[] assigned = new boolean[limits.length];
+        for (String entry : config.getStringList("generic-packet-frequency-limit")) {
+            String[] parts = entry.split(":");
+            PacketType.Play.Client packetType = parts.length == 2 ? packetType(parts[0]) : null;
+            if (packetType == null) {
+                Sierra.getPlugin().getLogger().warning("Ignoring invalid packet frequency limit: " + entry);
+                continue;
+            }
+            try {
+                int limit = Integer.parseInt(parts[1].trim());
+                if (!assigned[packetType.ordinal()]) {
+                    limits[packetType.ordinal()] = limit;
+                    assigned[packetType.ordinal()] = true;
+                }
+            } catch (NumberFormatException exception) {
+                Sierra.getPlugin().getLogger().warning("Ignoring invalid packet frequency limit: " + entry);
+            }
+        }
+        return limits;
+    }
+
+    private static BitSet compileFrequencyExclusions(YamlConfiguration config) {
+        BitSet excluded = new BitSet(PacketType.Play.Client.values().length);
+        for (String entry : config.getStringList("excluded-packets-from-limit")) {
+            PacketType.Play.Client packetType = packetType(entry);
+            if (packetType != null) {
+                excluded.set(packetType.ordinal());
+            }
+        }
+        return excluded;
+    }
+
+    private static PacketType.Play.Client packetType(String name) {
+        try {
+            return PacketType.Play.Client.valueOf(name.trim());
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+}
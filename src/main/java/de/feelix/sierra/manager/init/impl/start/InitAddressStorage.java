@@ -0,0 +1,21 @@
+package de.feelix.sierra.manager.init.impl.start;
+
+import de.feelix.sierra.Sierra;
+import de.feelix.sierra.manager.init.Initable;
+
+/**
+ * The InitAddressStorage class implements the Initable interface.
+ * It loads the blocked addresses and starts the background thread that evicts expired blocks.
+ *
+ * @see Initable
+ */
+public class InitAddressStorage implements Initable {
+
+    /**
+     * Starts the address storage of the plugin.
+     */
+    @Override
+    public void start() {
+        Sierra.getPlugin().getAddressStorage().start();
+    }
+}
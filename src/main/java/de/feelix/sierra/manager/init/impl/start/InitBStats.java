@@ -2,7 +2,7 @@ package de.feelix.sierra.manager.init.impl.start;
 
 import de.feelix.sierra.Sierra;
 import de.feelix.sierra.manager.init.Initable;
-import de.feelix.sierra.manager.storage.SierraDataManager;
+import de.feelix.sierra.manager.storage.metrics.SierraMetrics;
 import io.github.retrooper.packetevents.bstats.bukkit.Metrics;
 import io.github.retrooper.packetevents.bstats.charts.AdvancedPie;
 import io.github.retrooper.packetevents.bstats.charts.SingleLineChart;
@@ -22,6 +22,13 @@ public class InitBStats implements Initable {
      */
     private static final int PLUGIN_ID = 21527;
 
+    /**
+     * The bans and kicks counted up to the last submission. The charts submit the difference, since the counters of
+     * the metrics are never reset.
+     */
+    private long submittedBans;
+    private long submittedKicks;
+
     /**
      * The start() method initializes the bStats metrics for the Sierra plugin.
      * It sets up metrics for bans, kicks, and active check types.
@@ -30,25 +37,29 @@ public class InitBStats implements Initable {
     public void start() {
         Metrics metrics = new io.github.retrooper.packetevents.bstats.bukkit.Metrics(Sierra.getPlugin(), PLUGIN_ID);
 
+        SierraMetrics sierraMetrics = Sierra.getPlugin().getSierraMetrics();
+
         metrics.addCustomChart(new SingleLineChart(
             "bans",
             () -> {
-                int bans = SierraDataManager.BANS;
-                SierraDataManager.BANS = 0;
-                return bans;
+                long bans = sierraMetrics.bans();
+                int submitted = (int) (bans - submittedBans);
+                submittedBans = bans;
+                return submitted;
             }
         ));
         metrics.addCustomChart(new SingleLineChart(
             "kicks",
             () -> {
-                int kicks = SierraDataManager.KICKS;
-                SierraDataManager.KICKS = 0;
-                return kicks;
+                long kicks = sierraMetrics.kicks();
+                int submitted = (int) (kicks - submittedKicks);
+                submittedKicks = kicks;
+                return submitted;
             }
         ));
         metrics.addCustomChart(new AdvancedPie(
             "active_check_types",
-            () -> SierraDataManager.violationCount
+            sierraMetrics::punishmentsByCheck
         ));
     }
 }
@@ -2,6 +2,7 @@ package de.feelix.sierra.manager.init.impl.start;
 
 import de.feelix.sierra.Sierra;
 import de.feelix.sierra.listener.bukkit.BlockRedstoneListener;
+import de.feelix.sierra.listener.bukkit.PlayerStateListener;
 import de.feelix.sierra.manager.config.PunishmentConfig;
 import de.feelix.sierra.manager.init.Initable;
 import de.feelix.sierra.utilities.message.ConfigValue;
@@ -9,7 +10,7 @@ import org.bukkit.Bukkit;
 
 /**
  * The InitEnvironment class implements the Initable interface and represents the initialization of the environment for the Sierra plugin.
- * It sets the punishment configuration and registers the BlockRedstoneListener if the "block-redstone-loops" configuration option is set to true.
+ * It sets the punishment configuration, registers the PlayerStateListener and registers the BlockRedstoneListener if the "block-redstone-loops" configuration option is set to true.
  *
  * <p>
  * Example Usage:
@@ -30,6 +31,8 @@ public class InitEnvironment implements Initable {
         Sierra.getPlugin().setPunishmentConfig(PunishmentConfig.valueOf(
             new ConfigValue("internal-punishment-config", "HARD", false).message()));
 
+        Bukkit.getPluginManager().registerEvents(new PlayerStateListener(), Sierra.getPlugin());
+
         if (Sierra.getPlugin().getSierraConfigEngine().config().getBoolean("block-redstone-loops", true)) {
             Bukkit.getPluginManager().registerEvents(new BlockRedstoneListener(), Sierra.getPlugin());
         }
@@ -0,0 +1,21 @@
+package de.feelix.sierra.manager.init.impl.start;
+
+import de.feelix.sierra.manager.init.Initable;
+import de.feelix.sierra.manager.storage.history.HistoryStore;
+
+/**
+ * The InitHistoryStore class implements the Initable interface.
+ * It loads the stored history and starts the background thread that writes new entries.
+ *
+ * @see Initable
+ */
+public class InitHistoryStore implements Initable {
+
+    /**
+     * Starts the shared history store.
+     */
+    @Override
+    public void start() {
+        HistoryStore.start();
+    }
+}
@@ -0,0 +1,21 @@
+package de.feelix.sierra.manager.init.impl.start;
+
+import de.feelix.sierra.manager.init.Initable;
+import de.feelix.sierra.manager.storage.logger.LogWriter;
+
+/**
+ * The InitLogWriter class implements the Initable interface.
+ * It starts the background thread that writes the player logs.
+ *
+ * @see Initable
+ */
+public class InitLogWriter implements Initable {
+
+    /**
+     * Starts the shared log writer.
+     */
+    @Override
+    public void start() {
+        LogWriter.start();
+    }
+}
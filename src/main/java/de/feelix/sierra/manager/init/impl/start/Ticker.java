@@ -1,69 +1,57 @@
 package de.feelix.sierra.manager.init.impl.start;
 
-import com.github.retrooper.packetevents.protocol.player.GameMode;
 import de.feelix.sierra.Sierra;
 import de.feelix.sierra.manager.init.Initable;
 import de.feelix.sierra.manager.storage.SierraDataManager;
 import de.feelix.sierra.manager.storage.PlayerData;
-import de.feelix.sierraapi.check.impl.SierraCheck;
+import de.feelix.sierra.manager.storage.processor.TransactionScheduler;
+import de.feelix.sierra.utilities.TimingWheel;
 import io.github.retrooper.packetevents.util.folia.FoliaScheduler;
 import lombok.Getter;
-import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
 @Getter
 public class Ticker implements Initable {
 
+    /**
+     * The amount of ticks it takes the maintenance wheel to visit every player once.
+     */
+    private static final int MAINTENANCE_TICKS = 20;
+
     @Getter
     private static Ticker instance;
 
     private int currentTick;
 
+    /**
+     * The players whose maintenance is spread over the ticks of a second. Players are added once they joined, the
+     * rest of their state is kept up to date by events.
+     */
+    private final TimingWheel<PlayerData> maintenanceWheel = new TimingWheel<>(MAINTENANCE_TICKS);
+
+    /**
+     * Sends the transaction of every player once per tick, batched by event loop.
+     */
+    private final TransactionScheduler transactionScheduler = new TransactionScheduler();
+
     @Override
     public void start() {
         instance = this;
         scheduleTickTask();
-        scheduleByteResetTask();
-        schedulePlayerDataPollTask();
     }
 
     private void scheduleTickTask() {
-        FoliaScheduler.getAsyncScheduler().runAtFixedRate(Sierra.getPlugin(), o -> currentTick++, 1, 1);
-    }
-
-    private void scheduleByteResetTask() {
         FoliaScheduler.getAsyncScheduler().runAtFixedRate(Sierra.getPlugin(), o -> {
-            for (PlayerData value : SierraDataManager.getInstance().getPlayerData().values()) {
-                value.setBytesSent(0);
-            }
-        }, 0, 20);
-    }
-
-    private void schedulePlayerDataPollTask() {
-        FoliaScheduler.getAsyncScheduler().runAtFixedRate(Sierra.getPlugin(), o -> {
-            for (PlayerData value : SierraDataManager.getInstance().getPlayerData().values()) {
-                if (isUserValid(value)) {
-                    Player player = Bukkit.getPlayer(value.getUser().getName());
-                    if (player != null) {
-                        value.setGameMode(GameMode.valueOf(player.getGameMode().name()));
-                        value.pollData(player);
-                    }
-                }
-                handleCheckViolations(value);
-            }
-        }, 0, 1);
-    }
-
-    private boolean isUserValid(PlayerData playerData) {
-        return playerData.getUser() != null && playerData.getUser().getName() != null;
+            currentTick++;
+            transactionScheduler.tick(SierraDataManager.getInstance().getPlayerData().values());
+            maintenanceWheel.advance(this::maintain);
+        }, 1, 1);
     }
 
-    private void handleCheckViolations(PlayerData playerData) {
-        for (SierraCheck sierraCheck : playerData.getCheckManager().availableChecks()) {
-            boolean timeSinceLastDetection = System.currentTimeMillis() - sierraCheck.lastDetection() > 4000;
-            if (sierraCheck.violations() > 0 && timeSinceLastDetection) {
-                sierraCheck.setViolations(sierraCheck.violations() - 1);
-            }
+    private void maintain(PlayerData playerData) {
+        Object bukkitPlayer = playerData.getBukkitPlayer();
+        if (bukkitPlayer instanceof Player) {
+            playerData.refreshPermissions((Player) bukkitPlayer);
         }
     }
 }
@@ -0,0 +1,21 @@
+package de.feelix.sierra.manager.init.impl.stop;
+
+import de.feelix.sierra.Sierra;
+import de.feelix.sierra.manager.init.Initable;
+
+/**
+ * The DisableAddressStorage class implements the Initable interface.
+ * It saves the blocked addresses and stops the background thread of the address storage.
+ *
+ * @see Initable
+ */
+public class DisableAddressStorage implements Initable {
+
+    /**
+     * Stops the address storage once the blocks were saved.
+     */
+    @Override
+    public void start() {
+        Sierra.getPlugin().getAddressStorage().shutdown();
+    }
+}
@@ -0,0 +1,21 @@
+package de.feelix.sierra.manager.init.impl.stop;
+
+import de.feelix.sierra.manager.init.Initable;
+import de.feelix.sierra.manager.storage.history.HistoryStore;
+
+/**
+ * The DisableHistoryStore class implements the Initable interface.
+ * It writes the remaining history entries, closes the history file and stops the writer thread.
+ *
+ * @see Initable
+ */
+public class DisableHistoryStore implements Initable {
+
+    /**
+     * Stops the shared history store once everything was written.
+     */
+    @Override
+    public void start() {
+        HistoryStore.shutdown();
+    }
+}
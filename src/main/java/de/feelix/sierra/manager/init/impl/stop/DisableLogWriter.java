@@ -0,0 +1,21 @@
+package de.feelix.sierra.manager.init.impl.stop;
+
+import de.feelix.sierra.manager.init.Initable;
+import de.feelix.sierra.manager.storage.logger.LogWriter;
+
+/**
+ * The DisableLogWriter class implements the Initable interface.
+ * It writes the remaining log records, closes the log files and stops the log writer thread.
+ *
+ * @see Initable
+ */
+public class DisableLogWriter implements Initable {
+
+    /**
+     * Stops the shared log writer once everything was written.
+     */
+    @Override
+    public void start() {
+        LogWriter.shutdown();
+    }
+}
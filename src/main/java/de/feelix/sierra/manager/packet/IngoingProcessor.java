@@ -1,8 +1,12 @@
 package de.feelix.sierra.manager.packet;
 
 import com.github.retrooper.packetevents.event.PacketReceiveEvent;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
 import de.feelix.sierra.manager.storage.PlayerData;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * The IngoingProcessor interface represents a processor for handling incoming packets.
  */
@@ -15,4 +19,15 @@ public interface IngoingProcessor {
      * @param playerData The PlayerData object representing the data of the player who received the packet
      */
     void handle(PacketReceiveEvent event, PlayerData playerData);
+
+    /**
+     * Returns the play packet types this processor wants to receive. The CheckManager reads this once when it
+     * builds its dispatch table, so {@link #handle(PacketReceiveEvent, PlayerData)} is only called for these types.
+     * By default, the processor receives every incoming play packet.
+     *
+     * @return the set of client play packet types handled by this processor
+     */
+    default Set<PacketType.Play.Client> ingoingPacketTypes() {
+        return EnumSet.allOf(PacketType.Play.Client.class);
+    }
 }
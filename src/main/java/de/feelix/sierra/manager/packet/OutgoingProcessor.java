@@ -1,8 +1,12 @@
 package de.feelix.sierra.manager.packet;
 
 import com.github.retrooper.packetevents.event.PacketSendEvent;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
 import de.feelix.sierra.manager.storage.PlayerData;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * The OutgoingProcessor interface represents a processor for handling outgoing packets.
  */
@@ -17,4 +21,15 @@ public interface OutgoingProcessor {
      */
     void handle(PacketSendEvent event, PlayerData playerData);
 
+    /**
+     * Returns the play packet types this processor wants to receive. The CheckManager reads this once when it
+     * builds its dispatch table, so {@link #handle(PacketSendEvent, PlayerData)} is only called for these types.
+     * By default, the processor receives every outgoing play packet.
+     *
+     * @return the set of server play packet types handled by this processor
+     */
+    default Set<PacketType.Play.Server> outgoingPacketTypes() {
+        return EnumSet.allOf(PacketType.Play.Server.class);
+    }
+
 }
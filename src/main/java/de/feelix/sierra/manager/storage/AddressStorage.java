@@ -1,85 +1,236 @@
 package de.feelix.sierra.manager.storage;
 
 import de.feelix.sierra.Sierra;
+import de.feelix.sierra.utilities.TimingWheel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.io.*;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
- * The AddressStorage class is responsible for storing and managing IP addresses
- * along with their corresponding added time.
+ * The AddressStorage class is responsible for storing the IP addresses of punished players, so their connections are
+ * blocked until the configured block time passed.
+ * <p>
+ * Addresses are packed into two longs, IPv4 addresses as IPv4-mapped IPv6 addresses, and mapped to the monotonic time
+ * their block expires. Lookups and blocks are safe from any thread. Expired blocks are evicted in the background by a
+ * {@link TimingWheel} that visits every address once a minute, so addresses that never connect again do not stay
+ * forever. The blocks are saved to a snapshot file, so they survive restarts.
  */
 public class AddressStorage {
 
+    private static final String SNAPSHOT_FILE     = "blocked-addresses.sierra";
+    private static final int    SNAPSHOT_VERSION  = 1;
+    private static final int    EVICTION_SLOTS    = 60;
+    private static final long   EVICTION_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+    private static final long   SNAPSHOT_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
     /**
-     * The ipAddresses variable is a private final Map object that stores the IP addresses along with their
-     * corresponding added time.
-     * The Map is implemented using the HashMap class.
-     * The keys in the Map represent the IP addresses, while the values represent the corresponding added time in
-     * LocalDateTime format.
-     * The variable is declared with the "private" access modifier, which means it can only be accessed within the
-     * class it is defined in.
-     * It is also declared with the "final" modifier, which means its value cannot be changed after initialization.
-     * <p>
-     * Example usage:
-     * <p>
-     * private final Map<String, LocalDateTime> ipAddresses = new HashMap<>();
+     * The blocked addresses, mapped to the {@link System#nanoTime()} their block expires.
      */
-    private final Map<String, LocalDateTime> ipAddresses = new HashMap<>();
+    private final Map<PackedAddress, Long>  blocks        = new ConcurrentHashMap<>();
+    private final TimingWheel<PackedAddress> evictionWheel = new TimingWheel<>(EVICTION_SLOTS);
+
+    private final File file = new File("plugins/Sierra/", SNAPSHOT_FILE);
+
+    private ScheduledExecutorService executor;
+    private volatile boolean         dirty;
 
     /**
-     * Adds the given IP address to the AddressStorage object.
-     * The IP address is associated with the current LocalDateTime.
+     * Blocks the given IP address for the configured block time.
      *
-     * @param ipAddress the IP address to be added
+     * @param address the IP address to be blocked
      */
-    public void addIPAddress(String ipAddress) {
-        if (ipAddress.equalsIgnoreCase("127.0.0.1")) return;
-        ipAddresses.put(ipAddress, LocalDateTime.now());
+    public void block(InetAddress address) {
+        long blockTime = TimeUnit.MINUTES.toNanos(
+            Sierra.getPlugin().getSierraConfigEngine().settings().getConnectionBlockTime());
+        put(pack(address), System.nanoTime() + blockTime);
     }
 
     /**
-     * Checks if the given IP address is considered invalid based on its added time.
+     * Checks if the given IP address is blocked.
      *
-     * @param ipAddress the IP address to check
-     * @return true if the IP address is invalid, false otherwise
+     * @param address the IP address to check
+     * @return true if the IP address is blocked, false otherwise
+     */
+    public boolean isBlocked(InetAddress address) {
+        Long expiry = blocks.get(pack(address));
+        return expiry != null && expiry - System.nanoTime() > 0;
+    }
+
+    /**
+     * Retrieves the amount of blocked addresses, including expired blocks that were not evicted yet.
+     *
+     * @return the amount of addresses
+     */
+    public int size() {
+        return blocks.size();
+    }
+
+    /**
+     * Loads the snapshot and starts the background thread that evicts expired blocks and saves the snapshot.
+     */
+    public synchronized void start() {
+        if (executor != null) return;
+
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            Sierra.getPlugin().getLogger().warning("Unable to load blocked addresses: " + e.getMessage());
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Sierra Address Storage");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(
+            this::evictExpired, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(
+            this::saveIfDirty, SNAPSHOT_INTERVAL, SNAPSHOT_INTERVAL, TimeUnit.MILLISECONDS);
+        Sierra.getPlugin().getSierraMetrics().registerGauge("blocked-addresses", this::size);
+    }
+
+    /**
+     * Saves the snapshot and stops the background thread.
+     */
+    public synchronized void shutdown() {
+        if (executor == null) return;
+
+        executor.execute(this::saveIfDirty);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    private void put(PackedAddress key, long expiry) {
+        // The first instance of a key stays in the map, so the wheel, which compares by identity, holds the same one
+        if (blocks.put(key, expiry) == null) {
+            evictionWheel.add(key);
+        }
+        dirty = true;
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        evictionWheel.advance(key -> {
+            Long expiry = blocks.get(key);
+            // Only removed if it was not blocked again in the meantime
+            if (expiry == null || expiry - now <= 0 && blocks.remove(key, expiry)) {
+                evictionWheel.remove(key);
+                dirty = true;
+            }
+        });
+    }
+
+    private void saveIfDirty() {
+        if (!dirty) return;
+        dirty = false;
+
+        try {
+            save();
+        } catch (IOException e) {
+            dirty = true;
+            Sierra.getPlugin().getLogger().warning("Unable to save blocked addresses: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every unexpired block to a new snapshot, which replaces the old one at once. Monotonic times do not
+     * outlast the process, so the expiry is stored as wall clock time.
      */
-    public boolean invalid(String ipAddress) {
-        LocalDateTime addedTime = ipAddresses.get(ipAddress);
-        if (addedTime == null) {
-            return false;
+    private void save() throws IOException {
+        File directory = file.getParentFile();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Failed to create directory " + directory.getAbsolutePath());
+        }
+
+        long nanoTime = System.nanoTime();
+        long currentTime = System.currentTimeMillis();
+        File temporary = new File(directory, SNAPSHOT_FILE + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            output.writeInt(SNAPSHOT_VERSION);
+            for (Map.Entry<PackedAddress, Long> entry : blocks.entrySet()) {
+                long remaining = entry.getValue() - nanoTime;
+                if (remaining <= 0) continue;
+
+                output.writeLong(entry.getKey().high);
+                output.writeLong(entry.getKey().low);
+                output.writeLong(currentTime + TimeUnit.NANOSECONDS.toMillis(remaining));
+            }
         }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void load() throws IOException {
+        if (!file.exists()) return;
 
-        if (isOlderThanFifteenMinutes(addedTime)) {
-            removeIPAddress(ipAddress);
-            return false;
+        long nanoTime = System.nanoTime();
+        long currentTime = System.currentTimeMillis();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int version = input.readInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("Unknown snapshot version " + version);
+            }
+            while (true) {
+                long high;
+                try {
+                    high = input.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                long low = input.readLong();
+                long remaining = input.readLong() - currentTime;
+                if (remaining > 0) {
+                    put(new PackedAddress(high, low), nanoTime + TimeUnit.MILLISECONDS.toNanos(remaining));
+                }
+            }
         }
-        return true;
+        dirty = false;
     }
 
     /**
-     * Checks if the given addedTime is older than fifteen minutes.
-     *
-     * @param addedTime the LocalDateTime representing the time the IP address was added
-     * @return true if the addedTime is older than fifteen minutes, false otherwise
+     * Packs an IP address into two longs. IPv4 addresses are mapped to ::ffff:a.b.c.d, so both kinds share a key.
      */
-    private boolean isOlderThanFifteenMinutes(LocalDateTime addedTime) {
-        Duration duration = Duration.between(addedTime, LocalDateTime.now());
-        return duration.toMinutes() > Sierra.getPlugin()
-            .getSierraConfigEngine()
-            .config()
-            .getInt("connection-block-time", 15);
+    private static PackedAddress pack(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 4) {
+            long ipv4 = 0;
+            for (byte value : bytes) {
+                ipv4 = ipv4 << 8 | value & 0xFFL;
+            }
+            return new PackedAddress(0, 0xFFFF00000000L | ipv4);
+        }
+
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 8; i++) {
+            high = high << 8 | bytes[i] & 0xFFL;
+            low = low << 8 | bytes[i + 8] & 0xFFL;
+        }
+        return new PackedAddress(high, low);
     }
 
     /**
-     * Removes the given IP address from the AddressStorage object.
-     * The IP address will no longer be associated with its corresponding added time.
-     *
-     * @param ipAddress the IP address to be removed
+     * An IPv6 address, or an IPv4-mapped IPv6 address, packed into two longs.
      */
-    private void removeIPAddress(String ipAddress) {
-        ipAddresses.remove(ipAddress);
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static final class PackedAddress {
+        private final long high;
+        private final long low;
     }
 }
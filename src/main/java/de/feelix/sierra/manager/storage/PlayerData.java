@@ -49,12 +49,10 @@ public class PlayerData implements SierraUser {
     private boolean nameChecked = false;
     private boolean bypassPermission = false;
 
-    private double bytesSent = 0;
-
     private final AlertSettings alertSettings = new AbstractAlertSetting();
     private final AlertSettings mitigationSettings = new AbstractAlertSetting();
 
-    private SierraLogger sierraLogger;
+    private final SierraLogger sierraLogger;
     private final CheckManager checkManager = new CheckManager(this);
     private final BrandProcessor brandProcessor = new BrandProcessor(this);
     private final GameModeProcessor gameModeProcessor = new GameModeProcessor(this);
@@ -66,17 +64,27 @@ public class PlayerData implements SierraUser {
     public PlayerData(User user) {
         this.user = user;
         this.clientVersion = user.getClientVersion();
-        this.sierraLogger = new SierraLogger("INVALID");
+        this.sierraLogger = new SierraLogger(user);
     }
 
-    public void pollData(Player bukkitPlayer) {
+    /**
+     * Binds the Bukkit player to this data once it joined and takes over its game mode and permissions.
+     *
+     * @param bukkitPlayer the joined player
+     */
+    public void bindPlayer(Player bukkitPlayer) {
         this.bukkitPlayer = bukkitPlayer;
+        this.gameMode = GameMode.valueOf(bukkitPlayer.getGameMode().name());
+        refreshPermissions(bukkitPlayer);
+    }
+
+    /**
+     * Reads the permissions of the Bukkit player again.
+     *
+     * @param bukkitPlayer the player of this data
+     */
+    public void refreshPermissions(Player bukkitPlayer) {
         bypassPermission = bukkitPlayer.hasPermission("sierra.bypass");
-        if (this.sierraLogger.getPlayerName().equalsIgnoreCase("INVALID")) {
-            this.sierraLogger.close();
-            sierraLogger = new SierraLogger(bukkitPlayer.getName());
-        }
-        sendTransaction();
     }
 
     public ClientVersion getClientVersion() {
@@ -100,7 +108,7 @@ public class PlayerData implements SierraUser {
     }
 
     public void sendTransaction() {
-        this.transactionProcessor.sendTransaction(true);
+        this.transactionProcessor.sendTransaction();
     }
 
     public void exceptionDisconnect(Exception exception) {
@@ -122,7 +130,7 @@ public class PlayerData implements SierraUser {
     }
 
     private void ban() {
-        SierraDataManager.increaseBanValue();
+        Sierra.getPlugin().getSierraMetrics().recordBan();
         FoliaScheduler.getGlobalRegionScheduler().run(Sierra.getPlugin(), o -> Bukkit.dispatchCommand(
             Bukkit.getConsoleSender(),
             new ConfigValue("punish-command", "ban {username} Crashing", false)
@@ -196,7 +204,7 @@ public class PlayerData implements SierraUser {
     @Override
     public boolean kick() {
         if (user != null) {
-            SierraDataManager.increaseKickValue();
+            Sierra.getPlugin().getSierraMetrics().recordKick();
             user.closeConnection();
             return true;
         }
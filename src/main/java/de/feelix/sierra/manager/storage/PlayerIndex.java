@@ -0,0 +1,115 @@
+package de.feelix.sierra.manager.storage;
+
+import com.github.retrooper.packetevents.protocol.player.User;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The PlayerIndex class keeps secondary indexes of the connected players by UUID, entity id and lower-cased name,
+ * so that users can be looked up in constant time instead of scanning every connection.
+ * <p>
+ * The keys of a player are read from its PacketEvents user whenever it is indexed, which happens on connect, once
+ * the login resolved its name and UUID, and whenever the server assigns a new entity id. The keys a player was
+ * indexed with are remembered, so outdated entries are removed when it is indexed again or removed.
+ */
+public class PlayerIndex {
+
+    private final Map<UUID, PlayerData>    byUuid     = new ConcurrentHashMap<>();
+    private final Map<Integer, PlayerData> byEntityId = new ConcurrentHashMap<>();
+    private final Map<String, PlayerData>  byName     = new ConcurrentHashMap<>();
+    private final Map<User, IndexedKeys>   keys       = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes the given player with the current UUID, entity id and name of its user, replacing its previous keys.
+     *
+     * @param data the player to index
+     */
+    public synchronized void index(PlayerData data) {
+        User user = data.getUser();
+        if (user == null) return;
+
+        IndexedKeys current = new IndexedKeys(user.getUUID(), user.getEntityId(), lowerCase(user.getName()));
+        IndexedKeys previous = keys.put(user, current);
+        if (previous != null) {
+            unlink(data, previous);
+        }
+
+        if (current.uuid != null) byUuid.put(current.uuid, data);
+        if (current.entityId >= 0) byEntityId.put(current.entityId, data);
+        if (current.name != null) byName.put(current.name, data);
+    }
+
+    /**
+     * Removes the given player and all of its keys from the index.
+     *
+     * @param data the player to remove
+     */
+    public synchronized void remove(PlayerData data) {
+        IndexedKeys previous = data.getUser() == null ? null : keys.remove(data.getUser());
+        if (previous != null) {
+            unlink(data, previous);
+        }
+    }
+
+    /**
+     * Retrieves the player with the given UUID.
+     *
+     * @param uuid the UUID of the player
+     * @return the player, or null if no connected player has the UUID
+     */
+    public PlayerData byUuid(UUID uuid) {
+        return uuid == null ? null : byUuid.get(uuid);
+    }
+
+    /**
+     * Retrieves the player with the given entity id.
+     *
+     * @param entityId the entity id of the player
+     * @return the player, or null if no connected player has the entity id
+     */
+    public PlayerData byEntityId(int entityId) {
+        return byEntityId.get(entityId);
+    }
+
+    /**
+     * Retrieves the player with the given name, ignoring case.
+     *
+     * @param name the name of the player
+     * @return the player, or null if no connected player has the name
+     */
+    public PlayerData byName(String name) {
+        return name == null ? null : byName.get(lowerCase(name));
+    }
+
+    private void unlink(PlayerData data, IndexedKeys previous) {
+        // Only remove entries that still point to this player, another one may have taken over the key
+        if (previous.uuid != null) unlink(byUuid, previous.uuid, data);
+        if (previous.entityId >= 0) unlink(byEntityId, previous.entityId, data);
+        if (previous.name != null) unlink(byName, previous.name, data);
+    }
+
+    private static <K> void unlink(Map<K, PlayerData> index, K key, PlayerData data) {
+        // Compared by identity, since player data is mutable and compares by value
+        index.computeIfPresent(key, (ignored, indexed) -> indexed == data ? null : indexed);
+    }
+
+    private static String lowerCase(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class IndexedKeys {
+
+        private final UUID   uuid;
+        private final int    entityId;
+        private final String name;
+
+        private IndexedKeys(UUID uuid, int entityId, String name) {
+            this.uuid = uuid;
+            this.entityId = entityId;
+            this.name = name;
+        }
+    }
+}
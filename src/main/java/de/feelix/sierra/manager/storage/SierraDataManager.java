@@ -1,20 +1,30 @@
 package de.feelix.sierra.manager.storage;
 
 import com.github.retrooper.packetevents.PacketEvents;
-import com.github.retrooper.packetevents.event.PacketListenerCommon;
+import com.github.retrooper.packetevents.event.PacketListenerAbstract;
+import com.github.retrooper.packetevents.event.PacketListenerPriority;
+import com.github.retrooper.packetevents.event.PacketSendEvent;
 import com.github.retrooper.packetevents.event.UserConnectEvent;
 import com.github.retrooper.packetevents.event.UserDisconnectEvent;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
 import com.github.retrooper.packetevents.protocol.player.User;
 import de.feelix.sierra.Sierra;
+import de.feelix.sierra.manager.init.impl.start.Ticker;
 import de.feelix.sierra.manager.storage.history.HistoryDocument;
+import de.feelix.sierra.manager.storage.history.HistoryQueryResult;
+import de.feelix.sierra.manager.storage.history.HistoryStore;
 import de.feelix.sierra.utilities.update.UpdateChecker;
-import de.feelix.sierraapi.check.CheckType;
 import de.feelix.sierraapi.events.impl.AsyncHistoryCreateEvent;
 import de.feelix.sierraapi.history.History;
+import de.feelix.sierraapi.history.HistoryQuery;
+import de.feelix.sierraapi.history.HistoryResult;
 import de.feelix.sierraapi.history.HistoryType;
 import de.feelix.sierraapi.violation.MitigationStrategy;
 import io.github.retrooper.packetevents.adventure.serializer.legacy.LegacyComponentSerializer;
 import io.github.retrooper.packetevents.util.folia.FoliaScheduler;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
 import lombok.Getter;
 import de.feelix.sierraapi.user.UserRepository;
 import de.feelix.sierraapi.user.impl.SierraUser;
@@ -24,8 +34,9 @@ import net.kyori.adventure.text.event.HoverEvent;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
-import java.lang.ref.WeakReference;
+import java.net.InetAddress;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
@@ -41,9 +52,6 @@ public class SierraDataManager implements UserRepository {
     private static final String GITHUB_API_RELEASES = "/releases/latest";
 
     public static final String UNKNOWN_VERSION = "UNKNOWN";
-    public static final Map<String, Integer> violationCount = new HashMap<>();
-    public static int KICKS = 0;
-    public static int BANS = 0;
     public static boolean skipSkullUUIDCheck = false;
     public static boolean skipModelCheck = false;
     public static boolean skipAnvilCheck = false;
@@ -51,16 +59,21 @@ public class SierraDataManager implements UserRepository {
 
     @Getter
     private static SierraDataManager instance;
+    private static final AttributeKey<Object> PLAYER_DATA_KEY = AttributeKey.valueOf("sierra_player_data");
+
     private final Map<User, PlayerData> playerData = new ConcurrentHashMap<>();
-    private final List<History> histories = new ArrayList<>();
+    private final PlayerIndex playerIndex = new PlayerIndex();
 
     public SierraDataManager() {
         instance = this;
         initializePacketListeners();
+        Sierra.getPlugin().getSierraMetrics().registerGauge("players", playerData::size);
     }
 
     private void initializePacketListeners() {
-        PacketEvents.getAPI().getEventManager().registerListener(new PacketListenerCommon() {
+        // Monitor priority, so PacketEvents already applied the login profile and entity id to the user
+        PacketEvents.getAPI().getEventManager().registerListener(new PacketListenerAbstract(
+            PacketListenerPriority.MONITOR) {
             @Override
             public void onUserConnect(UserConnectEvent event) {
                 User user = event.getUser();
@@ -69,6 +82,15 @@ public class SierraDataManager implements UserRepository {
                 checkForUpdate(user);
             }
 
+            @Override
+            public void onPacketSend(PacketSendEvent event) {
+                PacketTypeCommon packetType = event.getPacketType();
+                if (packetType == PacketType.Login.Server.LOGIN_SUCCESS
+                    || packetType == PacketType.Play.Server.JOIN_GAME) {
+                    reindexPlayerData(event.getUser());
+                }
+            }
+
             @Override
             public void onUserDisconnect(UserDisconnectEvent event) {
                 removePlayerData(event.getUser());
@@ -77,14 +99,14 @@ public class SierraDataManager implements UserRepository {
     }
 
     private void checkIfBlocked(User user) {
-        if (Sierra.getPlugin().getSierraConfigEngine().config().getBoolean("block-connections-after-ban", true)) {
-            String hostAddress = user.getAddress().getAddress().getHostAddress();
-            if (Sierra.getPlugin().getAddressStorage().invalid(hostAddress)) {
+        if (Sierra.getPlugin().getSierraConfigEngine().settings().isBlockConnectionsAfterBan()) {
+            InetAddress address = user.getAddress().getAddress();
+            if (Sierra.getPlugin().getAddressStorage().isBlocked(address)) {
                 Sierra.getPlugin()
                     .getLogger()
-                    .info("Connection of " + hostAddress + " got blocked, cause it was punished recently");
+                    .info("Connection of " + address.getHostAddress() + " got blocked, cause it was punished recently");
 
-                PlayerData data = getPlayerData(user).get();
+                PlayerData data = getPlayerData(user);
 
                 if (data != null) {
                     data.punish(MitigationStrategy.KICK);
@@ -136,11 +158,6 @@ public class SierraDataManager implements UserRepository {
         return player.hasPermission("sierra.update") || player.isOp();
     }
 
-    public void addKick(CheckType checkType) {
-        String name = checkType.getFriendlyName().replace(" ", "");
-        violationCount.merge(name, 1, Integer::sum);
-    }
-
     private void sendMessage(User user) {
         String localVersion = Sierra.getPlugin().getDescription().getVersion();
         String latestReleaseVersion = Sierra.getPlugin().getUpdateChecker().getLatestReleaseVersion();
@@ -180,64 +197,102 @@ public class SierraDataManager implements UserRepository {
                         AsyncHistoryCreateEvent event = new AsyncHistoryCreateEvent(document);
                         Sierra.getPlugin().getEventBus().publish(event);
 
-                        if (!event.isCancelled()) {
-                            histories.add(document);
+                        HistoryStore historyStore = HistoryStore.getInstance();
+                        if (!event.isCancelled() && historyStore != null) {
+                            historyStore.add(document);
                         }
                     }
             );
     }
 
-    public WeakReference<PlayerData> getPlayerData(User user) {
-        return new WeakReference<>(playerData.get(user));
+    /**
+     * Retrieves the PlayerData of the given user. The data is read from the attribute of the user's channel, so
+     * the lookup on the packet path neither allocates nor hashes. Users without an attached channel are looked up in
+     * the player data map instead.
+     *
+     * @param user the user whose data to retrieve
+     * @return the PlayerData of the user, or null if the user is not connected
+     */
+    public PlayerData getPlayerData(User user) {
+        if (user == null) return null;
+
+        Object channel = user.getChannel();
+        if (channel instanceof Channel) {
+            // Checked by type, data attached by a previous load of the plugin has a different class
+            Object attached = ((Channel) channel).attr(PLAYER_DATA_KEY).get();
+            if (attached instanceof PlayerData) {
+                return (PlayerData) attached;
+            }
+        }
+        return playerData.get(user);
     }
 
     public void addPlayerData(User user) {
-        playerData.put(user, new PlayerData(user));
+        PlayerData data = new PlayerData(user);
+        playerData.put(user, data);
+        playerIndex.index(data);
+
+        Object channel = user.getChannel();
+        if (channel instanceof Channel) {
+            ((Channel) channel).attr(PLAYER_DATA_KEY).set(data);
+        }
     }
 
-    public void removePlayerData(User user) {
+    /**
+     * Updates the lookup indexes of the given user after its name, UUID or entity id changed.
+     *
+     * @param user the user to reindex
+     */
+    public void reindexPlayerData(User user) {
         PlayerData data = playerData.get(user);
-
-        if (data != null && data.getSierraLogger() != null) {
-            data.getSierraLogger().close();
+        if (data != null) {
+            playerIndex.index(data);
         }
-        playerData.remove(user);
     }
 
-    public static void increaseKickValue() {
-        SierraDataManager.KICKS++;
-    }
+    public void removePlayerData(User user) {
+        Object channel = user.getChannel();
+        if (channel instanceof Channel) {
+            ((Channel) channel).attr(PLAYER_DATA_KEY).set(null);
+        }
 
-    public static void increaseBanValue() {
-        SierraDataManager.BANS++;
+        // Unregistered before it leaves the wheel, a concurrent bind checks the registration after adding it
+        PlayerData data = playerData.remove(user);
+        if (data != null) {
+            playerIndex.remove(data);
+            if (Ticker.getInstance() != null) {
+                Ticker.getInstance().getMaintenanceWheel().remove(data);
+            }
+        }
     }
 
     @Override
     public Optional<SierraUser> queryUserByUuid(UUID uuid) {
-        return playerData.keySet().stream()
-            .filter(user -> user.getUUID().equals(uuid))
-            .map(user -> (SierraUser) playerData.get(user))
-            .findFirst();
+        return Optional.ofNullable(playerIndex.byUuid(uuid));
     }
 
     @Override
     public Optional<SierraUser> queryUserByEntityId(int id) {
-        return playerData.keySet().stream()
-            .filter(user -> user.getEntityId() == id)
-            .map(user -> (SierraUser) playerData.get(user))
-            .findFirst();
+        return Optional.ofNullable(playerIndex.byEntityId(id));
     }
 
     @Override
     public Optional<SierraUser> queryUserByName(String name) {
-        return playerData.keySet().stream()
-            .filter(user -> user.getName().equalsIgnoreCase(name))
-            .map(user -> (SierraUser) playerData.get(user))
-            .findFirst();
+        return Optional.ofNullable(playerIndex.byName(name));
     }
 
     @Override
     public List<History> getLocalActionHistory() {
-        return histories;
+        HistoryStore historyStore = HistoryStore.getInstance();
+        return historyStore == null ? Collections.emptyList() : historyStore.recent();
+    }
+
+    @Override
+    public CompletableFuture<HistoryResult> queryHistory(HistoryQuery query) {
+        HistoryStore historyStore = HistoryStore.getInstance();
+        if (historyStore == null) {
+            return CompletableFuture.completedFuture(HistoryQueryResult.EMPTY);
+        }
+        return historyStore.query(query);
     }
 }
@@ -20,7 +20,13 @@ public class HistoryDocument implements History {
     private final MitigationStrategy mitigationStrategy;
     private final HistoryType        historyType;
 
-    private final long timestamp = System.currentTimeMillis();
+    private final long timestamp;
+
+    public HistoryDocument(String username, String description, String clientVersion, long ping,
+                           MitigationStrategy mitigationStrategy, HistoryType historyType) {
+        this(username, description, clientVersion, ping, mitigationStrategy, historyType,
+             System.currentTimeMillis());
+    }
 
     @Override
     public String username() {
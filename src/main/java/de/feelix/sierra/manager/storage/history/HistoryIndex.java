@@ -0,0 +1,211 @@
+package de.feelix.sierra.manager.storage.history;
+
+import de.feelix.sierraapi.history.History;
+import de.feelix.sierraapi.history.HistoryType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The HistoryIndex class indexes the entries of the history file in the order they were appended, which is the order
+ * of their timestamps. The store sorts every batch by time before it appends it; an entry still older than the one
+ * before it, e.g. after the clock stepped back, is indexed with its timestamp raised to the one before it, so the
+ * binary search over the timestamps stays valid while the entry keeps its own timestamp. Every entry has a position,
+ * the index keeps the file offset and timestamp of each position and the positions of each username and history type
+ * in ascending order. The type and mitigation strategy of each position are kept as well, so filters on them are
+ * checked without reading the file.
+ * <p>
+ * A filtered selection is a range of one of these position lists, so a page of the newest entries is read by counting
+ * back from the end of the range instead of sorting the whole history.
+ */
+class HistoryIndex {
+
+    private long[] offsets    = new long[1024];
+    private long[] timestamps = new long[1024];
+    private byte[] types      = new byte[1024];
+    private byte[] strategies = new byte[1024];
+    private int    size;
+
+    private final PositionList[]            byType     = new PositionList[HistoryType.values().length];
+    private final Map<String, PositionList> byUsername = new HashMap<>();
+
+    HistoryIndex() {
+        for (int i = 0; i < byType.length; i++) {
+            byType[i] = new PositionList();
+        }
+    }
+
+    /**
+     * Adds an entry at the next position.
+     *
+     * @param offset  the offset of the entry in the history file
+     * @param history the entry
+     */
+    void add(long offset, History history) {
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size << 1);
+            timestamps = Arrays.copyOf(timestamps, size << 1);
+            types = Arrays.copyOf(types, size << 1);
+            strategies = Arrays.copyOf(strategies, size << 1);
+        }
+        offsets[size] = offset;
+        timestamps[size] = size == 0 ? history.timestamp() : Math.max(timestamps[size - 1], history.timestamp());
+        types[size] = (byte) history.historyType().ordinal();
+        strategies[size] = (byte) history.mitigationStrategy().ordinal();
+
+        byType[history.historyType().ordinal()].add(size);
+        byUsername.computeIfAbsent(history.username().toLowerCase(Locale.ROOT), key -> new PositionList()).add(size);
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long offset(int position) {
+        return offsets[position];
+    }
+
+    int strategy(int position) {
+        return strategies[position];
+    }
+
+    /**
+     * Finds the first position whose timestamp is after the given time.
+     *
+     * @param until the latest timestamp, inclusive
+     * @return the first position after the time, or the size if there is none
+     */
+    int firstPositionAfter(long until) {
+        return until == Long.MAX_VALUE ? size : firstPositionSince(until + 1);
+    }
+
+    /**
+     * Selects the positions of the entries matching all given filters.
+     *
+     * @param username the username of the entries, ignoring case, or null for all users
+     * @param type     the type of the entries, or null for all types
+     * @param since    the earliest timestamp of the entries, or 0 for all entries
+     * @return the ascending positions of the matching entries
+     */
+    Selection select(String username, HistoryType type, long since) {
+        int first = firstPositionSince(since);
+
+        PositionList positions;
+        if (username != null) {
+            positions = byUsername.get(username.toLowerCase(Locale.ROOT));
+            if (positions == null) return new Selection(new PositionList(), 0, 0);
+            if (type != null) {
+                positions = filter(positions, first, type);
+                return new Selection(positions, 0, positions.size);
+            }
+        } else if (type != null) {
+            positions = byType[type.ordinal()];
+        } else {
+            return new Selection(null, first, size);
+        }
+        return new Selection(positions, positions.firstIndexOf(first), positions.size);
+    }
+
+    /**
+     * Creates a list of the positions of the given list with the given type, starting at the given position. This
+     * only walks the entries of a single user, which are few compared to the entries of a type.
+     */
+    private PositionList filter(PositionList positions, int first, HistoryType type) {
+        PositionList filtered = new PositionList();
+        for (int i = positions.firstIndexOf(first); i < positions.size; i++) {
+            int position = positions.positions[i];
+            if (types[position] == type.ordinal()) {
+                filtered.add(position);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Finds the first position whose timestamp is not before the given time.
+     */
+    private int firstPositionSince(long since) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] < since) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * An ascending range of positions.
+     */
+    static final class Selection {
+
+        /**
+         * The list the range belongs to, or null if the range holds the positions themselves.
+         */
+        private final PositionList positions;
+        private final int          from;
+        private final int          to;
+
+        private Selection(PositionList positions, int from, int to) {
+            this.positions = positions;
+            this.from = from;
+            this.to = to;
+        }
+
+        int count() {
+            return to - from;
+        }
+
+        /**
+         * Retrieves a position of the selection.
+         *
+         * @param index the index within the selection, 0 is the oldest entry
+         * @return the position of the entry
+         */
+        int position(int index) {
+            return positions == null ? from + index : positions.positions[from + index];
+        }
+
+        /**
+         * Counts the positions of the selection before the given position.
+         *
+         * @param position the position
+         * @return the index of the first entry of the selection not before the position
+         */
+        int countBefore(int position) {
+            int index = positions == null ? position - from : positions.firstIndexOf(position) - from;
+            return Math.max(0, Math.min(index, count()));
+        }
+    }
+
+    /**
+     * An ascending list of positions.
+     */
+    private static final class PositionList {
+
+        private int[] positions = new int[8];
+        private int   size;
+
+        void add(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size << 1);
+            }
+            positions[size++] = position;
+        }
+
+        /**
+         * Finds the index of the first position not before the given position.
+         */
+        int firstIndexOf(int position) {
+            int index = Arrays.binarySearch(positions, 0, size, position);
+            return index < 0 ? -index - 1 : index;
+        }
+    }
+}
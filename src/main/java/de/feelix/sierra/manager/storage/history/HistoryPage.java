@@ -0,0 +1,28 @@
+package de.feelix.sierra.manager.storage.history;
+
+import de.feelix.sierraapi.history.History;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The HistoryPage class is a single page of a history query.
+ */
+@Getter
+@AllArgsConstructor
+public class HistoryPage {
+
+    /**
+     * The entries of the page, newest first.
+     */
+    private final List<History> entries;
+
+    private final int page;
+    private final int totalPages;
+
+    /**
+     * The amount of entries matching the query on all pages.
+     */
+    private final int totalEntries;
+}
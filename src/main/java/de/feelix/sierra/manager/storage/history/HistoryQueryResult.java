@@ -0,0 +1,33 @@
+package de.feelix.sierra.manager.storage.history;
+
+import de.feelix.sierraapi.history.History;
+import de.feelix.sierraapi.history.HistoryResult;
+import lombok.AllArgsConstructor;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The HistoryQueryResult class is the result of a {@link de.feelix.sierraapi.history.HistoryQuery}.
+ */
+@AllArgsConstructor
+public class HistoryQueryResult implements HistoryResult {
+
+    /**
+     * The result without entries.
+     */
+    public static final HistoryQueryResult EMPTY = new HistoryQueryResult(Collections.emptyList(), -1);
+
+    private final List<History> entries;
+    private final long          nextCursor;
+
+    @Override
+    public List<History> entries() {
+        return entries;
+    }
+
+    @Override
+    public long nextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,48 @@
+package de.feelix.sierra.manager.storage.history;
+
+import de.feelix.sierraapi.history.History;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The HistoryRing class keeps the most recent history entries in memory. It holds a fixed amount of entries and
+ * overwrites the oldest one once it is full, so its memory stays the same no matter how long the server runs.
+ * Older entries are only available from the {@link HistoryStore}.
+ * <p>
+ * All methods are synchronized, entries are added from async tasks and read by commands.
+ */
+class HistoryRing {
+
+    private final History[] entries;
+
+    /**
+     * The index the next entry is written to.
+     */
+    private int next;
+    private int size;
+
+    HistoryRing(int capacity) {
+        this.entries = new History[Math.max(1, capacity)];
+    }
+
+    synchronized void add(History history) {
+        entries[next] = history;
+        next = (next + 1) % entries.length;
+        if (size < entries.length) size++;
+    }
+
+    /**
+     * Copies the entries of the ring.
+     *
+     * @return the entries, oldest first
+     */
+    synchronized List<History> snapshot() {
+        List<History> snapshot = new ArrayList<>(size);
+        int first = (next - size + entries.length) % entries.length;
+        for (int i = 0; i < size; i++) {
+            snapshot.add(entries[(first + i) % entries.length]);
+        }
+        return snapshot;
+    }
+}
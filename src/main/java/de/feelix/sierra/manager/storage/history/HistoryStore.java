@@ -0,0 +1,517 @@
+package de.feelix.sierra.manager.storage.history;
+
+import de.feelix.sierra.Sierra;
+import de.feelix.sierra.manager.config.SierraSettings;
+import de.feelix.sierraapi.exceptions.SierraException;
+import de.feelix.sierraapi.history.History;
+import de.feelix.sierraapi.history.HistoryQuery;
+import de.feelix.sierraapi.history.HistoryResult;
+import de.feelix.sierraapi.history.HistoryType;
+import de.feelix.sierraapi.violation.MitigationStrategy;
+import lombok.Getter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HistoryStore class keeps the history of punishments and mitigations. The most recent entries are kept in a
+ * bounded {@link HistoryRing}, all entries are appended to a file, so the history survives restarts while its memory
+ * stays the same on long-running servers.
+ * <p>
+ * New entries are queued and written in batches by a single background thread. The same thread compacts the file
+ * once it holds entries older than the retention time or more entries than the configured maximum, and answers
+ * queries from a {@link HistoryIndex} of the file, reading only the entries of the requested page.
+ * <p>
+ * Query cursors hold the position of an entry in the file and the generation of the file, which changes with every
+ * compaction, so a cursor never points to a different entry after the positions moved.
+ */
+public class HistoryStore {
+
+    private static final String HISTORY_FILE     = "history.sierra";
+    private static final String DAMAGED_SUFFIX   = ".damaged";
+    private static final int    MAX_RECORD_SIZE  = 1024 * 1024;
+    private static final long   FLUSH_INTERVAL   = TimeUnit.SECONDS.toMillis(1);
+    private static final long   COMPACT_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    @Getter
+    private static volatile HistoryStore instance;
+
+    private final File           file;
+    private final HistoryRing    recent;
+    private final Queue<History> pending = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Sierra History Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only accessed by the writer thread after the start
+    private DataOutputStream output;
+    private final List<History> batch = new ArrayList<>();
+    private HistoryIndex     index           = new HistoryIndex();
+    private long             fileSize;
+    private long             oldestTimestamp = Long.MAX_VALUE;
+    private int              generation;
+
+    /**
+     * The size in bytes of the last record read, including its length prefix.
+     */
+    private int lastRecordSize;
+
+    private HistoryStore(File directory, int memoryEntries) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new SierraException("Failed to create directory " + directory.getAbsolutePath());
+        }
+        this.file = new File(directory, HISTORY_FILE);
+        this.recent = new HistoryRing(memoryEntries);
+
+        load();
+        compactIfNeeded();
+        openOutput();
+    }
+
+    /**
+     * Loads the stored history and starts the writer thread.
+     */
+    public static synchronized void start() {
+        if (instance != null) return;
+
+        try {
+            instance = new HistoryStore(new File("plugins/Sierra/history/"), settings().getHistoryMemoryEntries());
+        } catch (IOException | RuntimeException e) {
+            Sierra.getPlugin().getLogger().warning("Unable to open history store: " + e.getMessage());
+            return;
+        }
+        instance.writer.scheduleWithFixedDelay(
+            instance::writePending, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        instance.writer.scheduleWithFixedDelay(
+            instance::compactIfNeeded, COMPACT_INTERVAL, COMPACT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the queued entries, closes the file and stops the writer thread.
+     */
+    public static synchronized void shutdown() {
+        HistoryStore store = instance;
+        if (store == null) return;
+        instance = null;
+
+        store.writer.execute(store::close);
+        store.writer.shutdown();
+        try {
+            store.writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds an entry to the history. It is visible in memory at once and written to the file with the next batch.
+     *
+     * @param history the entry to add
+     */
+    public void add(History history) {
+        recent.add(history);
+        pending.add(history);
+    }
+
+    /**
+     * Retrieves the entries kept in memory.
+     *
+     * @return the most recent entries, oldest first
+     */
+    public List<History> recent() {
+        return recent.snapshot();
+    }
+
+    /**
+     * Queries a page of the history on the writer thread, which writes the queued entries first.
+     *
+     * @param username the username of the entries, ignoring case, or null for all users
+     * @param type     the type of the entries, or null for all types
+     * @param since    the earliest timestamp of the entries, or 0 for all entries
+     * @param page     the page, starting at 1. Pages out of range show the first page.
+     * @param pageSize the amount of entries of a page
+     * @return a future of the page, which holds the newest entries on the first page
+     */
+    public CompletableFuture<HistoryPage> query(String username, HistoryType type, long since, int page,
+                                                int pageSize) {
+        return CompletableFuture.supplyAsync(() -> {
+            writePending();
+            try {
+                return readPage(username, type, since, page, pageSize);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, writer);
+    }
+
+    private HistoryPage readPage(String username, HistoryType type, long since, int page, int pageSize)
+        throws IOException {
+        HistoryIndex.Selection selection = index.select(username, type, since);
+        int totalPages = Math.max(1, (selection.count() + pageSize - 1) / pageSize);
+        int current = page < 1 || page > totalPages ? 1 : page;
+
+        List<History> entries = new ArrayList<>(pageSize);
+        if (selection.count() > 0) {
+            try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+                int newest = selection.count() - 1 - (current - 1) * pageSize;
+                for (int i = newest; i >= 0 && i > newest - pageSize; i--) {
+                    History history = readRecordAt(input, index.offset(selection.position(i)));
+                    if (history != null) {
+                        entries.add(history);
+                    }
+                }
+            }
+        }
+        return new HistoryPage(entries, current, totalPages, selection.count());
+    }
+
+    /**
+     * Queries the history on the writer thread, which writes the queued entries first.
+     *
+     * @param query the filters, limit and cursor of the query
+     * @return a future of the result, which completes exceptionally with an IllegalArgumentException if the cursor
+     * expired
+     */
+    public CompletableFuture<HistoryResult> query(HistoryQuery query) {
+        CompletableFuture<HistoryResult> future = new CompletableFuture<>();
+        writer.execute(() -> {
+            writePending();
+            try {
+                future.complete(readResult(query));
+            } catch (IOException | RuntimeException e) {
+                // Completed with the exception itself, supplyAsync would wrap it in a CompletionException
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private HistoryQueryResult readResult(HistoryQuery query) throws IOException {
+        int bound = index.firstPositionAfter(query.getUntil());
+        if (query.getCursor() >= 0) {
+            if ((int) (query.getCursor() >>> 32) != generation) {
+                throw new IllegalArgumentException("The history was compacted since the cursor was created");
+            }
+            bound = Math.min(bound, (int) query.getCursor());
+        }
+
+        HistoryIndex.Selection selection = index.select(query.getUsername(), query.getHistoryType(),
+                                                        query.getFrom());
+        int strategy = query.getMitigationStrategy() == null ? -1 : query.getMitigationStrategy().ordinal();
+        int limit = query.getLimit();
+        if (limit <= 0 || query.getFrom() > query.getUntil()) return HistoryQueryResult.EMPTY;
+
+        List<History> entries = new ArrayList<>(Math.min(limit, 64));
+        int last = -1;
+        int i = selection.countBefore(bound) - 1;
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            for (; i >= 0 && entries.size() < limit; i--) {
+                int position = selection.position(i);
+                if (strategy >= 0 && index.strategy(position) != strategy) continue;
+
+                History history = readRecordAt(input, index.offset(position));
+                if (history != null) {
+                    entries.add(history);
+                }
+                last = position;
+            }
+        }
+
+        // Older entries may be left if the walk stopped at the limit
+        long nextCursor = i >= 0 ? (long) generation << 32 | last : -1;
+        return new HistoryQueryResult(Collections.unmodifiableList(entries), nextCursor);
+    }
+
+    /**
+     * Appends the queued entries. Entries are created on different threads, so a batch is sorted by time first,
+     * which keeps the file in time order for the index.
+     */
+    private void writePending() {
+        if (output == null || pending.isEmpty()) return;
+
+        History history;
+        while ((history = pending.poll()) != null) {
+            batch.add(history);
+        }
+        batch.sort(Comparator.comparingLong(History::timestamp));
+
+        try {
+            for (History entry : batch) {
+                index.add(fileSize, entry);
+                fileSize += writeRecord(output, entry);
+                oldestTimestamp = Math.min(oldestTimestamp, entry.timestamp());
+            }
+            output.flush();
+        } catch (IOException e) {
+            Sierra.getPlugin().getLogger().warning("Unable to write history: " + e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void close() {
+        writePending();
+        if (output == null) return;
+        try {
+            output.close();
+        } catch (IOException e) {
+            Sierra.getPlugin().getLogger().warning("Unable to close history: " + e.getMessage());
+        }
+        output = null;
+    }
+
+    /**
+     * Compacts the file if it holds entries older than the retention time or more entries than the maximum. The
+     * entries to keep are copied to a new file, which replaces the old one at once.
+     */
+    private void compactIfNeeded() {
+        SierraSettings settings = settings();
+        long cutoff = retentionCutoff(settings);
+        int maxEntries = settings.getHistoryMaxEntries();
+
+        // A tenth of slack, so a full store is not compacted for every entry
+        boolean expired = cutoff > 0 && oldestTimestamp < cutoff;
+        boolean oversized = maxEntries > 0 && index.size() > maxEntries + maxEntries / 10;
+        if (!expired && !oversized) return;
+
+        writePending();
+        try {
+            compact(cutoff, maxEntries);
+        } catch (IOException e) {
+            Sierra.getPlugin().getLogger().warning("Unable to compact history: " + e.getMessage());
+        }
+    }
+
+    private void compact(long cutoff, int maxEntries) throws IOException {
+        boolean reopen = output != null;
+        if (reopen) {
+            output.close();
+            output = null;
+        }
+        try {
+            compactFile(cutoff, maxEntries);
+        } finally {
+            if (reopen) {
+                openOutput();
+            }
+        }
+    }
+
+    /**
+     * Copies the entries to keep to a new file. Damaged entries are dropped, the file is left untouched if a record
+     * cannot be read at all.
+     */
+    private void compactFile(long cutoff, int maxEntries) throws IOException {
+        long retained = 0;
+        try (DataInputStream input = openInput()) {
+            byte[] payload;
+            while ((payload = readPayload(input)) != null) {
+                History history = decodeOrNull(payload);
+                if (history != null && history.timestamp() >= cutoff) retained++;
+            }
+        }
+        long skip = maxEntries > 0 ? Math.max(0, retained - maxEntries) : 0;
+
+        File temporary = new File(file.getParentFile(), file.getName() + ".tmp");
+        HistoryIndex compactedIndex = new HistoryIndex();
+        long size = 0;
+        long oldest = Long.MAX_VALUE;
+        try (DataInputStream input = openInput();
+             DataOutputStream compacted = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(temporary), 64 * 1024))) {
+            byte[] payload;
+            while ((payload = readPayload(input)) != null) {
+                History history = decodeOrNull(payload);
+                if (history == null || history.timestamp() < cutoff || skip-- > 0) continue;
+                compactedIndex.add(size, history);
+                size += writeRecord(compacted, history);
+                oldest = Math.min(oldest, history.timestamp());
+            }
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+
+        index = compactedIndex;
+        generation++;
+        fileSize = size;
+        oldestTimestamp = oldest;
+    }
+
+    /**
+     * Loads the stored entries into the ring. Entries that cannot be decoded are skipped by their length and dropped
+     * with the next compaction. A record cut off by a crash at the end of the file is removed. If a record cannot be
+     * read at all, the rest of the file cannot be parsed; a copy of the damaged file is kept and the file is cut at
+     * that record.
+     */
+    private void load() throws IOException {
+        if (!file.exists()) return;
+
+        long valid = 0;
+        int damaged = 0;
+        boolean unreadable = false;
+        try (DataInputStream input = openInput()) {
+            byte[] payload;
+            while ((payload = readPayload(input)) != null) {
+                History history = decodeOrNull(payload);
+                if (history == null) {
+                    damaged++;
+                } else {
+                    recent.add(history);
+                    index.add(valid, history);
+                    oldestTimestamp = Math.min(oldestTimestamp, history.timestamp());
+                }
+                valid += lastRecordSize;
+            }
+        } catch (IOException e) {
+            unreadable = true;
+        }
+        fileSize = valid;
+
+        if (damaged > 0) {
+            Sierra.getPlugin().getLogger().warning("Skipped " + damaged + " damaged entries of the history");
+        }
+        if (valid == file.length()) return;
+
+        if (unreadable) {
+            File copy = new File(file.getParentFile(), HISTORY_FILE + DAMAGED_SUFFIX);
+            Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Sierra.getPlugin().getLogger().warning(
+                "Unable to read the history after byte " + valid + ", " + (file.length() - valid)
+                + " bytes were removed. A copy of the damaged history was saved to " + copy.getName());
+        } else {
+            Sierra.getPlugin().getLogger().warning("Removing an incomplete entry at the end of the history");
+        }
+        try (RandomAccessFile random = new RandomAccessFile(file, "rw")) {
+            random.setLength(valid);
+        }
+    }
+
+    private void openOutput() throws IOException {
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), 16 * 1024));
+    }
+
+    private DataInputStream openInput() throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @return the size of the record in bytes, including its length prefix
+     */
+    private static int writeRecord(DataOutputStream output, History history) throws IOException {
+        byte[] payload = encode(history);
+        output.writeInt(payload.length);
+        output.write(payload);
+        return 4 + payload.length;
+    }
+
+    private static History readRecordAt(RandomAccessFile input, long offset) throws IOException {
+        input.seek(offset);
+        int length = input.readInt();
+        if (length <= 0 || length > MAX_RECORD_SIZE) return null;
+
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+        return decodeOrNull(payload);
+    }
+
+    /**
+     * Reads the payload of the next record and stores its size in {@link #lastRecordSize}.
+     *
+     * @param input the stream of the file
+     * @return the payload, or null at the end of the file or at a record cut off by a crash
+     * @throws IOException if the length of the record is invalid, so the following records cannot be found
+     */
+    private byte[] readPayload(DataInputStream input) throws IOException {
+        int length;
+        try {
+            length = input.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length <= 0 || length > MAX_RECORD_SIZE) {
+            throw new IOException("Invalid record length " + length);
+        }
+
+        byte[] payload = new byte[length];
+        try {
+            input.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+        lastRecordSize = 4 + length;
+        return payload;
+    }
+
+    private static History decodeOrNull(byte[] payload) {
+        try {
+            return decode(payload);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static byte[] encode(History history) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeLong(history.timestamp());
+        output.writeByte(history.historyType().ordinal());
+        output.writeByte(history.mitigationStrategy().ordinal());
+        output.writeLong(history.ping());
+        writeString(output, history.username());
+        writeString(output, history.clientVersion());
+        writeString(output, history.description());
+        return bytes.toByteArray();
+    }
+
+    private static History decode(byte[] payload) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+        long timestamp = input.readLong();
+        HistoryType historyType = HistoryType.values()[input.readByte()];
+        MitigationStrategy mitigationStrategy = MitigationStrategy.values()[input.readByte()];
+        long ping = input.readLong();
+        String username = readString(input);
+        String clientVersion = readString(input);
+        String description = readString(input);
+        return new HistoryDocument(username, description, clientVersion, ping, mitigationStrategy, historyType,
+                                   timestamp);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long retentionCutoff(SierraSettings settings) {
+        int days = settings.getHistoryRetentionDays();
+        return days > 0 ? System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days) : 0;
+    }
+
+    private static SierraSettings settings() {
+        return Sierra.getPlugin().getSierraConfigEngine().settings();
+    }
+}
@@ -0,0 +1,44 @@
+package de.feelix.sierra.manager.storage.logger;
+
+import de.feelix.sierraapi.logs.LogEntry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The LogRecord class is a decoded record of the log store.
+ */
+@Getter
+@AllArgsConstructor
+public class LogRecord implements LogEntry {
+
+    private final String username;
+    private final long   timestamp;
+    private final LogTag logTag;
+    private final int    checkId;
+    private final String message;
+
+    @Override
+    public String username() {
+        return username;
+    }
+
+    @Override
+    public long timestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String tag() {
+        return logTag.name();
+    }
+
+    @Override
+    public int checkId() {
+        return checkId;
+    }
+
+    @Override
+    public String message() {
+        return message;
+    }
+}
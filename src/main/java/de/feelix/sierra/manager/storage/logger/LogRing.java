@@ -0,0 +1,126 @@
+package de.feelix.sierra.manager.storage.logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The LogRing class is a bounded, lock-free queue of log records for many producers and a single consumer. Producers
+ * claim a slot with a compare-and-set on the tail and publish it through the sequence of the slot, the consumer
+ * reads the slots in order. A full ring rejects the record instead of waiting, so producers never block.
+ * <p>
+ * The records are stored in parallel arrays, which are allocated once.
+ */
+class LogRing {
+
+    private final int mask;
+
+    /**
+     * The sequence of each slot. A slot is free for the producer of position p if its sequence is p and readable
+     * for the consumer at position p if its sequence is p + 1.
+     */
+    private final AtomicLongArray sequences;
+
+    private final SierraLogger[] loggers;
+    private final long[]         timestamps;
+    private final LogTag[]       tags;
+    private final int[]          checkIds;
+    private final String[]       messages;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The position of the consumer, only accessed by the consuming thread.
+     */
+    private long head;
+
+    /**
+     * Creates a ring with the given capacity.
+     *
+     * @param capacity the amount of records the ring holds, rounded up to a power of two
+     */
+    LogRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.loggers = new SierraLogger[size];
+        this.timestamps = new long[size];
+        this.tags = new LogTag[size];
+        this.checkIds = new int[size];
+        this.messages = new String[size];
+
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds a record to the ring. Safe to call from any thread.
+     *
+     * @param logger    the logger the record belongs to
+     * @param timestamp the time of the record in milliseconds
+     * @param tag       the tag of the record
+     * @param checkId   the id of the check the record belongs to, or 0
+     * @param message   the message of the record
+     * @return true if the record was added, false if the ring is full
+     */
+    boolean offer(SierraLogger logger, long timestamp, LogTag tag, int checkId, String message) {
+        long position = tail.get();
+        int slot;
+        while (true) {
+            slot = (int) (position & mask);
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+                position = tail.get();
+            } else if (difference < 0) {
+                // The consumer did not free this slot yet, the ring is full
+                return false;
+            } else {
+                // Another producer claimed the slot first
+                position = tail.get();
+            }
+        }
+
+        loggers[slot] = logger;
+        timestamps[slot] = timestamp;
+        tags[slot] = tag;
+        checkIds[slot] = checkId;
+        messages[slot] = message;
+        sequences.lazySet(slot, position + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest record and hands it to the given consumer. Must only be called by the consuming thread.
+     *
+     * @param consumer the consumer of the record
+     * @return true if a record was removed, false if no published record is available
+     */
+    boolean poll(RecordConsumer consumer) {
+        int slot = (int) (head & mask);
+        if (sequences.get(slot) != head + 1) return false;
+
+        SierraLogger logger = loggers[slot];
+        long timestamp = timestamps[slot];
+        LogTag tag = tags[slot];
+        int checkId = checkIds[slot];
+        String message = messages[slot];
+
+        loggers[slot] = null;
+        messages[slot] = null;
+        sequences.lazySet(slot, head + mask + 1);
+        head++;
+
+        consumer.accept(logger, timestamp, tag, checkId, message);
+        return true;
+    }
+
+    /**
+     * Consumes a single log record.
+     */
+    @FunctionalInterface
+    interface RecordConsumer {
+
+        void accept(SierraLogger logger, long timestamp, LogTag tag, int checkId, String message);
+    }
+}
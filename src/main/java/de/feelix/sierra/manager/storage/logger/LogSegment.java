@@ -0,0 +1,133 @@
+package de.feelix.sierra.manager.storage.logger;
+
+import lombok.Getter;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * The LogSegment class is a single append-only file of the log store. It holds the records of all players written
+ * between its start and its rotation and indexes them while they are written.
+ * <p>
+ * Records are binary: a fixed header of the timestamp, the player id, the {@link LogTag} ordinal, the check id and
+ * the payload length, followed by the UTF-8 payload. Headers can be read without decoding the payload, so readers
+ * only decode the records they return.
+ * <p>
+ * Segments are named after the time they were started. A closed segment has an index file next to it and is
+ * compressed in the background, the compressed file replaces the plain one once it is complete.
+ */
+@Getter
+class LogSegment {
+
+    static final String LOG_SUFFIX   = ".seg";
+    static final String GZIP_SUFFIX  = ".seg.gz";
+    static final String INDEX_SUFFIX = ".seg.idx";
+
+    /**
+     * The size of a record header: timestamp, player id, tag, check id and payload length.
+     */
+    static final int HEADER_SIZE = 8 + 4 + 1 + 2 + 4;
+
+    private final File         directory;
+    private final long         start;
+    private final SegmentIndex index = new SegmentIndex();
+
+    private final OutputStream output;
+    private final ByteBuffer   header = ByteBuffer.allocate(HEADER_SIZE);
+
+    /**
+     * The amount of bytes written to the segment.
+     */
+    private long size;
+
+    LogSegment(File directory, long start) throws IOException {
+        this.directory = directory;
+        this.start = start;
+        this.output = new BufferedOutputStream(new FileOutputStream(logFile(directory, start)), 64 * 1024);
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param playerId  the id of the player
+     * @param timestamp the time of the record in milliseconds
+     * @param tag       the tag of the record
+     * @param checkId   the id of the check the record belongs to, or 0
+     * @param payload   the UTF-8 encoded message of the record
+     */
+    void append(int playerId, long timestamp, LogTag tag, int checkId, byte[] payload) throws IOException {
+        header.clear();
+        header.putLong(timestamp)
+            .putInt(playerId)
+            .put((byte) tag.ordinal())
+            .putShort((short) checkId)
+            .putInt(payload.length);
+        output.write(header.array(), 0, HEADER_SIZE);
+        output.write(payload);
+
+        int length = HEADER_SIZE + payload.length;
+        index.add(playerId, size, length, timestamp);
+        size += length;
+    }
+
+    void flush() throws IOException {
+        output.flush();
+    }
+
+    /**
+     * Closes the segment and stores its index.
+     */
+    void close() throws IOException {
+        output.close();
+        index.write(indexFile(directory, start));
+    }
+
+    /**
+     * Reads the records of an encoded range.
+     *
+     * @param bytes   the encoded records
+     * @param length  the amount of bytes to read
+     * @param visitor the visitor of the records
+     * @return the amount of bytes of complete records, which is less than the length if the last record is cut off
+     */
+    static int readRecords(byte[] bytes, int length, RecordVisitor visitor) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        int position = 0;
+        while (length - position >= HEADER_SIZE) {
+            buffer.position(position);
+            long timestamp = buffer.getLong();
+            int playerId = buffer.getInt();
+            int tag = buffer.get() & 0xFF;
+            int checkId = buffer.getShort() & 0xFFFF;
+            int payloadLength = buffer.getInt();
+
+            int payloadOffset = position + HEADER_SIZE;
+            if (payloadLength < 0 || payloadLength > length - payloadOffset) break;
+
+            visitor.visit(timestamp, playerId, tag, checkId, bytes, payloadOffset, payloadLength);
+            position = payloadOffset + payloadLength;
+        }
+        return position;
+    }
+
+    static File logFile(File directory, long start) {
+        return new File(directory, start + LOG_SUFFIX);
+    }
+
+    static File gzipFile(File directory, long start) {
+        return new File(directory, start + GZIP_SUFFIX);
+    }
+
+    static File indexFile(File directory, long start) {
+        return new File(directory, start + INDEX_SUFFIX);
+    }
+
+    /**
+     * Visits a single encoded record.
+     */
+    @FunctionalInterface
+    interface RecordVisitor {
+
+        void visit(long timestamp, int playerId, int tag, int checkId, byte[] bytes, int offset, int length);
+    }
+}
@@ -0,0 +1,416 @@
+package de.feelix.sierra.manager.storage.logger;
+
+import de.feelix.sierra.Sierra;
+import de.feelix.sierraapi.exceptions.SierraException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The LogStore class keeps the logs of all players in a single append-only store of segments, instead of one open
+ * file per player. Every record carries a numeric player id, which is assigned once per player name and kept in a
+ * registry file next to the segments.
+ * <p>
+ * The active segment is rotated once it reached a size or an age limit. Closed segments keep their sparse
+ * {@link SegmentIndex} next to them and are compressed block by block in the background, so the records of a player
+ * are read by seeking to the blocks of the player after the requested time, in plain and compressed segments alike.
+ * <p>
+ * Records are appended by the log writer thread. Queries run on a separate reader thread and only hold the lock of
+ * the store while they look up the player and copy the index of the active segment.
+ */
+public class LogStore {
+
+    private static final long     SEGMENT_SIZE     = 16L * 1024 * 1024;
+    private static final long     SEGMENT_DURATION = TimeUnit.HOURS.toMillis(1);
+    private static final String   PLAYERS_FILE     = "players.sierra";
+    private static final LogTag[] TAGS             = LogTag.values();
+
+    private final File directory;
+    private final Map<String, Integer> playerIds = new HashMap<>();
+    private int nextPlayerId;
+    private final Writer playerRegistry;
+
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Sierra Log Compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExecutorService reader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Sierra Log Reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private LogSegment active;
+
+    public LogStore(File directory) throws IOException {
+        this.directory = directory;
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new SierraException("Failed to create directory " + directory.getAbsolutePath());
+        }
+
+        File players = new File(directory, PLAYERS_FILE);
+        if (players.exists()) {
+            loadPlayers(players);
+        }
+        this.playerRegistry = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(players, true), StandardCharsets.UTF_8));
+
+        recoverSegments();
+    }
+
+    /**
+     * Retrieves the id of the given player, assigning a new one if the player has none yet.
+     *
+     * @param playerName the name of the player
+     * @return the id of the player
+     */
+    public synchronized int playerId(String playerName) {
+        String key = playerName.toLowerCase(Locale.ROOT);
+        Integer id = playerIds.get(key);
+        if (id != null) return id;
+
+        int assigned = nextPlayerId++;
+        playerIds.put(key, assigned);
+        try {
+            playerRegistry.write(assigned + " " + key + "\n");
+            playerRegistry.flush();
+        } catch (IOException e) {
+            Sierra.getPlugin().getLogger().warning("Unable to write log player registry: " + e.getMessage());
+        }
+        return assigned;
+    }
+
+    /**
+     * Appends a record to the active segment, rotating it if needed.
+     *
+     * @param playerId  the id of the player
+     * @param timestamp the time of the record in milliseconds
+     * @param tag       the tag of the record
+     * @param checkId   the id of the check the record belongs to, or 0
+     * @param message   the message of the record
+     */
+    public synchronized void append(int playerId, long timestamp, LogTag tag, int checkId, String message)
+        throws IOException {
+        rotateIfNeeded(timestamp);
+        active.append(playerId, timestamp, tag, checkId, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public synchronized void flush() throws IOException {
+        if (active != null) {
+            active.flush();
+        }
+    }
+
+    /**
+     * Rotates the active segment once it is older than the age limit, even if nothing was appended.
+     */
+    public synchronized void maintain() throws IOException {
+        if (active != null && System.currentTimeMillis() - active.getStart() >= SEGMENT_DURATION) {
+            closeActive();
+        }
+    }
+
+    /**
+     * Closes the active segment and the registry. Closed segments that were not compressed yet are compressed on
+     * the next start.
+     */
+    public synchronized void close() throws IOException {
+        closeActive();
+        playerRegistry.close();
+        compressor.shutdown();
+        reader.shutdown();
+    }
+
+    /**
+     * Queries the most recent records of a player on the reader thread.
+     *
+     * @param playerName the name of the player
+     * @param since      the earliest time of the records in milliseconds
+     * @param tag        the tag of the records, or null for all tags
+     * @param limit      the maximum amount of records to return
+     * @return a future of the records of the player, oldest first
+     */
+    public CompletableFuture<List<LogRecord>> queryAsync(String playerName, long since, LogTag tag, int limit) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return query(playerName, since, tag, limit);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, reader);
+    }
+
+    /**
+     * Reads the most recent records of a player. Segments are read from the newest to the oldest until enough
+     * records were found, segments and blocks without matching records are skipped by their index.
+     *
+     * @param playerName the name of the player
+     * @param since      the earliest time of the records in milliseconds
+     * @param tag        the tag of the records, or null for all tags
+     * @param limit      the maximum amount of records to return
+     * @return the records of the player, oldest first
+     */
+    public List<LogRecord> query(String playerName, long since, LogTag tag, int limit) throws IOException {
+        Integer playerId;
+        List<Long> starts;
+        long activeStart;
+        SegmentIndex activeIndex;
+        synchronized (this) {
+            playerId = playerIds.get(playerName.toLowerCase(Locale.ROOT));
+            if (playerId == null || limit <= 0) return Collections.emptyList();
+
+            // Readers only see flushed records, up to the size of the copied index
+            flush();
+            starts = segmentStarts();
+            activeStart = activeStart();
+            activeIndex = active == null ? null : active.getIndex().copy();
+        }
+
+        // Filled from the newest block to the oldest, the records of each block oldest first
+        Deque<List<LogRecord>> blocks = new ArrayDeque<>();
+        int found = 0;
+        for (int i = starts.size() - 1; i >= 0 && found < limit; i--) {
+            long start = starts.get(i);
+            SegmentIndex index = start == activeStart ? activeIndex : readIndex(start);
+            if (index == null || index.lastTimestamp() < since) continue;
+
+            int[] playerBlocks = index.blocks(playerId);
+            for (int j = playerBlocks.length - 1; j >= 0 && found < limit; j--) {
+                int block = playerBlocks[j];
+                if (index.lastTimestamp(block) < since) continue;
+
+                List<LogRecord> records = readBlock(start, index, block, playerName, playerId, since, tag);
+                if (records.isEmpty()) continue;
+                blocks.addFirst(records);
+                found += records.size();
+            }
+        }
+
+        List<LogRecord> result = new ArrayList<>(found);
+        for (List<LogRecord> records : blocks) {
+            result.addAll(records);
+        }
+        return found > limit ? new ArrayList<>(result.subList(found - limit, found)) : result;
+    }
+
+    private List<LogRecord> readBlock(long start, SegmentIndex index, int block, String playerName, int playerId,
+                                      long since, LogTag tag) throws IOException {
+        byte[] bytes = readBlockBytes(start, index, block);
+        if (bytes == null) return Collections.emptyList();
+
+        List<LogRecord> records = new ArrayList<>();
+        LogSegment.readRecords(bytes, bytes.length, (timestamp, recordPlayer, recordTag, checkId, data, offset,
+                                                    length) -> {
+            if (recordPlayer != playerId || timestamp < since || recordTag >= TAGS.length) return;
+            if (tag != null && tag.ordinal() != recordTag) return;
+
+            // Only matching records have their payload decoded
+            records.add(new LogRecord(playerName, timestamp, TAGS[recordTag], checkId,
+                                      new String(data, offset, length, StandardCharsets.UTF_8)));
+        });
+        return records;
+    }
+
+    private byte[] readBlockBytes(long start, SegmentIndex index, int block) throws IOException {
+        long from = index.blockStart(block);
+        byte[] bytes = new byte[(int) (index.blockEnd(block) - from)];
+
+        // The plain file is removed once its compressed copy is complete
+        try (RandomAccessFile file = new RandomAccessFile(LogSegment.logFile(directory, start), "r")) {
+            file.seek(from);
+            file.readFully(bytes);
+            return bytes;
+        } catch (FileNotFoundException ignored) {
+            // Compressed in the meantime, read below
+        }
+
+        SegmentIndex compressedIndex = index.isCompressed() ? index : readIndex(start);
+        if (compressedIndex == null || !compressedIndex.isCompressed()) return null;
+
+        try (FileInputStream file = new FileInputStream(LogSegment.gzipFile(directory, start))) {
+            file.getChannel().position(compressedIndex.compressedOffset(block));
+            // Every block is a separate gzip member starting at its offset
+            new DataInputStream(new GZIPInputStream(file, 16 * 1024)).readFully(bytes);
+            return bytes;
+        }
+    }
+
+    private void rotateIfNeeded(long timestamp) throws IOException {
+        if (active != null
+            && (active.getSize() >= SEGMENT_SIZE || timestamp - active.getStart() >= SEGMENT_DURATION)) {
+            closeActive();
+        }
+        if (active == null) {
+            // Segments are named by their start, which must be unique
+            long start = Math.max(timestamp, lastSegmentStart() + 1);
+            active = new LogSegment(directory, start);
+        }
+    }
+
+    private void closeActive() throws IOException {
+        if (active == null) return;
+        LogSegment segment = active;
+        active = null;
+
+        segment.close();
+        compressLater(segment.getStart());
+    }
+
+    private long activeStart() {
+        return active == null ? -1 : active.getStart();
+    }
+
+    private long lastSegmentStart() {
+        List<Long> starts = segmentStarts();
+        return starts.isEmpty() ? 0 : starts.get(starts.size() - 1);
+    }
+
+    private List<Long> segmentStarts() {
+        Set<Long> starts = new TreeSet<>();
+        String[] names = directory.list();
+        if (names != null) {
+            for (String name : names) {
+                String start = name.endsWith(LogSegment.GZIP_SUFFIX)
+                    ? name.substring(0, name.length() - LogSegment.GZIP_SUFFIX.length())
+                    : name.endsWith(LogSegment.LOG_SUFFIX)
+                        ? name.substring(0, name.length() - LogSegment.LOG_SUFFIX.length())
+                        : null;
+                if (start == null) continue;
+                try {
+                    starts.add(Long.parseLong(start));
+                } catch (NumberFormatException ignored) {
+                    // Not a segment
+                }
+            }
+        }
+        return new ArrayList<>(starts);
+    }
+
+    private SegmentIndex readIndex(long start) {
+        File file = LogSegment.indexFile(directory, start);
+        if (!file.exists()) return null;
+        try {
+            return SegmentIndex.read(file);
+        } catch (IOException e) {
+            Sierra.getPlugin().getLogger().warning("Unable to read log index " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void compressLater(long start) {
+        compressor.execute(() -> compress(start));
+    }
+
+    /**
+     * Compresses a closed segment. Every block becomes a separate gzip member whose offset is stored in the index,
+     * so readers can still seek to single blocks.
+     */
+    private void compress(long start) {
+        File plain = LogSegment.logFile(directory, start);
+        File compressed = LogSegment.gzipFile(directory, start);
+        File temporary = new File(directory, compressed.getName() + ".tmp");
+        SegmentIndex index = readIndex(start);
+        if (!plain.exists() || index == null) return;
+
+        try (RandomAccessFile input = new RandomAccessFile(plain, "r");
+             OutputStream output = new BufferedOutputStream(new FileOutputStream(temporary), 64 * 1024)) {
+            ByteArrayOutputStream member = new ByteArrayOutputStream(SegmentIndex.BLOCK_SIZE / 4);
+            byte[] bytes = new byte[SegmentIndex.BLOCK_SIZE];
+            long offset = 0;
+            for (int block = 0; block < index.blockCount(); block++) {
+                int length = (int) (index.blockEnd(block) - index.blockStart(block));
+                if (bytes.length < length) bytes = new byte[length];
+                input.seek(index.blockStart(block));
+                input.readFully(bytes, 0, length);
+
+                member.reset();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(member)) {
+                    gzip.write(bytes, 0, length);
+                }
+                member.writeTo(output);
+                index.compressedOffset(block, offset);
+                offset += member.size();
+            }
+        } catch (IOException e) {
+            Sierra.getPlugin().getLogger().warning("Unable to compress log segment " + plain.getName()
+                                                   + ": " + e.getMessage());
+            return;
+        }
+
+        try {
+            // The index points into the compressed file, so it is replaced before the plain file is removed
+            Files.move(temporary.toPath(), compressed.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            index.write(LogSegment.indexFile(directory, start));
+        } catch (IOException e) {
+            Sierra.getPlugin().getLogger().warning("Unable to store log segment " + compressed.getName()
+                                                   + ": " + e.getMessage());
+            return;
+        }
+        if (!plain.delete()) {
+            Sierra.getPlugin().getLogger().warning("Unable to delete log segment " + plain.getName());
+        }
+    }
+
+    /**
+     * Finishes the segments of a previous run: segments without an index were not closed and get their index
+     * rebuilt, cutting off a record that was only partially written. Segments without a compressed copy are
+     * compressed.
+     */
+    private void recoverSegments() throws IOException {
+        for (long start : segmentStarts()) {
+            File plain = LogSegment.logFile(directory, start);
+            if (!plain.exists()) continue;
+
+            File index = LogSegment.indexFile(directory, start);
+            if (!index.exists()) {
+                rebuildIndex(plain).write(index);
+            }
+            compressLater(start);
+        }
+    }
+
+    private SegmentIndex rebuildIndex(File plain) throws IOException {
+        SegmentIndex index = new SegmentIndex();
+        byte[] bytes = Files.readAllBytes(plain.toPath());
+        int size = LogSegment.readRecords(bytes, bytes.length, (timestamp, playerId, tag, checkId, data, offset,
+                                                               length) -> index.add(
+            playerId, offset - LogSegment.HEADER_SIZE, LogSegment.HEADER_SIZE + length, timestamp));
+
+        if (size < bytes.length) {
+            try (RandomAccessFile file = new RandomAccessFile(plain, "rw")) {
+                file.setLength(size);
+            }
+        }
+        return index;
+    }
+
+    private void loadPlayers(File players) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new FileInputStream(players), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf(' ');
+                if (separator <= 0) continue;
+                try {
+                    int playerId = Integer.parseInt(line.substring(0, separator));
+                    playerIds.put(line.substring(separator + 1), playerId);
+                    nextPlayerId = Math.max(nextPlayerId, playerId + 1);
+                } catch (NumberFormatException ignored) {
+                    // Skip damaged entries
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package de.feelix.sierra.manager.storage.logger;
 
+/**
+ * The tags of log records. Records store the ordinal of their tag, so new tags must only be appended.
+ */
 public enum LogTag {
 
     PRE, DETECTION, EXCEPTION, BLOCK_PLACE, PAYLOAD, EXCEP_PAYLOAD, CREATIVE, WINDOW_CLICK, SKIP, TRANS_EXCEP, INTERACT
@@ -0,0 +1,216 @@
+package de.feelix.sierra.manager.storage.logger;
+
+import com.github.retrooper.packetevents.protocol.player.User;
+import de.feelix.sierra.Sierra;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The LogWriter class writes the records of all {@link SierraLogger} instances on a single background thread.
+ * Loggers hand their records to a lock-free ring and return immediately, so logging never blocks a packet thread on
+ * disk I/O. If the ring is full, records are dropped and counted instead.
+ * <p>
+ * The writer drains the ring in batches into the shared {@link LogStore} and flushes it once enough records were
+ * written or enough time passed.
+ */
+public class LogWriter implements Runnable {
+
+    private static final int  CAPACITY             = 8192;
+    private static final int  FLUSH_RECORDS        = 512;
+    private static final long FLUSH_INTERVAL       = TimeUnit.SECONDS.toNanos(1);
+    private static final long DROP_REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(30);
+    private static final long IDLE_PARK            = TimeUnit.MILLISECONDS.toNanos(5);
+
+    @Getter
+    private static volatile LogWriter instance;
+
+    private final LogRing ring = new LogRing(CAPACITY);
+
+    /**
+     * The store the records are written to, null if it could not be opened.
+     */
+    @Getter
+    private final LogStore store;
+
+    /**
+     * The amount of records dropped because the ring was full, since the start.
+     */
+    @Getter
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Only accessed by the writer thread
+    private int  unflushedRecords;
+    private long lastFlush      = System.nanoTime();
+    private long lastDropReport = System.nanoTime();
+    private long reportedDrops;
+
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private LogWriter(LogStore store) {
+        this.store = store;
+        this.thread = new Thread(this, "Sierra Log Writer");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the shared writer thread.
+     */
+    public static synchronized void start() {
+        if (instance != null) return;
+
+        LogStore store = null;
+        try {
+            store = new LogStore(new File("plugins/Sierra/logs/"));
+        } catch (IOException | RuntimeException e) {
+            Sierra.getPlugin().getLogger().warning("Unable to open log store: " + e.getMessage());
+        }
+        instance = new LogWriter(store);
+        instance.thread.start();
+    }
+
+    /**
+     * Stops the shared writer thread after it wrote and closed everything that was submitted.
+     */
+    public static synchronized void shutdown() {
+        LogWriter writer = instance;
+        if (writer == null) return;
+        instance = null;
+
+        writer.running = false;
+        LockSupport.unpark(writer.thread);
+        try {
+            writer.thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hands a record to the writer thread without waiting.
+     *
+     * @param logger  the logger the record belongs to
+     * @param tag     the tag of the record
+     * @param checkId the id of the check the record belongs to, or 0
+     * @param message the message of the record
+     */
+    void submit(SierraLogger logger, LogTag tag, int checkId, String message) {
+        if (!ring.offer(logger, System.currentTimeMillis(), tag, checkId, message)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            boolean worked = drain();
+            maintain();
+
+            if (!worked) {
+                LockSupport.parkNanos(IDLE_PARK);
+            }
+        }
+
+        // Write what was submitted before the shutdown
+        drain();
+        reportDrops();
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                Sierra.getPlugin().getLogger().warning("Unable to close log store: " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean drain() {
+        boolean worked = false;
+        while (ring.poll(this::write)) {
+            worked = true;
+            if (unflushedRecords >= FLUSH_RECORDS) {
+                flush();
+            }
+        }
+        return worked;
+    }
+
+    private void write(SierraLogger logger, long timestamp, LogTag tag, int checkId, String message) {
+        if (store == null) return;
+
+        try {
+            int playerId = logger.getPlayerId();
+            if (playerId < 0) {
+                playerId = resolvePlayerId(logger);
+                if (playerId < 0) return;
+            }
+            store.append(playerId, timestamp, tag, checkId, message);
+            unflushedRecords++;
+        } catch (IOException e) {
+            Sierra.getPlugin().getLogger().warning("Unable to write log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resolves the id of the player of a logger. The name of a player is known once the server accepted its login,
+     * records of a connection without a name are stored under its address instead, without keeping that id.
+     *
+     * @return the id of the player, or -1 if the connection has neither a name nor an address
+     */
+    private int resolvePlayerId(SierraLogger logger) {
+        User user = logger.getUser();
+        String playerName = user.getName();
+        if (playerName != null) {
+            int playerId = store.playerId(playerName);
+            logger.setPlayerId(playerId);
+            return playerId;
+        }
+
+        InetSocketAddress address = user.getAddress();
+        return address != null ? store.playerId(address.getHostString()) : -1;
+    }
+
+    private void maintain() {
+        long now = System.nanoTime();
+        if (now - lastFlush >= FLUSH_INTERVAL) {
+            flush();
+            if (store != null) {
+                try {
+                    store.maintain();
+                } catch (IOException e) {
+                    Sierra.getPlugin().getLogger().warning("Unable to rotate log segment: " + e.getMessage());
+                }
+            }
+        }
+        if (now - lastDropReport >= DROP_REPORT_INTERVAL) {
+            lastDropReport = now;
+            reportDrops();
+        }
+    }
+
+    private void flush() {
+        if (store != null && unflushedRecords > 0) {
+            try {
+                store.flush();
+            } catch (IOException e) {
+                Sierra.getPlugin().getLogger().warning("Unable to write log: " + e.getMessage());
+            }
+        }
+        unflushedRecords = 0;
+        lastFlush = System.nanoTime();
+    }
+
+    private void reportDrops() {
+        long total = dropped.get();
+        if (total > reportedDrops) {
+            Sierra.getPlugin().getLogger().warning(
+                "Dropped " + (total - reportedDrops) + " log records, the log writer could not keep up");
+            reportedDrops = total;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package de.feelix.sierra.manager.storage.logger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The SegmentIndex class is the sparse index of a log segment. The records of a segment are grouped into blocks of
+ * about {@link #BLOCK_SIZE} bytes, and the index keeps for every block its offset and the time range of its records,
+ * and for every player the blocks that hold a record of the player. A reader seeks to the blocks of a player after
+ * the requested time instead of scanning the segment.
+ * <p>
+ * Blocks are compressed separately, so the index also keeps the offset of each block in the compressed file once the
+ * segment was compressed. The index is kept in memory while its segment is written and stored next to it once the
+ * segment is closed.
+ */
+class SegmentIndex {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int VERSION = 1;
+
+    /**
+     * The offset after the last complete record of the segment.
+     */
+    private long size;
+
+    private int    blockCount;
+    private long[] blockOffsets      = new long[16];
+    private long[] firstTimestamps   = new long[16];
+    private long[] lastTimestamps    = new long[16];
+    private long[] compressedOffsets = new long[16];
+
+    private final Map<Integer, BlockList> players = new HashMap<>();
+
+    /**
+     * Adds a record to the index, starting a new block if the current one is full.
+     *
+     * @param playerId  the id of the player
+     * @param offset    the offset of the first byte of the record
+     * @param length    the length of the record in bytes
+     * @param timestamp the time of the record in milliseconds
+     */
+    void add(int playerId, long offset, int length, long timestamp) {
+        if (blockCount == 0 || offset - blockOffsets[blockCount - 1] >= BLOCK_SIZE) {
+            startBlock(offset, timestamp);
+        }
+
+        int block = blockCount - 1;
+        // Records of different threads may arrive slightly out of order
+        firstTimestamps[block] = Math.min(firstTimestamps[block], timestamp);
+        lastTimestamps[block] = Math.max(lastTimestamps[block], timestamp);
+
+        BlockList blocks = players.get(playerId);
+        if (blocks == null) {
+            blocks = new BlockList();
+            players.put(playerId, blocks);
+        }
+        blocks.add(block);
+        size = offset + length;
+    }
+
+    private void startBlock(long offset, long timestamp) {
+        if (blockCount == blockOffsets.length) {
+            int capacity = blockCount << 1;
+            blockOffsets = Arrays.copyOf(blockOffsets, capacity);
+            firstTimestamps = Arrays.copyOf(firstTimestamps, capacity);
+            lastTimestamps = Arrays.copyOf(lastTimestamps, capacity);
+            compressedOffsets = Arrays.copyOf(compressedOffsets, capacity);
+        }
+        blockOffsets[blockCount] = offset;
+        firstTimestamps[blockCount] = timestamp;
+        lastTimestamps[blockCount] = timestamp;
+        compressedOffsets[blockCount] = -1;
+        blockCount++;
+    }
+
+    /**
+     * Retrieves the blocks holding records of a player.
+     *
+     * @param playerId the id of the player
+     * @return the blocks in ascending order, or an empty array if the player has no records in the segment
+     */
+    int[] blocks(int playerId) {
+        BlockList blocks = players.get(playerId);
+        return blocks == null ? new int[0] : Arrays.copyOf(blocks.blocks, blocks.size);
+    }
+
+    int blockCount() {
+        return blockCount;
+    }
+
+    long blockStart(int block) {
+        return blockOffsets[block];
+    }
+
+    long blockEnd(int block) {
+        return block + 1 < blockCount ? blockOffsets[block + 1] : size;
+    }
+
+    long lastTimestamp(int block) {
+        return lastTimestamps[block];
+    }
+
+    /**
+     * Retrieves the time of the latest record of the segment.
+     *
+     * @return the time in milliseconds, or -1 if the segment is empty
+     */
+    long lastTimestamp() {
+        long last = -1;
+        for (int i = 0; i < blockCount; i++) {
+            last = Math.max(last, lastTimestamps[i]);
+        }
+        return last;
+    }
+
+    long compressedOffset(int block) {
+        return compressedOffsets[block];
+    }
+
+    void compressedOffset(int block, long offset) {
+        compressedOffsets[block] = offset;
+    }
+
+    boolean isCompressed() {
+        return blockCount > 0 && compressedOffsets[0] >= 0;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Creates a copy of the index, so a reader can use it while the original is still written.
+     *
+     * @return the copy
+     */
+    SegmentIndex copy() {
+        SegmentIndex copy = new SegmentIndex();
+        copy.size = size;
+        copy.blockCount = blockCount;
+        copy.blockOffsets = blockOffsets.clone();
+        copy.firstTimestamps = firstTimestamps.clone();
+        copy.lastTimestamps = lastTimestamps.clone();
+        copy.compressedOffsets = compressedOffsets.clone();
+        for (Map.Entry<Integer, BlockList> entry : players.entrySet()) {
+            BlockList blocks = new BlockList();
+            blocks.blocks = Arrays.copyOf(entry.getValue().blocks, entry.getValue().size);
+            blocks.size = entry.getValue().size;
+            copy.players.put(entry.getKey(), blocks);
+        }
+        return copy;
+    }
+
+    /**
+     * Stores the index. The file is replaced at once, so readers never see a partially written index.
+     *
+     * @param file the file of the index
+     */
+    void write(File file) throws IOException {
+        File temporary = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            output.writeInt(VERSION);
+            output.writeLong(size);
+            output.writeInt(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                output.writeLong(blockOffsets[i]);
+                output.writeLong(firstTimestamps[i]);
+                output.writeLong(lastTimestamps[i]);
+                output.writeLong(compressedOffsets[i]);
+            }
+            output.writeInt(players.size());
+            for (Map.Entry<Integer, BlockList> entry : players.entrySet()) {
+                BlockList blocks = entry.getValue();
+                output.writeInt(entry.getKey());
+                output.writeInt(blocks.size);
+                for (int i = 0; i < blocks.size; i++) {
+                    output.writeInt(blocks.blocks[i]);
+                }
+            }
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static SegmentIndex read(File file) throws IOException {
+        SegmentIndex index = new SegmentIndex();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int version = input.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported index version " + version);
+            }
+            index.size = input.readLong();
+            int blockCount = input.readInt();
+            for (int i = 0; i < blockCount; i++) {
+                index.startBlock(input.readLong(), 0);
+                index.firstTimestamps[i] = input.readLong();
+                index.lastTimestamps[i] = input.readLong();
+                index.compressedOffsets[i] = input.readLong();
+            }
+            int playerCount = input.readInt();
+            for (int i = 0; i < playerCount; i++) {
+                int playerId = input.readInt();
+                BlockList blocks = new BlockList();
+                int size = input.readInt();
+                for (int j = 0; j < size; j++) {
+                    blocks.add(input.readInt());
+                }
+                index.players.put(playerId, blocks);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * The ascending blocks of a single player.
+     */
+    private static class BlockList {
+
+        private int[] blocks = new int[4];
+        private int   size;
+
+        void add(int block) {
+            if (size > 0 && blocks[size - 1] == block) return;
+            if (size == blocks.length) {
+                blocks = Arrays.copyOf(blocks, size << 1);
+            }
+            blocks[size++] = block;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package de.feelix.sierra.manager.storage.logger;
+
+import de.feelix.sierraapi.logs.LogEntry;
+import de.feelix.sierraapi.logs.LogRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The SierraLogRepository class answers log queries from the {@link LogStore} of the running {@link LogWriter}.
+ */
+public class SierraLogRepository implements LogRepository {
+
+    @Override
+    public CompletableFuture<List<LogEntry>> queryLogs(String username, long since, String tag, int limit) {
+        LogTag logTag = null;
+        if (tag != null) {
+            try {
+                logTag = LogTag.valueOf(tag.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException exception) {
+                CompletableFuture<List<LogEntry>> future = new CompletableFuture<>();
+                future.completeExceptionally(exception);
+                return future;
+            }
+        }
+        return query(username, since, logTag, limit).thenApply(ArrayList::new);
+    }
+
+    /**
+     * Queries the most recent records of a player.
+     *
+     * @param username the name of the player
+     * @param since    the earliest time of the records in milliseconds
+     * @param tag      the tag of the records, or null for all tags
+     * @param limit    the maximum amount of records to return
+     * @return a future of the records, oldest first, which is empty if the log store is not available
+     */
+    public CompletableFuture<List<LogRecord>> query(String username, long since, LogTag tag, int limit) {
+        LogWriter writer = LogWriter.getInstance();
+        if (writer == null || writer.getStore() == null) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return writer.getStore().queryAsync(username, since, tag, limit);
+    }
+}
@@ -1,72 +1,87 @@
 package de.feelix.sierra.manager.storage.logger;
 
+import com.github.retrooper.packetevents.protocol.player.User;
 import de.feelix.sierra.Sierra;
-import de.feelix.sierraapi.exceptions.SierraException;
+import de.feelix.sierra.manager.config.SierraSettings;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.function.Supplier;
 
+/**
+ * The SierraLogger class writes the log of a single player. Records are handed to the shared {@link LogWriter}, which
+ * appends them to the {@link LogStore} on its own thread, so logging never waits for the disk.
+ * <p>
+ * Messages are passed as suppliers and only built if their tag is enabled and sampled in the settings, so disabled
+ * tags cost a single check.
+ */
 @Data
 public class SierraLogger {
 
-    private BufferedWriter writer;
-    private String playerName;
+    private final User user;
 
-    public SierraLogger(String playerName) {
-        this.playerName = playerName;
+    /**
+     * The id of the player in the log store, resolved by the writer thread on the first record written once the
+     * name of the player is known.
+     */
+    private volatile int playerId = -1;
 
-        File sierraLogs = new File("plugins/Sierra/logs/");
+    /**
+     * The amount of records of each tag, indexed by ordinal, used for sampling. Races only shift the samples.
+     */
+    @Getter(AccessLevel.NONE)
+    private final int[] sampleCounters = new int[LogTag.values().length];
 
-        if (!sierraLogs.exists()) {
-            if (!sierraLogs.mkdirs()) {
-                throw new SierraException("Failed to create directory " + sierraLogs.getAbsolutePath());
-            }
-        }
-
-        File pluginDir = new File("plugins/Sierra/logs/" + playerName);
-        if (!pluginDir.exists()) {
-            if (!pluginDir.mkdirs()) {
-                throw new RuntimeException("Failed to create plugin directory: " + pluginDir);
-            }
-        }
-        try {
-            writer = new BufferedWriter(new FileWriter(new File(pluginDir, "logs.sierra"), true));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Logs a record if its tag is enabled and sampled.
+     *
+     * @param tag     the tag of the record
+     * @param message the supplier of the message, which may return null to skip the record
+     */
+    public void log(LogTag tag, Supplier<String> message) {
+        log(tag, 0, message);
     }
 
-    public synchronized void log(LogTag tag, String message) {
+    /**
+     * Logs a record that belongs to a check if its tag is enabled and sampled.
+     *
+     * @param tag     the tag of the record
+     * @param checkId the id of the check, or 0 if the record does not belong to a check
+     * @param message the supplier of the message, which may return null to skip the record
+     */
+    public void log(LogTag tag, int checkId, Supplier<String> message) {
+        if (!sample(tag)) return;
+
+        LogWriter logWriter = LogWriter.getInstance();
+        if (logWriter == null) return;
+
+        String value = message.get();
 
         // Don't log empty ItemStack NBT Tags
-        if (message.equalsIgnoreCase("{}")) {
+        if (value == null || value.equalsIgnoreCase("{}")) {
             return;
         }
 
-        String timestamp = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-        String logMessage = String.format("[%s] %s: %s", timestamp, tag.name(), message);
-
-        try {
-            writer.write(logMessage);
-            writer.newLine();
-            writer.flush();
-        } catch (IOException e) {
-            Sierra.getPlugin().getLogger().warning("Unable to write log: " + e.getMessage());
-        }
+        logWriter.submit(this, tag, checkId, value);
     }
 
-    public void close() {
-        try {
-            if (writer != null) {
-                writer.close();
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Decides whether the next record of a tag is written.
+     *
+     * @param tag the tag of the record
+     * @return true if the tag is enabled and the record falls on its sample rate, false otherwise
+     */
+    private boolean sample(LogTag tag) {
+        SierraSettings settings = Sierra.getPlugin().getSierraConfigEngine().settings();
+        if (!settings.isLogged(tag)) return false;
+
+        int rate = settings.logSampleRate(tag);
+        if (rate == 1) return true;
+
+        int ordinal = tag.ordinal();
+        if (++sampleCounters[ordinal] < rate) return false;
+        sampleCounters[ordinal] = 0;
+        return true;
     }
 }
@@ -0,0 +1,153 @@
+package de.feelix.sierra.manager.storage.metrics;
+
+import com.github.retrooper.packetevents.protocol.packettype.PacketTypeCommon;
+import de.feelix.sierraapi.check.CheckType;
+import de.feelix.sierraapi.metrics.MetricsRepository;
+import de.feelix.sierraapi.violation.MitigationStrategy;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * The SierraMetrics class counts the kicks, bans, detections and mitigations of Sierra. Counters are
+ * {@link LongAdder}s, indexed by the ordinal of their check type or mitigation strategy, so Netty threads that count
+ * at the same time neither lock nor lose updates. Gauges are read from their owners when a snapshot is taken.
+ */
+public class SierraMetrics implements MetricsRepository {
+
+    private final LongAdder   kicks       = new LongAdder();
+    private final LongAdder   bans        = new LongAdder();
+    private final LongAdder[] detections  = createAdders(CheckType.values().length);
+    private final LongAdder[] punishments = createAdders(CheckType.values().length);
+    private final LongAdder[] mitigations = createAdders(MitigationStrategy.values().length);
+
+    /**
+     * The detections of each packet type. Only a few types are ever detected, so the map stays small.
+     */
+    private final Map<PacketTypeCommon, LongAdder> packets = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier>        gauges  = new ConcurrentHashMap<>();
+
+    public void recordKick() {
+        kicks.increment();
+    }
+
+    public void recordBan() {
+        bans.increment();
+    }
+
+    /**
+     * Counts a detection.
+     *
+     * @param checkType          the check type of the detection
+     * @param mitigationStrategy the mitigation strategy of the detection
+     * @param packetType         the type of the detected packet
+     */
+    public void recordDetection(CheckType checkType, MitigationStrategy mitigationStrategy,
+                                PacketTypeCommon packetType) {
+        detections[checkType.ordinal()].increment();
+        mitigations[mitigationStrategy.ordinal()].increment();
+
+        LongAdder adder = packets.get(packetType);
+        if (adder == null) {
+            adder = packets.computeIfAbsent(packetType, type -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    public void recordPunishment(CheckType checkType) {
+        punishments[checkType.ordinal()].increment();
+    }
+
+    /**
+     * Registers a gauge, replacing a gauge of the same name.
+     *
+     * @param name     the name of the gauge
+     * @param supplier the supplier of the current value, which is called on the thread taking the snapshot
+     */
+    public void registerGauge(String name, LongSupplier supplier) {
+        gauges.put(name.toLowerCase(Locale.ROOT), supplier);
+    }
+
+    @Override
+    public long kicks() {
+        return kicks.sum();
+    }
+
+    @Override
+    public long bans() {
+        return bans.sum();
+    }
+
+    @Override
+    public long detections(CheckType checkType) {
+        return detections[checkType.ordinal()].sum();
+    }
+
+    @Override
+    public long punishments(CheckType checkType) {
+        return punishments[checkType.ordinal()].sum();
+    }
+
+    @Override
+    public long mitigations(MitigationStrategy mitigationStrategy) {
+        return mitigations[mitigationStrategy.ordinal()].sum();
+    }
+
+    /**
+     * Retrieves the punishments of each check type that punished a player, keyed by the friendly name of the check
+     * type without spaces.
+     *
+     * @return a Map of the punishments
+     */
+    public Map<String, Integer> punishmentsByCheck() {
+        Map<String, Integer> values = new HashMap<>();
+        for (CheckType checkType : CheckType.values()) {
+            long value = punishments[checkType.ordinal()].sum();
+            if (value > 0) {
+                values.put(checkType.getFriendlyName().replace(" ", ""), (int) Math.min(value, Integer.MAX_VALUE));
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> snapshot() {
+        Map<String, Long> values = new TreeMap<>();
+        values.put("kicks", kicks.sum());
+        values.put("bans", bans.sum());
+        for (CheckType checkType : CheckType.values()) {
+            String name = checkType.name().toLowerCase(Locale.ROOT);
+            putIfPositive(values, "detections." + name, detections[checkType.ordinal()].sum());
+            putIfPositive(values, "punishments." + name, punishments[checkType.ordinal()].sum());
+        }
+        for (MitigationStrategy strategy : MitigationStrategy.values()) {
+            putIfPositive(values, "mitigations." + strategy.name().toLowerCase(Locale.ROOT),
+                          mitigations[strategy.ordinal()].sum());
+        }
+        // Packets of both sides may share a name, their counts are summed
+        packets.forEach((type, adder) -> {
+            long value = adder.sum();
+            if (value > 0) {
+                values.merge("packets." + type.getName().toLowerCase(Locale.ROOT), value, Long::sum);
+            }
+        });
+        gauges.forEach((name, supplier) -> values.put("gauges." + name, supplier.getAsLong()));
+        return Collections.unmodifiableMap(values);
+    }
+
+    private static void putIfPositive(Map<String, Long> values, String key, long value) {
+        if (value > 0) {
+            values.put(key, value);
+        }
+    }
+
+    private static LongAdder[] createAdders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -21,8 +21,10 @@ public class BrandProcessor {
 
     public void process(PacketReceiveEvent event) {
         if (event.getPacketType() == PacketType.Play.Client.PLUGIN_MESSAGE) {
-            WrapperPlayClientPluginMessage wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientPluginMessage(event),
+            WrapperPlayClientPluginMessage wrapper = CastUtil.getWrapper(
+                event,
+                WrapperPlayClientPluginMessage.class,
+                WrapperPlayClientPluginMessage::new,
                 playerData::exceptionDisconnect
             );
             handleChannelMessage(wrapper.getChannelName(), wrapper.getData());
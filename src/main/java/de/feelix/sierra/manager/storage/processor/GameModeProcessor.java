@@ -33,8 +33,10 @@ public class GameModeProcessor {
     }
 
     private void handleGameStateChange(PacketSendEvent event) {
-        WrapperPlayServerChangeGameState packet = CastUtil.getSupplier(
-            () -> new WrapperPlayServerChangeGameState(event),
+        WrapperPlayServerChangeGameState packet = CastUtil.getWrapper(
+            event,
+            WrapperPlayServerChangeGameState.class,
+            WrapperPlayServerChangeGameState::new,
             playerData::exceptionDisconnect
         );
 
@@ -51,16 +53,20 @@ public class GameModeProcessor {
     }
 
     private void handleJoinGame(PacketSendEvent event) {
-        WrapperPlayServerJoinGame joinGame = CastUtil.getSupplier(
-            () -> new WrapperPlayServerJoinGame(event),
+        WrapperPlayServerJoinGame joinGame = CastUtil.getWrapper(
+            event,
+            WrapperPlayServerJoinGame.class,
+            WrapperPlayServerJoinGame::new,
             playerData::exceptionDisconnect
         );
         playerData.setGameMode(joinGame.getGameMode());
     }
 
     private void handleRespawn(PacketSendEvent event) {
-        WrapperPlayServerRespawn respawn = CastUtil.getSupplier(
-            () -> new WrapperPlayServerRespawn(event),
+        WrapperPlayServerRespawn respawn = CastUtil.getWrapper(
+            event,
+            WrapperPlayServerRespawn.class,
+            WrapperPlayServerRespawn::new,
             playerData::exceptionDisconnect
         );
         playerData.setGameMode(respawn.getGameMode());
@@ -23,8 +23,10 @@ public class PingProcessor {
 
     public void handlePacketSend(PacketSendEvent event) {
         if (event.getPacketType() == PacketType.Play.Server.KEEP_ALIVE) {
-            WrapperPlayServerKeepAlive wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayServerKeepAlive(event),
+            WrapperPlayServerKeepAlive wrapper = CastUtil.getWrapper(
+                event,
+                WrapperPlayServerKeepAlive.class,
+                WrapperPlayServerKeepAlive::new,
                 playerData::exceptionDisconnect
             );
             this.lastId = wrapper.getId();
@@ -34,8 +36,10 @@ public class PingProcessor {
 
     public void handlePacketReceive(PacketReceiveEvent event) {
         if (event.getPacketType() == PacketType.Play.Client.KEEP_ALIVE) {
-            WrapperPlayClientKeepAlive wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayClientKeepAlive(event),
+            WrapperPlayClientKeepAlive wrapper = CastUtil.getWrapper(
+                event,
+                WrapperPlayClientKeepAlive.class,
+                WrapperPlayClientKeepAlive::new,
                 playerData::exceptionDisconnect
             );
             if (wrapper.getId() == this.lastId) {
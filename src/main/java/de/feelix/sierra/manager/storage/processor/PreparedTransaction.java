@@ -0,0 +1,20 @@
+package de.feelix.sierra.manager.storage.processor;
+
+import com.github.retrooper.packetevents.wrapper.PacketWrapper;
+import lombok.Getter;
+
+/**
+ * A transaction whose id was assigned and whose packet was built on the ticking thread, waiting to be written on the
+ * event loop of its channel.
+ */
+@Getter
+public class PreparedTransaction {
+
+    private final short            id;
+    private final PacketWrapper<?> packet;
+
+    PreparedTransaction(short id, PacketWrapper<?> packet) {
+        this.id = id;
+        this.packet = packet;
+    }
+}
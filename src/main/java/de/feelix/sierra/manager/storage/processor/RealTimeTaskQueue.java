@@ -0,0 +1,107 @@
+package de.feelix.sierra.manager.storage.processor;
+
+import java.util.Arrays;
+
+/**
+ * The RealTimeTaskQueue class keeps tasks that should run once the client answered a transaction, in a ring of
+ * transaction numbers and tasks in the order they were added. The ring only grows if more tasks are waiting than it
+ * can hold, so steady use does not allocate.
+ * <p>
+ * The class is not thread-safe. It is confined to the event loop of its channel.
+ */
+class RealTimeTaskQueue {
+
+    private int[]      transactions = new int[64];
+    private Runnable[] tasks        = new Runnable[64];
+
+    private int head;
+    private int size;
+
+    /**
+     * Adds a task that runs once the given transaction was answered.
+     *
+     * @param transaction the transaction number to wait for
+     * @param task        the task to run
+     */
+    void add(int transaction, Runnable task) {
+        if (size == tasks.length) {
+            grow();
+        }
+        int slot = (head + size) & (tasks.length - 1);
+        transactions[slot] = transaction;
+        tasks[slot] = task;
+        size++;
+    }
+
+    /**
+     * Runs the tasks that are due after the given transaction was answered, in the order they were added. Tasks of
+     * the next transaction are kept and the scan stops at the first task that is further ahead.
+     *
+     * @param transaction the last answered transaction number
+     * @param runner      the consumer that runs a due task
+     */
+    void runDue(int transaction, TaskRunner runner) {
+        int mask = tasks.length - 1;
+
+        // Run the due tasks up to the first task that is too far ahead
+        int end = 0;
+        boolean kept = false;
+        for (; end < size; end++) {
+            int slot = (head + end) & mask;
+            int target = transactions[slot];
+
+            // We are at most a tick ahead when running tasks based on transactions, meaning this is too far
+            if (transaction + 1 < target) break;
+
+            // This is at most tick ahead of what we want
+            if (transaction == target - 1) {
+                kept = true;
+                continue;
+            }
+
+            Runnable task = tasks[slot];
+            tasks[slot] = null;
+            runner.run(task);
+        }
+
+        // Move the kept tasks next to the first task that was not scanned, preserving their order
+        int write = end;
+        if (kept) {
+            for (int read = end - 1; read >= 0; read--) {
+                int slot = (head + read) & mask;
+                if (tasks[slot] == null) continue;
+
+                int target = (head + --write) & mask;
+                transactions[target] = transactions[slot];
+                tasks[target] = tasks[slot];
+                if (target != slot) tasks[slot] = null;
+            }
+        }
+
+        head = (head + write) & mask;
+        size -= write;
+    }
+
+    private void grow() {
+        int[] grownTransactions = new int[transactions.length * 2];
+        Runnable[] grownTasks = new Runnable[tasks.length * 2];
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) & (tasks.length - 1);
+            grownTransactions[i] = transactions[slot];
+            grownTasks[i] = tasks[slot];
+        }
+        Arrays.fill(tasks, null);
+        transactions = grownTransactions;
+        tasks = grownTasks;
+        head = 0;
+    }
+
+    /**
+     * Runs a single due task.
+     */
+    @FunctionalInterface
+    interface TaskRunner {
+
+        void run(Runnable task);
+    }
+}
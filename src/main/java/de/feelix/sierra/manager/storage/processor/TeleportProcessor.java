@@ -22,8 +22,9 @@ public class TeleportProcessor {
     public void handle(PacketSendEvent event) {
         if (event.getPacketType() == PacketType.Play.Server.PLAYER_POSITION_AND_LOOK) {
 
-            WrapperPlayServerPlayerPositionAndLook wrapper = CastUtil.getSupplier(
-                () -> new WrapperPlayServerPlayerPositionAndLook(event), playerData::exceptionDisconnect);
+            WrapperPlayServerPlayerPositionAndLook wrapper = CastUtil.getWrapper(
+                event, WrapperPlayServerPlayerPositionAndLook.class, WrapperPlayServerPlayerPositionAndLook::new,
+                playerData::exceptionDisconnect);
 
             this.teleport = new Teleport(
                 wrapper.getTeleportId(),
@@ -17,11 +17,10 @@ import de.feelix.sierra.Sierra;
 import de.feelix.sierra.manager.storage.PlayerData;
 import de.feelix.sierra.manager.storage.logger.LogTag;
 import de.feelix.sierra.utilities.CastUtil;
-import de.feelix.sierra.utilities.Pair;
+import io.netty.channel.Channel;
+import lombok.AccessLevel;
 import lombok.Getter;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Getter
@@ -29,10 +28,11 @@ public class TransactionProcessor {
 
     private final PlayerData player;
 
-    public final Queue<Pair<Short, Long>> transactionsSent = new ConcurrentLinkedQueue<>();
-    public final Queue<Pair<Long, Long>> keepAlivesSent = new ConcurrentLinkedQueue<>();
-    private final LinkedList<Pair<Integer, Runnable>> transactionMap = new LinkedList<>();
-    public final List<Short> didWeSendThatTrans = Collections.synchronizedList(new ArrayList<>());
+    // Both are confined to the event loop of the channel, like the packet handling that uses them
+    @Getter(AccessLevel.NONE)
+    private final TransactionRing transactions = new TransactionRing();
+    @Getter(AccessLevel.NONE)
+    private final RealTimeTaskQueue realTimeTasks = new RealTimeTaskQueue();
 
     private final AtomicInteger transactionIDCounter = new AtomicInteger(0);
     public AtomicInteger lastTransactionSent = new AtomicInteger(0);
@@ -52,82 +52,106 @@ public class TransactionProcessor {
     // But if some error made a client miss a packet, then it won't hurt them too bad.
     // Also it forces players to take knockback
     public boolean addTransactionResponse(short id) {
-        Pair<Short, Long> data = null;
-        boolean hasID = false;
-        int skipped = 0;
-        for (Pair<Short, Long> iterator : transactionsSent) {
-            if (iterator.getFirst() == id) {
-                hasID = true;
-                break;
-            }
-            skipped++;
-        }
-
-        if (hasID) {
-
-            if (skipped > 0 && System.currentTimeMillis() - player.getJoinTime() > 5000) {
-                player.getSierraLogger().log(LogTag.SKIP, "Skipped transaction: " + id + " (" + skipped + ")");
-            }
+        int skipped = transactions.indexOf(id);
 
-            do {
-                data = transactionsSent.poll();
-                if (data == null) break;
-
-                lastTransactionReceived.incrementAndGet();
-                lastTransReceived = System.currentTimeMillis();
-                this.player.setPlayerClock(System.nanoTime());
-                transactionPing = (System.nanoTime() - data.getSecond());
-                playerClockAtLeast = data.getSecond();
-            } while (data.getFirst() != id);
+        // Were we the ones who sent the packet?
+        if (skipped < 0) return false;
 
-            handleNettySyncTransaction(lastTransactionReceived.get());
+        if (skipped > 0 && System.currentTimeMillis() - player.getJoinTime() > 5000) {
+            player.getSierraLogger().log(LogTag.SKIP, () -> "Skipped transaction: " + id + " (" + skipped + ")");
         }
 
-        // Were we the ones who sent the packet?
-        return data != null && data.getFirst() == id;
+        short polledId;
+        do {
+            polledId = transactions.peekId();
+            long sentTime = transactions.peekTime();
+            transactions.poll();
+
+            lastTransactionReceived.incrementAndGet();
+            lastTransReceived = System.currentTimeMillis();
+            this.player.setPlayerClock(System.nanoTime());
+            transactionPing = (System.nanoTime() - sentTime);
+            playerClockAtLeast = sentTime;
+        } while (polledId != id && !transactions.isEmpty());
+
+        handleNettySyncTransaction(lastTransactionReceived.get());
+        return true;
     }
 
+    /**
+     * Sends a single transaction right away, outside the batches of the {@link TransactionScheduler}.
+     */
     public void sendTransaction() {
-        sendTransaction(false);
+        PreparedTransaction transaction = prepareTransaction();
+        if (transaction == null) return;
+
+        ChannelHelper.runInEventLoop(player.getUser().getChannel(), () -> {
+            writeTransaction(transaction);
+            flushTransactions();
+        });
     }
 
-    public void sendTransaction(boolean async) {
+    /**
+     * Prepares the next transaction of the player without writing it.
+     *
+     * @return the prepared transaction, or null if the player should not receive a transaction right now
+     */
+    public PreparedTransaction prepareTransaction() {
 
         // don't send transactions outside PLAY phase
         // Sending in non-play corrupts the pipeline, don't waste bandwidth when anticheat disabled
-        if (player.getUser().getEncoderState() != ConnectionState.PLAY) return;
+        if (player.getUser().getEncoderState() != ConnectionState.PLAY) return null;
 
         // Send a packet once every 15 seconds to avoid any memory leaks
         if ((System.nanoTime() - getPlayerClockAtLeast()) > 15e9) {
-            return;
+            return null;
         }
 
         lastTransSent = System.currentTimeMillis();
         short transactionID = (short) (-1 * (transactionIDCounter.getAndIncrement() & 0x7FFF));
-        try {
 
-            PacketWrapper<?> packet;
-            if (PacketEvents.getAPI().getServerManager().getVersion().isNewerThanOrEquals(ServerVersion.V_1_17)) {
-                packet = CastUtil.getSupplier(
-                    () -> new WrapperPlayServerPing(transactionID), player::exceptionDisconnect);
-            } else {
-                packet = CastUtil.getSupplier(
-                    () -> new WrapperPlayServerWindowConfirmation((byte) 0, transactionID, false),
-                    player::exceptionDisconnect
-                );
-            }
+        PacketWrapper<?> packet;
+        if (PacketEvents.getAPI().getServerManager().getVersion().isNewerThanOrEquals(ServerVersion.V_1_17)) {
+            packet = CastUtil.getSupplier(
+                () -> new WrapperPlayServerPing(transactionID), player::exceptionDisconnect);
+        } else {
+            packet = CastUtil.getSupplier(
+                () -> new WrapperPlayServerWindowConfirmation((byte) 0, transactionID, false),
+                player::exceptionDisconnect
+            );
+        }
+        return packet == null ? null : new PreparedTransaction(transactionID, packet);
+    }
 
-            if (async) {
-                ChannelHelper.runInEventLoop(player.getUser().getChannel(), () -> {
-                    addTransactionSend(transactionID);
-                    player.getUser().writePacket(packet);
-                });
-            } else {
-                addTransactionSend(transactionID);
-                player.getUser().writePacket(packet);
-            }
+    /**
+     * Writes a prepared transaction to the channel without flushing it. The sent ids are confined to the event loop
+     * of the channel, so a call from another thread is handed over to it.
+     *
+     * @param transaction the prepared transaction
+     */
+    public void writeTransaction(PreparedTransaction transaction) {
+        Object channel = player.getUser().getChannel();
+        if (channel instanceof Channel && !((Channel) channel).eventLoop().inEventLoop()) {
+            ChannelHelper.runInEventLoop(channel, () -> writeTransaction(transaction));
+            return;
+        }
+
+        try {
+            addTransactionSend(transaction.getId());
+            player.getUser().writePacket(transaction.getPacket());
         } catch (Exception exception) {
-            player.getSierraLogger().log(LogTag.TRANS_EXCEP, "Error: " + exception.getMessage());
+            player.getSierraLogger().log(LogTag.TRANS_EXCEP, () -> "Error: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Flushes the written transactions of the player. Must run on the event loop of the channel.
+     */
+    public void flushTransactions() {
+        try {
+            player.getUser().flushPackets();
+        } catch (Exception exception) {
+            player.getSierraLogger().log(LogTag.TRANS_EXCEP, () -> "Error: " + exception.getMessage());
         }
     }
 
@@ -141,8 +165,9 @@ public class TransactionProcessor {
     }
 
     private void handleWindowConfirmation(PacketReceiveEvent event) {
-        WrapperPlayClientWindowConfirmation wrapper = CastUtil.getSupplier(
-            () -> new WrapperPlayClientWindowConfirmation(event), player::exceptionDisconnect);
+        WrapperPlayClientWindowConfirmation wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientWindowConfirmation.class, WrapperPlayClientWindowConfirmation::new,
+            player::exceptionDisconnect);
         short id = wrapper.getActionId();
         if (id <= 0 && addTransactionResponse(id)) {
             event.setCancelled(true);
@@ -150,8 +175,8 @@ public class TransactionProcessor {
     }
 
     private void handlePong(PacketReceiveEvent event) {
-        WrapperPlayClientPong wrapper = CastUtil.getSupplier(
-            () -> new WrapperPlayClientPong(event), player::exceptionDisconnect);
+        WrapperPlayClientPong wrapper = CastUtil.getWrapper(
+            event, WrapperPlayClientPong.class, WrapperPlayClientPong::new, player::exceptionDisconnect);
         int id = wrapper.getId();
         if (id == (short) id && addTransactionResponse((short) id)) {
             event.setCancelled(true);
@@ -167,35 +192,33 @@ public class TransactionProcessor {
     }
 
     private void handlePingTransaction(PacketSendEvent event) {
-        WrapperPlayServerPing wrapper = CastUtil.getSupplier(
-            () -> new WrapperPlayServerPing(event), player::exceptionDisconnect);
+        WrapperPlayServerPing wrapper = CastUtil.getWrapper(
+            event, WrapperPlayServerPing.class, WrapperPlayServerPing::new, player::exceptionDisconnect);
 
         int id = wrapper.getId();
         // Check if in the short range, we only use short range
         if (id == (short) id) {
-            // Cast ID twice so we can use the list
-            Short shortID = ((short) id);
-            if (didWeSendThatTrans.remove(shortID)) {
-                Pair<Short, Long> solarPair = new Pair<>(shortID, System.nanoTime());
-                transactionsSent.add(solarPair);
-                lastTransactionSent.getAndIncrement();
-            }
+            trackSentTransaction((short) id);
         }
     }
 
     private void handleWindowConfirmationTransaction(PacketSendEvent event) {
-        WrapperPlayServerWindowConfirmation wrapper = CastUtil.getSupplier(
-            () -> new WrapperPlayServerWindowConfirmation(event), player::exceptionDisconnect);
+        WrapperPlayServerWindowConfirmation wrapper = CastUtil.getWrapper(
+            event, WrapperPlayServerWindowConfirmation.class, WrapperPlayServerWindowConfirmation::new,
+            player::exceptionDisconnect);
 
         short id = wrapper.getActionId();
 
         // Vanilla always uses an ID starting from 1
         if (id <= 0) {
-            if (didWeSendThatTrans.remove((Short) id)) {
-                Pair<Short, Long> solarPair = new Pair<>(id, System.nanoTime());
-                transactionsSent.add(solarPair);
-                lastTransactionSent.getAndIncrement();
-            }
+            trackSentTransaction(id);
+        }
+    }
+
+    private void trackSentTransaction(short id) {
+        if (transactions.clearPending(id)) {
+            transactions.push(id, System.nanoTime());
+            lastTransactionSent.getAndIncrement();
         }
     }
 
@@ -208,38 +231,31 @@ public class TransactionProcessor {
             }
             return;
         }
-        synchronized (this) {
-            transactionMap.add(new Pair<>(transaction, runnable));
+
+        // The queue belongs to the event loop, tasks from other threads are handed over to it
+        Object channel = player.getUser().getChannel();
+        if (channel instanceof Channel && !((Channel) channel).eventLoop().inEventLoop()) {
+            ChannelHelper.runInEventLoop(channel, () -> realTimeTasks.add(transaction, runnable));
+        } else {
+            realTimeTasks.add(transaction, runnable);
         }
     }
 
     public void handleNettySyncTransaction(int transaction) {
-        synchronized (this) {
-            for (ListIterator<Pair<Integer, Runnable>> iterator = transactionMap.listIterator(); iterator.hasNext(); ) {
-                Pair<Integer, Runnable> pair = iterator.next();
-
-                // We are at most a tick ahead when running tasks based on transactions, meaning this is too far
-                if (transaction + 1 < pair.getFirst()) return;
-
-                // This is at most tick ahead of what we want
-                if (transaction == pair.getFirst() - 1) continue;
-
-
-                try {
-                    // Run the task
-                    pair.getSecond().run();
-                } catch (Exception e) {
-                    Sierra.getPlugin().getLogger().severe("An error has occurred when running "
-                                                          + "transactions for player: " + player.username());
-                    e.printStackTrace();
-                }
-                // We ran a task, remove it from the list
-                iterator.remove();
-            }
+        realTimeTasks.runDue(transaction, this::runRealTimeTask);
+    }
+
+    private void runRealTimeTask(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            Sierra.getPlugin().getLogger().severe("An error has occurred when running "
+                                                  + "transactions for player: " + player.username());
+            e.printStackTrace();
         }
     }
 
-    public void addTransactionSend(short id) {
-        didWeSendThatTrans.add(id);
+    private void addTransactionSend(short id) {
+        transactions.markPending(id);
     }
 }
@@ -0,0 +1,120 @@
+package de.feelix.sierra.manager.storage.processor;
+
+/**
+ * The TransactionRing class tracks the transactions of a connection in primitive arrays. It remembers which ids were
+ * handed to the channel in a bitset indexed by id and keeps the transactions that were sent but not yet answered in
+ * a fixed-capacity ring of ids and send times, oldest first.
+ * <p>
+ * The class is not thread-safe. It is confined to the event loop of its channel, which runs both the outbound and
+ * the inbound transaction handling, so no operation locks or allocates.
+ */
+class TransactionRing {
+
+    /**
+     * The amount of unanswered transactions kept, a power of two. Transactions stop after 15 seconds without an
+     * answer, which is far below this at one transaction per tick.
+     */
+    static final int CAPACITY = 1024;
+
+    private static final int MASK = CAPACITY - 1;
+
+    /**
+     * One bit for each of the 32768 transaction ids Sierra uses, which are zero or negative shorts.
+     */
+    private final long[] pending = new long[(Short.MAX_VALUE + 1) / Long.SIZE];
+
+    private final short[] ids   = new short[CAPACITY];
+    private final long[]  times = new long[CAPACITY];
+
+    private int head;
+    private int size;
+
+    /**
+     * Remembers that a transaction with the given id is about to be written to the channel.
+     *
+     * @param id the id of the transaction
+     */
+    void markPending(short id) {
+        int index = index(id);
+        pending[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Forgets the given pending id if it is marked.
+     *
+     * @param id the id of the transaction
+     * @return true if the id was pending, false otherwise
+     */
+    boolean clearPending(short id) {
+        int index = index(id);
+        long bit = 1L << index;
+        long word = pending[index >>> 6];
+        if ((word & bit) == 0) return false;
+        pending[index >>> 6] = word & ~bit;
+        return true;
+    }
+
+    /**
+     * Adds a sent transaction to the end of the ring. If the ring is full, the oldest transaction is dropped, as if
+     * the client skipped it.
+     *
+     * @param id   the id of the transaction
+     * @param time the send time as returned by {@link System#nanoTime()}
+     */
+    void push(short id, long time) {
+        if (size == CAPACITY) {
+            poll();
+        }
+        int slot = (head + size) & MASK;
+        ids[slot] = id;
+        times[slot] = time;
+        size++;
+    }
+
+    /**
+     * Finds the position of the given id, counted from the oldest unanswered transaction.
+     *
+     * @param id the id of the transaction
+     * @return the amount of older transactions before the id, or -1 if the id is not in the ring
+     */
+    int indexOf(short id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[(head + i) & MASK] == id) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves the id of the oldest unanswered transaction.
+     *
+     * @return the id of the oldest transaction
+     */
+    short peekId() {
+        return ids[head];
+    }
+
+    /**
+     * Retrieves the send time of the oldest unanswered transaction.
+     *
+     * @return the send time of the oldest transaction
+     */
+    long peekTime() {
+        return times[head];
+    }
+
+    /**
+     * Removes the oldest unanswered transaction.
+     */
+    void poll() {
+        head = (head + 1) & MASK;
+        size--;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static int index(short id) {
+        return -id & Short.MAX_VALUE;
+    }
+}
@@ -0,0 +1,122 @@
+package de.feelix.sierra.manager.storage.processor;
+
+import com.github.retrooper.packetevents.netty.channel.ChannelHelper;
+import de.feelix.sierra.manager.storage.PlayerData;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The TransactionScheduler class sends the transaction of every player once per tick in batches. The transactions
+ * are prepared on the ticking thread and grouped by the event loop of their channel, so each event loop runs a single
+ * task per tick that writes the transactions of all its players and flushes every channel once, instead of one task
+ * and one flush per player.
+ */
+@Getter
+public class TransactionScheduler {
+
+    /**
+     * The amount of transactions written since the start.
+     */
+    private final AtomicLong transactions = new AtomicLong();
+
+    /**
+     * The amount of event loop tasks scheduled since the start, one per event loop and tick.
+     */
+    private final AtomicLong batches = new AtomicLong();
+
+    /**
+     * The total nanoseconds between scheduling a batch and flushing its last channel.
+     */
+    private final AtomicLong flushLatency = new AtomicLong();
+
+    /**
+     * Prepares a transaction for each of the given players and schedules their batches.
+     *
+     * @param players the players to send a transaction to
+     */
+    public void tick(Iterable<PlayerData> players) {
+        Map<Object, Batch> batchesByLoop = new IdentityHashMap<>();
+
+        for (PlayerData playerData : players) {
+            if (playerData.getBukkitPlayer() == null) continue;
+
+            TransactionProcessor processor = playerData.getTransactionProcessor();
+            PreparedTransaction transaction = processor.prepareTransaction();
+            if (transaction == null) continue;
+
+            Object channel = playerData.getUser().getChannel();
+            if (channel instanceof Channel) {
+                EventLoop eventLoop = ((Channel) channel).eventLoop();
+                batchesByLoop.computeIfAbsent(eventLoop, loop -> new Batch()).add(processor, transaction);
+            } else {
+                // Without a netty channel there is no event loop to batch on
+                Batch batch = new Batch();
+                batch.add(processor, transaction);
+                batches.incrementAndGet();
+                ChannelHelper.runInEventLoop(channel, batch::flush);
+            }
+        }
+
+        for (Map.Entry<Object, Batch> entry : batchesByLoop.entrySet()) {
+            batches.incrementAndGet();
+            ((EventLoop) entry.getKey()).execute(entry.getValue()::flush);
+        }
+    }
+
+    /**
+     * Retrieves the amount of transactions that shared an event loop task with another transaction.
+     *
+     * @return the amount of coalesced transactions
+     */
+    public long coalesced() {
+        return Math.max(0, transactions.get() - batches.get());
+    }
+
+    /**
+     * Retrieves the average time between scheduling a batch and flushing its last channel.
+     *
+     * @return the average flush latency in milliseconds
+     */
+    public double averageFlushLatency() {
+        long count = batches.get();
+        return count == 0 ? 0 : flushLatency.get() / 1e6 / count;
+    }
+
+    /**
+     * The transactions of a single event loop in a single tick.
+     */
+    private final class Batch {
+
+        private final long scheduled = System.nanoTime();
+
+        private final List<TransactionProcessor> processors   = new ArrayList<>();
+        private final List<PreparedTransaction>  transactions = new ArrayList<>();
+
+        private void add(TransactionProcessor processor, PreparedTransaction transaction) {
+            processors.add(processor);
+            this.transactions.add(transaction);
+        }
+
+        /**
+         * Writes every transaction of the batch and flushes each channel once, on the event loop of the batch.
+         */
+        private void flush() {
+            for (int i = 0; i < processors.size(); i++) {
+                processors.get(i).writeTransaction(transactions.get(i));
+            }
+            for (TransactionProcessor processor : processors) {
+                processor.flushTransactions();
+            }
+
+            TransactionScheduler.this.transactions.addAndGet(processors.size());
+            flushLatency.addAndGet(System.nanoTime() - scheduled);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package de.feelix.sierra.utilities;
 
+import com.github.retrooper.packetevents.event.ProtocolPacketEvent;
+import com.github.retrooper.packetevents.wrapper.PacketWrapper;
 import lombok.experimental.UtilityClass;
 
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
@@ -28,4 +31,31 @@ public class CastUtil {
             return null;
         }
     }
+
+    /**
+     * This method returns the wrapper that was already decoded for the given event, or decodes it once.
+     * Every packet wrapper registers itself as the last used wrapper of its event, so listeners, processors and
+     * checks asking for the same wrapper type share a single decoded instance instead of reading the packet again.
+     * If the event holds a wrapper of another type, it is discarded before decoding.
+     *
+     * @param event      The packet event to decode
+     * @param type       The class of the requested wrapper
+     * @param decoder    The wrapper constructor used if the event was not decoded yet
+     * @param onFailure  The consumer to handle exceptions
+     * @param <E>        The type of the packet event
+     * @param <T>        The type of the wrapper
+     * @return The decoded wrapper, or null if decoding failed
+     */
+    public <E extends ProtocolPacketEvent, T extends PacketWrapper<?>> T getWrapper(E event, Class<T> type,
+                                                                                      Function<E, T> decoder,
+                                                                                      Consumer<Exception> onFailure) {
+        PacketWrapper<?> lastUsedWrapper = event.getLastUsedWrapper();
+        if (lastUsedWrapper != null) {
+            if (lastUsedWrapper.getClass() == type) {
+                return type.cast(lastUsedWrapper);
+            }
+            event.setLastUsedWrapper(null);
+        }
+        return getSupplier(() -> decoder.apply(event), onFailure);
+    }
 }
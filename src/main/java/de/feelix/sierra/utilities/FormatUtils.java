@@ -261,4 +261,35 @@ public class FormatUtils {
         // Format the LocalDateTime
         return DATE_TIME_FORMATTER.format(dateTime);
     }
+
+    /**
+     * Parses a duration such as 30s, 15m, 2h or 7d.
+     *
+     * @param input The duration, a positive number followed by s, m, h or d.
+     * @return The duration in milliseconds, or -1 if the input is not a valid duration.
+     */
+    public static long parseDuration(String input) {
+        if (input == null || input.length() < 2) return -1;
+
+        long amount;
+        try {
+            amount = Long.parseLong(input.substring(0, input.length() - 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (amount <= 0) return -1;
+
+        switch (Character.toLowerCase(input.charAt(input.length() - 1))) {
+            case 's':
+                return amount * 1000L;
+            case 'm':
+                return amount * 60_000L;
+            case 'h':
+                return amount * 3_600_000L;
+            case 'd':
+                return amount * 86_400_000L;
+            default:
+                return -1;
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package de.feelix.sierra.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The TimingWheel class spreads recurring work on a set of elements over several ticks. Every element is hashed
+ * into one of the slots of the wheel and each call to {@link #advance(Consumer)} visits only the elements of the
+ * next slot, so each element is visited once per revolution and the work of a single tick is a fraction of the whole.
+ * <p>
+ * Elements are compared by identity. Adding and removing is safe from any thread and does not disturb a running
+ * revolution.
+ *
+ * @param <T> the type of the elements
+ */
+public class TimingWheel<T> {
+
+    private final List<List<T>> slots;
+    private int cursor;
+
+    /**
+     * Creates a wheel with the given amount of slots.
+     *
+     * @param size the amount of slots, which is the amount of advances needed to visit every element once
+     */
+    public TimingWheel(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive: " + size);
+        }
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new CopyOnWriteArrayList<>());
+        }
+    }
+
+    /**
+     * Adds the given element to its slot, unless it is already part of the wheel.
+     *
+     * @param element the element to add
+     */
+    public void add(T element) {
+        List<T> slot = slot(element);
+        synchronized (slot) {
+            for (T entry : slot) {
+                if (entry == element) return;
+            }
+            slot.add(element);
+        }
+    }
+
+    /**
+     * Removes the given element from its slot.
+     *
+     * @param element the element to remove
+     */
+    public void remove(T element) {
+        List<T> slot = slot(element);
+        synchronized (slot) {
+            slot.removeIf(entry -> entry == element);
+        }
+    }
+
+    /**
+     * Visits every element of the next slot and moves the wheel forward by one slot.
+     *
+     * @param action the action to run for every element of the slot
+     */
+    public synchronized void advance(Consumer<T> action) {
+        List<T> slot = slots.get(cursor);
+        cursor = (cursor + 1) % slots.size();
+
+        for (T element : slot) {
+            action.accept(element);
+        }
+    }
+
+    /**
+     * Retrieves the amount of slots, which is the amount of advances needed to visit every element once.
+     *
+     * @return the amount of slots
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    private List<T> slot(T element) {
+        return slots.get((System.identityHashCode(element) & Integer.MAX_VALUE) % slots.size());
+    }
+}
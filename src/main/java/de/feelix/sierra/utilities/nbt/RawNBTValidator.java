@@ -0,0 +1,307 @@
+package de.feelix.sierra.utilities.nbt;
+
+import com.github.retrooper.packetevents.manager.server.ServerVersion;
+import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
+import com.github.retrooper.packetevents.protocol.packettype.PacketType;
+import lombok.Getter;
+
+/**
+ * The RawNBTValidator class walks the item NBT of a serverbound packet directly in the raw packet buffer, before
+ * PacketEvents decodes it into an NBTCompound tree. Every length the client claims is checked against a budget and
+ * against the remaining bytes before anything is skipped, so an over-budget payload is rejected without allocating
+ * the objects it describes.
+ * <p>
+ * The validator restores the reader index of the buffer after every walk and keeps its counters in fields, so an
+ * instance is meant to be owned by a single player connection.
+ */
+public class RawNBTValidator {
+
+    /**
+     * The maximum nesting depth of compounds and lists. Vanilla allows 512, which no legit item gets close to.
+     */
+    public static final int MAX_DEPTH = 64;
+
+    /**
+     * The maximum encoded size of a single NBT tree, like the limit vanilla applies to item NBT.
+     */
+    public static final int MAX_BYTES = 2097152;
+
+    /**
+     * The maximum amount of elements of a single NBT list.
+     */
+    public static final int MAX_LIST_LENGTH = 1024;
+
+    /**
+     * The maximum amount of elements of a single byte, int or long array.
+     */
+    public static final int MAX_ARRAY_LENGTH = 16384;
+
+    /**
+     * The maximum length of a single string in bytes.
+     */
+    public static final int MAX_STRING_LENGTH = 32767;
+
+    /**
+     * The maximum amount of tags in a single NBT tree.
+     */
+    public static final int MAX_NODES = 32768;
+
+    /**
+     * The maximum amount of changed slots of a click window packet.
+     */
+    private static final int MAX_CHANGED_SLOTS = 128;
+
+    private static final byte TAG_END        = 0;
+    private static final byte TAG_BYTE       = 1;
+    private static final byte TAG_SHORT      = 2;
+    private static final byte TAG_INT        = 3;
+    private static final byte TAG_LONG       = 4;
+    private static final byte TAG_FLOAT      = 5;
+    private static final byte TAG_DOUBLE     = 6;
+    private static final byte TAG_BYTE_ARRAY = 7;
+    private static final byte TAG_STRING     = 8;
+    private static final byte TAG_LIST       = 9;
+    private static final byte TAG_COMPOUND   = 10;
+    private static final byte TAG_INT_ARRAY  = 11;
+    private static final byte TAG_LONG_ARRAY = 12;
+
+    private Object buffer;
+    private int    treeStart;
+    private int    nodes;
+
+    /**
+     * The value of the last budget that was exceeded, used for debug information.
+     */
+    @Getter
+    private long violatingValue;
+
+    /**
+     * Enumeration of the results of a walk.
+     */
+    public enum Result {
+        VALID,
+        DEPTH,
+        BYTES,
+        LIST_LENGTH,
+        ARRAY_LENGTH,
+        STRING_LENGTH,
+        NODES,
+        MALFORMED
+    }
+
+    /**
+     * Checks whether the packet type carries an item that this validator can locate in the raw buffer.
+     * Items of 1.20.5 and newer are encoded as data components instead of NBT and are left to the decoder.
+     *
+     * @param packetType    the client play packet type
+     * @param serverVersion the version of the server, which decides the packet layout
+     * @return true if the packet can be validated, false otherwise
+     */
+    public static boolean canValidate(PacketType.Play.Client packetType, ServerVersion serverVersion) {
+        if (serverVersion.isNewerThanOrEquals(ServerVersion.V_1_20_5)
+            || serverVersion.isOlderThan(ServerVersion.V_1_8)) {
+            return false;
+        }
+
+        switch (packetType) {
+            case CREATIVE_INVENTORY_ACTION:
+            case CLICK_WINDOW:
+                return true;
+            case PLAYER_BLOCK_PLACEMENT:
+                return serverVersion.isOlderThan(ServerVersion.V_1_9);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Walks every item NBT of the packet in the given buffer.
+     *
+     * @param buffer        the raw packet buffer, positioned after the packet id
+     * @param packetType    the client play packet type, see {@link #canValidate(PacketType.Play.Client, ServerVersion)}
+     * @param serverVersion the version of the server, which decides the packet layout
+     * @return the result of the walk, {@link Result#VALID} if every item is within the budgets
+     */
+    public Result validate(Object buffer, PacketType.Play.Client packetType, ServerVersion serverVersion) {
+        int readerIndex = ByteBufHelper.readerIndex(buffer);
+        this.buffer = buffer;
+        try {
+            switch (packetType) {
+                case CREATIVE_INVENTORY_ACTION:
+                    if (!skip(2)) return Result.MALFORMED;
+                    return walkItemStack(serverVersion);
+                case CLICK_WINDOW:
+                    return walkClickWindow(serverVersion);
+                case PLAYER_BLOCK_PLACEMENT:
+                    if (!skip(9)) return Result.MALFORMED;
+                    return walkItemStack(serverVersion);
+                default:
+                    return Result.VALID;
+            }
+        } catch (RuntimeException exception) {
+            // Netty rejects reads past the writer index, the claimed layout does not fit into the packet
+            return Result.MALFORMED;
+        } finally {
+            ByteBufHelper.readerIndex(buffer, readerIndex);
+            this.buffer = null;
+        }
+    }
+
+    private Result walkClickWindow(ServerVersion serverVersion) {
+        boolean changedSlots = serverVersion.isNewerThanOrEquals(ServerVersion.V_1_17);
+
+        if (!skip(1)) return Result.MALFORMED;
+        if (serverVersion.isNewerThanOrEquals(ServerVersion.V_1_17_1)) {
+            ByteBufHelper.readVarInt(buffer);
+        }
+        if (!skip(changedSlots ? 3 : 5)) return Result.MALFORMED;
+        ByteBufHelper.readVarInt(buffer);
+
+        if (changedSlots) {
+            int changedSlotCount = ByteBufHelper.readVarInt(buffer);
+            if (changedSlotCount < 0 || changedSlotCount > MAX_CHANGED_SLOTS) {
+                violatingValue = changedSlotCount;
+                return Result.LIST_LENGTH;
+            }
+            for (int i = 0; i < changedSlotCount; i++) {
+                if (!skip(2)) return Result.MALFORMED;
+                Result result = walkItemStack(serverVersion);
+                if (result != Result.VALID) return result;
+            }
+        }
+        return walkItemStack(serverVersion);
+    }
+
+    private Result walkItemStack(ServerVersion serverVersion) {
+        if (serverVersion.isNewerThanOrEquals(ServerVersion.V_1_13_2)) {
+            if (!ByteBufHelper.readBoolean(buffer)) return Result.VALID;
+            ByteBufHelper.readVarInt(buffer);
+            if (!skip(1)) return Result.MALFORMED;
+        } else {
+            if (ByteBufHelper.readShort(buffer) < 0) return Result.VALID;
+            // Item count, followed by the damage before the flattening
+            if (!skip(serverVersion.isNewerThanOrEquals(ServerVersion.V_1_13) ? 1 : 3)) return Result.MALFORMED;
+        }
+        return walkTree(serverVersion.isOlderThan(ServerVersion.V_1_20_2));
+    }
+
+    private Result walkTree(boolean namedRoot) {
+        byte rootType = ByteBufHelper.readByte(buffer);
+        if (rootType == TAG_END) return Result.VALID;
+        if (rootType != TAG_COMPOUND) return Result.MALFORMED;
+
+        treeStart = ByteBufHelper.readerIndex(buffer) - 1;
+        nodes = 0;
+
+        if (namedRoot) {
+            Result result = skipString();
+            if (result != Result.VALID) return result;
+        }
+        return walkPayload(TAG_COMPOUND, 1);
+    }
+
+    private Result walkPayload(byte type, int depth) {
+        if (++nodes > MAX_NODES) {
+            violatingValue = nodes;
+            return Result.NODES;
+        }
+
+        switch (type) {
+            case TAG_BYTE:
+                return skip(1) ? Result.VALID : Result.MALFORMED;
+            case TAG_SHORT:
+                return skip(2) ? Result.VALID : Result.MALFORMED;
+            case TAG_INT:
+            case TAG_FLOAT:
+                return skip(4) ? Result.VALID : Result.MALFORMED;
+            case TAG_LONG:
+            case TAG_DOUBLE:
+                return skip(8) ? Result.VALID : Result.MALFORMED;
+            case TAG_BYTE_ARRAY:
+                return skipArray(1);
+            case TAG_INT_ARRAY:
+                return skipArray(4);
+            case TAG_LONG_ARRAY:
+                return skipArray(8);
+            case TAG_STRING:
+                return skipString();
+            case TAG_LIST:
+                return walkList(depth);
+            case TAG_COMPOUND:
+                return walkCompound(depth);
+            default:
+                return Result.MALFORMED;
+        }
+    }
+
+    private Result walkList(int depth) {
+        if (depth > MAX_DEPTH) {
+            violatingValue = depth;
+            return Result.DEPTH;
+        }
+
+        byte elementType = ByteBufHelper.readByte(buffer);
+        int length = ByteBufHelper.readInt(buffer);
+        if (length < 0 || length > MAX_LIST_LENGTH) {
+            violatingValue = length;
+            return Result.LIST_LENGTH;
+        }
+        if (elementType == TAG_END && length > 0) return Result.MALFORMED;
+
+        for (int i = 0; i < length; i++) {
+            Result result = walkPayload(elementType, depth + 1);
+            if (result != Result.VALID) return result;
+        }
+        return checkBytes();
+    }
+
+    private Result walkCompound(int depth) {
+        if (depth > MAX_DEPTH) {
+            violatingValue = depth;
+            return Result.DEPTH;
+        }
+
+        byte type;
+        while ((type = ByteBufHelper.readByte(buffer)) != TAG_END) {
+            Result result = skipString();
+            if (result != Result.VALID) return result;
+
+            result = walkPayload(type, depth + 1);
+            if (result != Result.VALID) return result;
+        }
+        return checkBytes();
+    }
+
+    private Result skipArray(int elementSize) {
+        int length = ByteBufHelper.readInt(buffer);
+        if (length < 0 || length > MAX_ARRAY_LENGTH) {
+            violatingValue = length;
+            return Result.ARRAY_LENGTH;
+        }
+        return skip(length * elementSize) ? checkBytes() : Result.MALFORMED;
+    }
+
+    private Result skipString() {
+        int length = ByteBufHelper.readUnsignedShort(buffer);
+        if (length > MAX_STRING_LENGTH) {
+            violatingValue = length;
+            return Result.STRING_LENGTH;
+        }
+        return skip(length) ? Result.VALID : Result.MALFORMED;
+    }
+
+    private Result checkBytes() {
+        int size = ByteBufHelper.readerIndex(buffer) - treeStart;
+        if (size > MAX_BYTES) {
+            violatingValue = size;
+            return Result.BYTES;
+        }
+        return Result.VALID;
+    }
+
+    private boolean skip(int length) {
+        if (ByteBufHelper.readableBytes(buffer) < length) return false;
+        ByteBufHelper.skipBytes(buffer, length);
+        return true;
+    }
+}
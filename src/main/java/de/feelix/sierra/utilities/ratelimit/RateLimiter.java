@@ -0,0 +1,36 @@
+package de.feelix.sierra.utilities.ratelimit;
+
+/**
+ * The RateLimiter interface limits how many permits can be acquired per second for a fixed number of slots.
+ * A slot is an independent limit, for example the ordinal of a packet type. Implementations keep their state in
+ * primitive arrays and are not thread-safe; each limiter is meant to be owned by a single player connection.
+ */
+public interface RateLimiter {
+
+    /**
+     * Tries to acquire the given amount of permits in the given slot.
+     *
+     * @param slot    the index of the limited slot
+     * @param permits the amount of permits to acquire, e.g. one packet or the size of a packet in bytes
+     * @param now     the current time as returned by {@link System#nanoTime()}
+     * @return true if the permits were acquired, false if the slot exceeded its limit
+     */
+    boolean tryAcquire(int slot, long permits, long now);
+
+    /**
+     * Retrieves the amount of permits currently used in the given slot.
+     *
+     * @param slot the index of the limited slot
+     * @param now  the current time as returned by {@link System#nanoTime()}
+     * @return the used permits of the slot
+     */
+    long usage(int slot, long now);
+
+    /**
+     * Retrieves the amount of permits the given slot can hold at once.
+     *
+     * @param slot the index of the limited slot
+     * @return the capacity of the slot
+     */
+    long capacity(int slot);
+}
@@ -0,0 +1,45 @@
+package de.feelix.sierra.utilities.ratelimit;
+
+/**
+ * Enumeration of the available {@link RateLimiter} algorithms.
+ */
+public enum RateLimiterType {
+
+    TOKEN_BUCKET {
+        @Override
+        public RateLimiter create(int[] limitsPerSecond, double burst, long now) {
+            return new TokenBucketLimiter(limitsPerSecond, burst, now);
+        }
+    },
+    SLIDING_WINDOW {
+        @Override
+        public RateLimiter create(int[] limitsPerSecond, double burst, long now) {
+            return new SlidingWindowLimiter(limitsPerSecond, burst, now);
+        }
+    };
+
+    /**
+     * Creates a new rate limiter with one slot for each given limit.
+     *
+     * @param limitsPerSecond the permits per second of each slot
+     * @param burst           the amount of seconds of permits a slot may use at once
+     * @param now             the current time as returned by {@link System#nanoTime()}
+     * @return the created rate limiter
+     */
+    public abstract RateLimiter create(int[] limitsPerSecond, double burst, long now);
+
+    /**
+     * Retrieves the rate limiter type with the given name, ignoring case.
+     *
+     * @param name the name of the type
+     * @return the matching type, or {@link #TOKEN_BUCKET} if no type matches
+     */
+    public static RateLimiterType fromName(String name) {
+        for (RateLimiterType type : values()) {
+            if (type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        return TOKEN_BUCKET;
+    }
+}
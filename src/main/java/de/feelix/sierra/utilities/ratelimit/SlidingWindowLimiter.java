@@ -0,0 +1,76 @@
+package de.feelix.sierra.utilities.ratelimit;
+
+/**
+ * The SlidingWindowLimiter class is a {@link RateLimiter} that counts the permits of every slot in a window that
+ * slides with time. It keeps the counts of the current and the previous fixed window and weights the previous count
+ * by how much of it still overlaps the sliding window, which needs two counters per slot instead of a timestamp for
+ * every permit.
+ */
+public class SlidingWindowLimiter implements RateLimiter {
+
+    private final long   windowNanos;
+    private final long[] limits;
+    private final long[] windowStart;
+    private final long[] currentCount;
+    private final long[] previousCount;
+
+    /**
+     * Creates a new sliding window for each given limit.
+     *
+     * @param limitsPerSecond the permits per second of each slot
+     * @param windowSeconds   the length of the sliding window in seconds, the limit is scaled to it
+     * @param now             the current time as returned by {@link System#nanoTime()}
+     */
+    public SlidingWindowLimiter(int[] limitsPerSecond, double windowSeconds, long now) {
+        int length = limitsPerSecond.length;
+        this.windowNanos = Math.max(1, (long) (windowSeconds * 1e9));
+        this.limits = new long[length];
+        this.windowStart = new long[length];
+        this.currentCount = new long[length];
+        this.previousCount = new long[length];
+
+        for (int slot = 0; slot < length; slot++) {
+            this.limits[slot] = Math.max(1, (long) (limitsPerSecond[slot] * windowSeconds));
+            this.windowStart[slot] = now;
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(int slot, long permits, long now) {
+        advance(slot, now);
+        currentCount[slot] += permits;
+        return estimate(slot, now) <= limits[slot];
+    }
+
+    @Override
+    public long usage(int slot, long now) {
+        advance(slot, now);
+        return estimate(slot, now);
+    }
+
+    @Override
+    public long capacity(int slot) {
+        return limits[slot];
+    }
+
+    private void advance(int slot, long now) {
+        long elapsed = now - windowStart[slot];
+        if (elapsed < windowNanos) return;
+
+        if (elapsed < windowNanos * 2) {
+            // Exactly one window passed, the current count becomes the previous one
+            previousCount[slot] = currentCount[slot];
+            windowStart[slot] += windowNanos;
+        } else {
+            // The slot was idle for longer than a whole window, nothing overlaps anymore
+            previousCount[slot] = 0;
+            windowStart[slot] = now;
+        }
+        currentCount[slot] = 0;
+    }
+
+    private long estimate(int slot, long now) {
+        double overlap = 1.0 - (double) (now - windowStart[slot]) / windowNanos;
+        return currentCount[slot] + (long) (previousCount[slot] * Math.max(0, overlap));
+    }
+}
@@ -0,0 +1,66 @@
+package de.feelix.sierra.utilities.ratelimit;
+
+/**
+ * The TokenBucketLimiter class is a {@link RateLimiter} that refills every slot continuously with its rate per
+ * second, up to a capacity of rate times burst. Tokens are refilled lazily from {@link System#nanoTime()} when a
+ * slot is accessed, so no reset task has to run over the limiters.
+ */
+public class TokenBucketLimiter implements RateLimiter {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final double[] ratePerNano;
+    private final double[] capacity;
+    private final double[] tokens;
+    private final long[]   lastRefill;
+
+    /**
+     * Creates a new token bucket for each given rate.
+     *
+     * @param ratesPerSecond the permits per second of each slot
+     * @param burst          the multiplier of the rate that makes up the capacity of a slot
+     * @param now            the current time as returned by {@link System#nanoTime()}
+     */
+    public TokenBucketLimiter(int[] ratesPerSecond, double burst, long now) {
+        int length = ratesPerSecond.length;
+        this.ratePerNano = new double[length];
+        this.capacity = new double[length];
+        this.tokens = new double[length];
+        this.lastRefill = new long[length];
+
+        for (int slot = 0; slot < length; slot++) {
+            this.ratePerNano[slot] = ratesPerSecond[slot] / NANOS_PER_SECOND;
+            this.capacity[slot] = Math.max(1, ratesPerSecond[slot] * burst);
+            this.tokens[slot] = this.capacity[slot];
+            this.lastRefill[slot] = now;
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(int slot, long permits, long now) {
+        refill(slot, now);
+        if (tokens[slot] < permits) return false;
+
+        tokens[slot] -= permits;
+        return true;
+    }
+
+    @Override
+    public long usage(int slot, long now) {
+        refill(slot, now);
+        return (long) Math.ceil(capacity[slot] - tokens[slot]);
+    }
+
+    @Override
+    public long capacity(int slot) {
+        return (long) capacity[slot];
+    }
+
+    private void refill(int slot, long now) {
+        long elapsed = now - lastRefill[slot];
+        if (elapsed <= 0) return;
+
+        lastRefill[slot] = now;
+        tokens[slot] = Math.min(capacity[slot], tokens[slot] + elapsed * ratePerNano[slot]);
+    }
+}
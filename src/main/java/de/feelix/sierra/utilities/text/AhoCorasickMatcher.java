@@ -0,0 +1,149 @@
+package de.feelix.sierra.utilities.text;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The AhoCorasickMatcher class checks whether a text contains any of a fixed set of patterns in a single linear
+ * scan, regardless of how many patterns there are. The patterns are compiled once into a trie with failure links,
+ * which is stored in flat arrays, so matching does not allocate.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+public final class AhoCorasickMatcher {
+
+    /**
+     * The sorted transition characters of each node.
+     */
+    private final char[][] keys;
+
+    /**
+     * The target node of each transition, in the order of {@link #keys}.
+     */
+    private final int[][] targets;
+
+    /**
+     * The node of the longest proper suffix of each node that is also in the trie.
+     */
+    private final int[] failure;
+
+    /**
+     * Whether a pattern ends at each node or at one of its suffixes.
+     */
+    private final boolean[] output;
+
+    private AhoCorasickMatcher(char[][] keys, int[][] targets, int[] failure, boolean[] output) {
+        this.keys = keys;
+        this.targets = targets;
+        this.failure = failure;
+        this.output = output;
+    }
+
+    /**
+     * Compiles the given patterns into a matcher. An empty pattern is contained in every text.
+     *
+     * @param patterns the patterns to match
+     * @return the compiled matcher
+     */
+    public static AhoCorasickMatcher compile(Collection<String> patterns) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Boolean> terminal = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        terminal.add(false);
+
+        for (String pattern : patterns) {
+            int node = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer next = trie.get(node).get(pattern.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(node).put(pattern.charAt(i), next);
+                    trie.add(new TreeMap<>());
+                    terminal.add(false);
+                }
+                node = next;
+            }
+            terminal.set(node, true);
+        }
+
+        int size = trie.size();
+        char[][] keys = new char[size][];
+        int[][] targets = new int[size][];
+        boolean[] output = new boolean[size];
+
+        for (int node = 0; node < size; node++) {
+            Map<Character, Integer> transitions = trie.get(node);
+            keys[node] = new char[transitions.size()];
+            targets[node] = new int[transitions.size()];
+            int index = 0;
+            for (Map.Entry<Character, Integer> entry : transitions.entrySet()) {
+                keys[node][index] = entry.getKey();
+                targets[node][index++] = entry.getValue();
+            }
+            output[node] = terminal.get(node);
+        }
+
+        // Breadth first, so the failure link of a node is always computed before its children
+        int[] failure = new int[size];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            output[node] |= output[failure[node]];
+
+            for (int i = 0; i < keys[node].length; i++) {
+                char key = keys[node][i];
+                int child = targets[node][i];
+
+                int fallback = failure[node];
+                int target = transition(keys, targets, fallback, key);
+                while (target < 0 && fallback != 0) {
+                    fallback = failure[fallback];
+                    target = transition(keys, targets, fallback, key);
+                }
+                failure[child] = target < 0 ? 0 : target;
+                queue.add(child);
+            }
+        }
+
+        return new AhoCorasickMatcher(keys, targets, failure, output);
+    }
+
+    /**
+     * Checks whether the given text contains at least one of the patterns.
+     *
+     * @param text the text to scan
+     * @return true if any pattern occurs in the text, false otherwise
+     */
+    public boolean containsAny(CharSequence text) {
+        if (output[0]) return true;
+
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            int target = transition(keys, targets, node, c);
+            while (target < 0 && node != 0) {
+                node = failure[node];
+                target = transition(keys, targets, node, c);
+            }
+            node = target < 0 ? 0 : target;
+
+            if (output[node]) return true;
+        }
+        return false;
+    }
+
+    private static int transition(char[][] keys, int[][] targets, int node, char c) {
+        int index = Arrays.binarySearch(keys[node], c);
+        return index < 0 ? -1 : targets[node][index];
+    }
+}